@@ -0,0 +1,40 @@
+package com.chatbot.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+// Opt-in virtual-thread mode (spring.threads.virtual.enabled=true): Tomcat then runs every request on
+// its own virtual thread instead of a bounded platform-thread pool, so requests blocked on the
+// database no longer use up the threads. Database work is bounded separately: the DataSource hands
+// out at most chatbot.database.max-concurrency connections at a time (the pool size by default) and
+// makes the rest wait on a semaphore.
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof BoundedDataSource) {
+                    return bean;
+                }
+                int maxConcurrency = environment.getProperty("chatbot.database.max-concurrency", Integer.class, 0);
+                if (maxConcurrency <= 0) {
+                    maxConcurrency = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+                }
+                long maxWaitMillis = environment.getProperty("chatbot.database.max-wait-ms", Long.class, 30_000L);
+                System.out.println("Virtual threads enabled; database work limited to " + maxConcurrency + " connections");
+                return new BoundedDataSource(dataSource, maxConcurrency, maxWaitMillis);
+            }
+        };
+    }
+}
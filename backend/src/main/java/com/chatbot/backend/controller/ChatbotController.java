@@ -4,20 +4,58 @@ import com.chatbot.backend.dto.*;
 import com.chatbot.backend.model.Product;
 import com.chatbot.backend.model.Order;
 import com.chatbot.backend.service.ChatbotService;
+import com.chatbot.backend.service.InventoryBitmapIndex;
+import com.chatbot.backend.service.OrderIdFilter;
+import com.chatbot.backend.service.ProductCardCache;
+import com.chatbot.backend.service.ResponseCache;
+import com.chatbot.backend.service.StockCounterService;
+import com.chatbot.backend.service.StockFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/chatbot")
 @CrossOrigin(origins = "*")
 public class ChatbotController {
     private final ChatbotService chatbotService;
+    private final StockCounterService stockCounterService;
+    private final InventoryBitmapIndex inventoryBitmapIndex;
+    private final ResponseCache responseCache;
+    private final ProductCardCache productCardCache;
+    private final OrderIdFilter orderIdFilter;
+    private final ObjectMapper objectMapper;
+    private final int defaultPageSize;
+    private final int maxPageSize;
     
     @Autowired
-    public ChatbotController(ChatbotService chatbotService) {
+    public ChatbotController(ChatbotService chatbotService, StockCounterService stockCounterService,
+                             InventoryBitmapIndex inventoryBitmapIndex, ResponseCache responseCache,
+                             ProductCardCache productCardCache, OrderIdFilter orderIdFilter, ObjectMapper objectMapper,
+                             @Value("${chatbot.paging.default-size:50}") int defaultPageSize,
+                             @Value("${chatbot.paging.max-size:500}") int maxPageSize) {
         this.chatbotService = chatbotService;
+        this.stockCounterService = stockCounterService;
+        this.inventoryBitmapIndex = inventoryBitmapIndex;
+        this.responseCache = responseCache;
+        this.productCardCache = productCardCache;
+        this.orderIdFilter = orderIdFilter;
+        this.objectMapper = objectMapper;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
     
     // Natural language query endpoint
@@ -27,52 +65,165 @@ public class ChatbotController {
         return ResponseEntity.ok(response);
     }
     
+    // Many questions in one request, answered in order; identical lookups across them run once
+    @PostMapping("/query/batch")
+    public ResponseEntity<List<ChatResponse>> handleChatbotQueryBatch(@RequestBody List<ChatQuery> queries) {
+        List<String> questions = queries.stream().map(query -> query == null ? null : query.getQuestion()).toList();
+        return ResponseEntity.ok(chatbotService.processNaturalLanguageQueries(questions));
+    }
+    
     // Product endpoints
     @GetMapping("/products/top")
-    public ResponseEntity<List<Product>> getTop5SoldProducts() {
-        List<Product> products = chatbotService.getTop5SoldProducts();
+    public ResponseEntity<List<ProductSales>> getTopSoldProducts(@RequestParam(defaultValue = "${chatbot.ranking.top-k:5}") int limit) {
+        List<ProductSales> products = chatbotService.getTopSoldProducts(limit);
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping("/products/top/category/{category}")
+    public ResponseEntity<List<ProductSales>> getTopSoldProductsByCategory(
+            @PathVariable String category,
+            @RequestParam(defaultValue = "${chatbot.ranking.top-k:5}") int limit) {
+        List<ProductSales> products = chatbotService.getTopSoldProductsByCategory(category, limit);
+        return ResponseEntity.ok(products);
+    }
+    
+    @GetMapping("/products/top/department/{department}")
+    public ResponseEntity<List<ProductSales>> getTopSoldProductsByDepartment(
+            @PathVariable String department,
+            @RequestParam(defaultValue = "${chatbot.ranking.top-k:5}") int limit) {
+        List<ProductSales> products = chatbotService.getTopSoldProductsByDepartment(department, limit);
+        return ResponseEntity.ok(products);
+    }
+    
+    // The list endpoints below return the whole list by default, one keyset page when size or
+    // cursor is given, and stream one JSON object per line for Accept: application/x-ndjson
     @GetMapping("/products/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String query) {
-        List<Product> products = chatbotService.searchProducts(query);
+    public ResponseEntity<?> searchProducts(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "${chatbot.search.default-limit:20}") int limit,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        if (isPaged(size, cursor)) {
+            return ResponseEntity.ok(chatbotService.searchProducts(query, cursor, pageSize(size)));
+        }
+        List<Product> products = chatbotService.searchProducts(query, limit);
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping(value = "/products/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSearchProducts(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "${chatbot.search.default-limit:20}") int limit) {
+        List<Product> products = chatbotService.searchProducts(query, limit);
+        return ndjson(products::forEach);
+    }
+    
     @GetMapping("/products/category/{category}")
-    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable String category) {
+    public ResponseEntity<?> getProductsByCategory(@PathVariable String category,
+                                                   @RequestParam(required = false) Integer size,
+                                                   @RequestParam(required = false) String cursor) {
+        if (isPaged(size, cursor)) {
+            return ResponseEntity.ok(chatbotService.getProductsByCategory(category, cursor, pageSize(size)));
+        }
         List<Product> products = chatbotService.getProductsByCategory(category);
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping(value = "/products/category/{category}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProductsByCategory(@PathVariable String category) {
+        return ndjson(chatbotService.getProductsByCategory(category)::forEach);
+    }
+    
     @GetMapping("/products/brand/{brand}")
-    public ResponseEntity<List<Product>> getProductsByBrand(@PathVariable String brand) {
+    public ResponseEntity<?> getProductsByBrand(@PathVariable String brand,
+                                                @RequestParam(required = false) Integer size,
+                                                @RequestParam(required = false) String cursor) {
+        if (isPaged(size, cursor)) {
+            return ResponseEntity.ok(chatbotService.getProductsByBrand(brand, cursor, pageSize(size)));
+        }
         List<Product> products = chatbotService.getProductsByBrand(brand);
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping(value = "/products/brand/{brand}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProductsByBrand(@PathVariable String brand) {
+        return ndjson(chatbotService.getProductsByBrand(brand)::forEach);
+    }
+    
+    @GetMapping("/products/department/{department}")
+    public ResponseEntity<?> getProductsByDepartment(@PathVariable String department,
+                                                     @RequestParam(required = false) Integer size,
+                                                     @RequestParam(required = false) String cursor) {
+        if (isPaged(size, cursor)) {
+            return ResponseEntity.ok(chatbotService.getProductsByDepartment(department, cursor, pageSize(size)));
+        }
+        List<Product> products = chatbotService.getProductsByDepartment(department);
+        return ResponseEntity.ok(products);
+    }
+    
+    @GetMapping(value = "/products/department/{department}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProductsByDepartment(@PathVariable String department) {
+        return ndjson(chatbotService.getProductsByDepartment(department)::forEach);
+    }
+    
     @GetMapping("/products/price-range")
-    public ResponseEntity<List<Product>> getProductsByPriceRange(
+    public ResponseEntity<?> getProductsByPriceRange(
             @RequestParam double minPrice, 
-            @RequestParam double maxPrice) {
+            @RequestParam double maxPrice,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        if (isPaged(size, cursor)) {
+            return ResponseEntity.ok(chatbotService.getProductsByPriceRange(minPrice, maxPrice, cursor, pageSize(size)));
+        }
         List<Product> products = chatbotService.getProductsByPriceRange(minPrice, maxPrice);
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping(value = "/products/price-range", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProductsByPriceRange(
+            @RequestParam double minPrice,
+            @RequestParam double maxPrice) {
+        return ndjson(chatbotService.getProductsByPriceRange(minPrice, maxPrice)::forEach);
+    }
+    
     // Order endpoints
     @GetMapping("/orders/status/{orderId}")
-    public ResponseEntity<OrderStatusResponse> getOrderStatus(@PathVariable String orderId) {
-        OrderStatusResponse orderStatus = chatbotService.getOrderStatus(orderId);
-        return ResponseEntity.ok(orderStatus);
+    public ResponseEntity<?> getOrderStatus(@PathVariable String orderId) {
+        return chatbotService.getOrderStatus(orderId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> orderNotFound(orderId));
+    }
+    
+    // Order with its line items and total
+    @GetMapping("/orders/{orderId}")
+    public ResponseEntity<?> getOrderDetail(@PathVariable String orderId) {
+        return chatbotService.getOrderDetail(orderId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> orderNotFound(orderId));
+    }
+    
+    // The same body GlobalExceptionHandler used to produce, without an exception per miss
+    private static ResponseEntity<ChatResponse> orderNotFound(String orderId) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ChatResponse("Order not found with ID: " + orderId));
     }
     
     @GetMapping("/orders/user/{userId}")
-    public ResponseEntity<List<Order>> getUserOrders(@PathVariable String userId) {
+    public ResponseEntity<?> getUserOrders(@PathVariable String userId,
+                                           @RequestParam(required = false) Integer size,
+                                           @RequestParam(required = false) String cursor) {
+        if (isPaged(size, cursor)) {
+            return ResponseEntity.ok(chatbotService.getUserOrders(userId, cursor, pageSize(size)));
+        }
         List<Order> orders = chatbotService.getUserOrders(userId);
         return ResponseEntity.ok(orders);
     }
     
+    // Read from a database cursor and written as each order arrives
+    @GetMapping(value = "/orders/user/{userId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUserOrders(@PathVariable String userId) {
+        return ndjson(action -> chatbotService.forEachUserOrder(userId, action));
+    }
+    
     // Inventory endpoints
     @GetMapping("/inventory/stock/{productName}")
     public ResponseEntity<Integer> getProductStockCount(@PathVariable String productName) {
@@ -80,6 +231,46 @@ public class ChatbotController {
         return ResponseEntity.ok(stockCount);
     }
     
+    @GetMapping("/inventory/stock")
+    public ResponseEntity<Map<String, Integer>> getAvailableStock(@RequestParam List<String> productIds) {
+        return ResponseEntity.ok(chatbotService.getAvailableStock(productIds));
+    }
+    
+    @GetMapping("/inventory/stock/product/{productId}")
+    public ResponseEntity<Long> getProductStock(@PathVariable String productId,
+                                                @RequestParam(required = false) String distributionCenterId) {
+        long stock = distributionCenterId == null
+                ? stockCounterService.available(productId)
+                : stockCounterService.available(productId, distributionCenterId);
+        return ResponseEntity.ok(stock);
+    }
+    
+    @GetMapping("/inventory/stock/distribution-center/{distributionCenterId}")
+    public ResponseEntity<Long> getDistributionCenterStock(@PathVariable String distributionCenterId) {
+        return ResponseEntity.ok(stockCounterService.availableAtDistributionCenter(distributionCenterId));
+    }
+    
+    // Available units matching every given facet, e.g. ?brand=Levi's&category=Jeans&distributionCenterId=1
+    @GetMapping("/inventory/availability")
+    public ResponseEntity<Long> getAvailability(@RequestParam(required = false) String category,
+                                                @RequestParam(required = false) String brand,
+                                                @RequestParam(required = false) String department,
+                                                @RequestParam(required = false) String distributionCenterId) {
+        return ResponseEntity.ok(inventoryBitmapIndex.countAvailable(new StockFilter(category, brand, department, distributionCenterId)));
+    }
+    
+    // The same, broken down by category, brand, department or distribution-center
+    @GetMapping("/inventory/availability/{facet}")
+    public ResponseEntity<Map<String, Long>> getAvailabilityFacets(@PathVariable String facet,
+                                                                   @RequestParam(required = false) String category,
+                                                                   @RequestParam(required = false) String brand,
+                                                                   @RequestParam(required = false) String department,
+                                                                   @RequestParam(required = false) String distributionCenterId) {
+        InventoryBitmapIndex.Facet groupBy = InventoryBitmapIndex.Facet.valueOf(facet.toUpperCase(Locale.ROOT).replace('-', '_'));
+        StockFilter filter = new StockFilter(category, brand, department, distributionCenterId);
+        return ResponseEntity.ok(inventoryBitmapIndex.facetCounts(groupBy, filter));
+    }
+    
     // Metadata endpoints
     @GetMapping("/categories")
     public ResponseEntity<List<String>> getAllCategories() {
@@ -99,9 +290,58 @@ public class ChatbotController {
         return ResponseEntity.ok(departments);
     }
     
+    // Hit/miss/eviction counters of the in-memory caches
+    @GetMapping("/stats/caches")
+    public ResponseEntity<List<CacheStatistics>> getCacheStatistics() {
+        return ResponseEntity.ok(List.of(responseCache.getStatistics(), productCardCache.getStatistics()));
+    }
+    
+    // Size and false-positive rates of the order id filter
+    @GetMapping("/stats/order-id-filter")
+    public ResponseEntity<OrderIdFilterStatistics> getOrderIdFilterStatistics() {
+        return ResponseEntity.ok(orderIdFilter.getStatistics());
+    }
+    
+    // Concurrent identical order reads and how many of them shared one database call
+    @GetMapping("/stats/single-flight")
+    public ResponseEntity<List<SingleFlightStatistics>> getSingleFlightStatistics() {
+        return ResponseEntity.ok(chatbotService.getSingleFlightStatistics());
+    }
+    
     // Health check endpoint
     @GetMapping("/health")
     public ResponseEntity<String> healthCheck() {
         return ResponseEntity.ok("Chatbot API is running!");
     }
-} 
\ No newline at end of file
+    
+    private boolean isPaged(Integer size, String cursor) {
+        return size != null || cursor != null;
+    }
+    
+    private int pageSize(Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        return Math.min(size, maxPageSize);
+    }
+    
+    // Writes each row the source produces as one JSON line
+    private ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<Object>> source) {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream, 64 * 1024);
+            source.accept(row -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(row));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
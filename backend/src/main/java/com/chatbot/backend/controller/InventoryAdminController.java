@@ -0,0 +1,62 @@
+package com.chatbot.backend.controller;
+
+import com.chatbot.backend.dto.StockReconciliation;
+import com.chatbot.backend.service.StockCounterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.function.Supplier;
+
+// Inventory changes and stock reconciliation. Kept off the public chatbot API: these endpoints only
+// exist when chatbot.admin.token is set, are not open to cross-origin callers, and every request must
+// carry the token in the X-Admin-Token header.
+@RestController
+@RequestMapping("/api/admin/inventory")
+@ConditionalOnProperty(name = "chatbot.admin.token")
+public class InventoryAdminController {
+    private final StockCounterService stockCounterService;
+    private final byte[] token;
+
+    @Autowired
+    public InventoryAdminController(StockCounterService stockCounterService,
+                                    @Value("${chatbot.admin.token}") String token) {
+        if (token.isBlank()) {
+            throw new IllegalArgumentException("chatbot.admin.token must not be blank");
+        }
+        this.stockCounterService = stockCounterService;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 409 when the item is already in the requested state
+    @PostMapping("/items/{itemId}/sell")
+    public ResponseEntity<Void> sellInventoryItem(@RequestHeader(value = "X-Admin-Token", required = false) String token,
+                                                  @PathVariable String itemId) {
+        return authorized(token, () -> stockCounterService.sell(itemId)
+                ? ResponseEntity.ok().build() : ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @PostMapping("/items/{itemId}/restock")
+    public ResponseEntity<Void> restockInventoryItem(@RequestHeader(value = "X-Admin-Token", required = false) String token,
+                                                     @PathVariable String itemId) {
+        return authorized(token, () -> stockCounterService.restock(itemId)
+                ? ResponseEntity.ok().build() : ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @PostMapping("/reconcile")
+    public ResponseEntity<StockReconciliation> reconcileStock(@RequestHeader(value = "X-Admin-Token", required = false) String token) {
+        return authorized(token, () -> ResponseEntity.ok(stockCounterService.reconcile()));
+    }
+
+    private <T> ResponseEntity<T> authorized(String given, Supplier<ResponseEntity<T>> action) {
+        if (given == null || !MessageDigest.isEqual(token, given.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return action.get();
+    }
+}
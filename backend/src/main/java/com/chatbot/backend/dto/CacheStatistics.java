@@ -0,0 +1,21 @@
+package com.chatbot.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatistics {
+    private String name;
+    private long size;
+    private long weightedSize;
+    private long maximumWeight;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long evictionWeight;
+    private double averageLoadMillis;
+}
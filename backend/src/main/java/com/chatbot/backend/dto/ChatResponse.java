@@ -4,7 +4,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.util.List;
-import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -12,9 +11,10 @@ import java.util.Map;
 public class ChatResponse {
     private String message;
     private String type; // "text", "product_list", "order_status", "stock_info"
-    private List<Map<String, Object>> data;
+    private List<?> data; // ProductCardJson, ProductSales or OrderStatusResponse rows
     private boolean success;
     private String errorMessage;
+    private boolean cached; // served from the response cache
     
     public ChatResponse(String message, String type) {
         this.message = message;
@@ -22,7 +22,7 @@ public class ChatResponse {
         this.success = true;
     }
     
-    public ChatResponse(String message, String type, List<Map<String, Object>> data) {
+    public ChatResponse(String message, String type, List<?> data) {
         this.message = message;
         this.type = type;
         this.data = data;
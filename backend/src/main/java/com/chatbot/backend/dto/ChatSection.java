@@ -0,0 +1,15 @@
+package com.chatbot.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// One part of a question that asked for several things, with its own answer
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSection {
+    private String intent; // "order_status", "stock", "product_search", ...
+    private String question;
+    private ChatResponse response;
+}
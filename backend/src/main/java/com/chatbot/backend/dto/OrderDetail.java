@@ -0,0 +1,23 @@
+package com.chatbot.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderDetail {
+    private String orderId;
+    private String userId;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime shippedAt;
+    private LocalDateTime deliveredAt;
+    private LocalDateTime returnedAt;
+    private int numOfItem;
+    private double totalAmount;
+    private List<OrderLine> items;
+}
@@ -0,0 +1,10 @@
+package com.chatbot.backend.dto;
+
+import java.time.LocalDateTime;
+
+// One row of the orders/order_items/products join behind OrderRepository.findDetailRows
+public record OrderDetailRow(String orderId, String userId, String status, LocalDateTime createdAt,
+                             LocalDateTime shippedAt, LocalDateTime deliveredAt, LocalDateTime returnedAt,
+                             int numOfItem, double totalAmount, String itemId, String productId, String productName,
+                             String brand, String category, String itemStatus, Double salePrice) {
+}
@@ -0,0 +1,20 @@
+package com.chatbot.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIdFilterStatistics {
+    private long entries;
+    private long capacity;
+    private long sizeInBytes;
+    private int hashFunctions;
+    private double expectedFalsePositiveRate; // from the fraction of bits set
+    private long lookups;
+    private long rejected; // answered without a database query
+    private long falsePositives; // passed the filter but not in the database
+    private double observedFalsePositiveRate; // falsePositives / (rejected + falsePositives)
+}
@@ -0,0 +1,18 @@
+package com.chatbot.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLine {
+    private String id;
+    private String productId;
+    private String productName;
+    private String brand;
+    private String category;
+    private String status;
+    private double salePrice;
+}
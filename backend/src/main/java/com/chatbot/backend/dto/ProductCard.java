@@ -0,0 +1,13 @@
+package com.chatbot.backend.dto;
+
+import com.chatbot.backend.model.Product;
+
+// The fields a product list in a chat answer shows. Also a repository projection, so these columns
+// can be read without loading (and tracking) the entity.
+public record ProductCard(String id, String name, String brand, String category, double retailPrice) {
+
+    public static ProductCard of(Product product) {
+        return new ProductCard(product.getId(), product.getName(), product.getBrand(), product.getCategory(),
+                product.getRetailPrice());
+    }
+}
@@ -0,0 +1,50 @@
+package com.chatbot.backend.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+// A product card serialized once. Jackson copies its cached UTF-8 bytes into the response as they
+// are instead of walking the fields again.
+public final class ProductCardJson extends JsonSerializable.Base {
+
+    private final String id;
+    private final SerializedString json;
+
+    public ProductCardJson(String id, String json) {
+        this.id = id;
+        this.json = new SerializedString(json);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String json() {
+        return json.getValue();
+    }
+
+    // The string plus its UTF-8 encoding, cached on first write
+    public int sizeInBytes() {
+        return 64 + 2 * json.charLength();
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeRawValue(json);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer) throws IOException {
+        serialize(generator, provider);
+    }
+
+    @Override
+    public String toString() {
+        return json.getValue();
+    }
+}
@@ -0,0 +1,18 @@
+package com.chatbot.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSales {
+    private String id;
+    private String name;
+    private String brand;
+    private String category;
+    private String department;
+    private double retailPrice;
+    private long salesCount;
+}
@@ -0,0 +1,17 @@
+package com.chatbot.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SingleFlightStatistics {
+    private String name;
+    private long calls;
+    private long executions; // database calls actually made
+    private long collapsed; // calls that shared another call's result
+    private long timedOut; // followers that stopped waiting and ran their own call
+    private int inFlight;
+}
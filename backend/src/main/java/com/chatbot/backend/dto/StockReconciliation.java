@@ -0,0 +1,18 @@
+package com.chatbot.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReconciliation {
+    private LocalDateTime checkedAt;
+    private int checkedCounters;
+    private int mismatches; // counters that disagreed with inventory_items and were corrected
+    private List<String> details; // first few mismatches as "key: counter -> table"
+    private long millis;
+}
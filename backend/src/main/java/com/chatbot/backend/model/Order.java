@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_user_order", columnList = "user_id, order_id"))
 public class Order {
     @Id
     @Column(name = "order_id")
@@ -36,4 +36,8 @@ public class Order {
     
     @Column(name = "num_of_item")
     private int numOfItem;
+    
+    // Sum of the line items' sale prices; not in orders.csv, summed from order_items.csv at load time
+    @Column(name = "total_amount")
+    private double totalAmount;
 } 
\ No newline at end of file
@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = @Index(name = "idx_order_items_order", columnList = "order_id"))
 public class OrderItem {
     @Id
     private String id;
@@ -40,4 +40,7 @@ public class OrderItem {
     
     @Column(name = "returned_at")
     private LocalDateTime returnedAt;
+    
+    @Column(name = "sale_price")
+    private double salePrice;
 } 
\ No newline at end of file
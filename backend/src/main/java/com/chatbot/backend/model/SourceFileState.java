@@ -0,0 +1,32 @@
+package com.chatbot.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Content checksum and row count of a source CSV as of its last successful import, and the signature
+// of the table layout it was imported with (null for imports that predate it)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "source_file_state")
+public class SourceFileState {
+    @Id
+    @Column(name = "file_name")
+    private String fileName;
+
+    private long checksum;
+
+    @Column(name = "layout_signature")
+    private Long layoutSignature;
+
+    @Column(name = "row_count")
+    private long rowCount;
+
+    @Column(name = "loaded_at")
+    private LocalDateTime loadedAt;
+}
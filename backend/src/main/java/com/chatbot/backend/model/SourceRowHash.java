@@ -0,0 +1,23 @@
+package com.chatbot.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// Hash of one imported row, keyed by "<table>:<primary key>"
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "source_row_hashes", indexes = @Index(name = "idx_source_row_hashes_table", columnList = "table_name"))
+public class SourceRowHash {
+    @Id
+    private String id;
+
+    @Column(name = "table_name")
+    private String tableName;
+
+    @Column(name = "row_hash")
+    private long rowHash;
+}
@@ -2,8 +2,11 @@ package com.chatbot.backend.repository;
 
 import com.chatbot.backend.model.InventoryItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -24,4 +27,31 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, St
     
     @Query("SELECT i.productName, COUNT(i) FROM InventoryItem i WHERE i.soldAt IS NULL GROUP BY i.productName")
     List<Object[]> getAvailableStockByProduct();
+    
+    @Query("SELECT i.productId, i.productDistributionCenterId, COUNT(i) FROM InventoryItem i WHERE i.soldAt IS NULL GROUP BY i.productId, i.productDistributionCenterId")
+    List<Object[]> getAvailableStockByProductAndDistributionCenter();
+    
+    @Query("SELECT i.id, i.productCategory, i.productBrand, i.productDepartment, i.productDistributionCenterId, i.soldAt FROM InventoryItem i")
+    List<Object[]> findFacetRows();
+    
+    @Query("SELECT COUNT(i) FROM InventoryItem i WHERE i.soldAt IS NULL"
+            + " AND (?1 IS NULL OR LOWER(i.productCategory) = LOWER(?1))"
+            + " AND (?2 IS NULL OR LOWER(i.productBrand) = LOWER(?2))"
+            + " AND (?3 IS NULL OR LOWER(i.productDepartment) = LOWER(?3))"
+            + " AND (?4 IS NULL OR i.productDistributionCenterId = ?4)")
+    long countAvailableByFacets(String category, String brand, String department, String distributionCenterId);
+    
+    // Conditional updates: exactly one of several concurrent callers sees 1 for the same item
+    @Transactional
+    @Modifying
+    @Query("UPDATE InventoryItem i SET i.soldAt = ?2 WHERE i.id = ?1 AND i.soldAt IS NULL")
+    int markSold(String id, LocalDateTime soldAt);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE InventoryItem i SET i.soldAt = NULL WHERE i.id = ?1 AND i.soldAt IS NOT NULL")
+    int markRestocked(String id);
+    
+    @Query("SELECT i.productId, COUNT(i) FROM InventoryItem i WHERE i.soldAt IS NOT NULL GROUP BY i.productId")
+    List<Object[]> countSoldByProduct();
 } 
\ No newline at end of file
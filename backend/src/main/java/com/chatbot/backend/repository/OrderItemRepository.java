@@ -19,4 +19,11 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, String> {
     
     @Query("SELECT oi FROM OrderItem oi WHERE oi.orderId = ?1 AND oi.status = ?2")
     List<OrderItem> findByOrderIdAndStatus(String orderId, String status);
+    
+    @Query("SELECT oi.orderId, SUM(oi.salePrice) FROM OrderItem oi GROUP BY oi.orderId")
+    List<Object[]> sumSalePriceByOrder();
+    
+    // Cancelled and returned items are not sales
+    @Query("SELECT oi.productId, COUNT(oi) FROM OrderItem oi WHERE oi.status IS NULL OR oi.status NOT IN ('Cancelled', 'Returned') GROUP BY oi.productId")
+    List<Object[]> countSoldByProduct();
 } 
\ No newline at end of file
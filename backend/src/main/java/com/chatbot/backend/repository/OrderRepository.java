@@ -1,17 +1,48 @@
 package com.chatbot.backend.repository;
 
+import com.chatbot.backend.dto.OrderDetailRow;
 import com.chatbot.backend.model.Order;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, String> {
     
     List<Order> findByUserId(String userId);
     
+    // Keyset pages of a user's orders, in order id order
+    List<Order> findByUserIdOrderByOrderId(String userId, Limit limit);
+    
+    List<Order> findByUserIdAndOrderIdGreaterThanOrderByOrderId(String userId, String afterOrderId, Limit limit);
+    
+    // Must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT o FROM Order o WHERE o.userId = ?1 ORDER BY o.orderId")
+    Stream<Order> streamByUserId(String userId);
+    
+    // The order with its line items and their products in one round trip; an order without items
+    // yields a single row with null item columns
+    @Query("SELECT new com.chatbot.backend.dto.OrderDetailRow(o.orderId, o.userId, o.status, o.createdAt, o.shippedAt, "
+            + "o.deliveredAt, o.returnedAt, o.numOfItem, o.totalAmount, i.id, i.productId, p.name, p.brand, p.category, "
+            + "i.status, i.salePrice) "
+            + "FROM Order o LEFT JOIN OrderItem i ON i.orderId = o.orderId LEFT JOIN Product p ON p.id = i.productId "
+            + "WHERE o.orderId = ?1 ORDER BY i.id")
+    List<OrderDetailRow> findDetailRows(String orderId);
+    
+    @Query("SELECT o.orderId, o.totalAmount FROM Order o WHERE o.totalAmount <> 0")
+    List<Object[]> findNonZeroTotals();
+    
+    @Query("SELECT o.orderId FROM Order o")
+    List<String> findAllOrderIds();
+    
     List<Order> findByStatus(String status);
     
     List<Order> findByUserIdAndStatus(String userId, String status);
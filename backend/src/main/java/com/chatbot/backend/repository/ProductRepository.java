@@ -1,9 +1,11 @@
 package com.chatbot.backend.repository;
 
+import com.chatbot.backend.dto.ProductCard;
 import com.chatbot.backend.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,6 +13,9 @@ public interface ProductRepository extends JpaRepository<Product, String> {
     
     List<Product> findByNameContainingIgnoreCase(String name);
     
+    // Only the card columns, without loading entities
+    List<ProductCard> findCardsByIdIn(Collection<String> ids);
+    
     List<Product> findByCategoryIgnoreCase(String category);
     
     List<Product> findByBrandIgnoreCase(String brand);
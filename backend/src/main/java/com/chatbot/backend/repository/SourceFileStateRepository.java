@@ -0,0 +1,9 @@
+package com.chatbot.backend.repository;
+
+import com.chatbot.backend.model.SourceFileState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SourceFileStateRepository extends JpaRepository<SourceFileState, String> {
+}
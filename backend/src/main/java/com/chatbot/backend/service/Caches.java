@@ -0,0 +1,26 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.dto.CacheStatistics;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.Optional;
+
+// Shared helpers for the in-memory Caffeine caches
+final class Caches {
+
+    private Caches() {
+    }
+
+    static CacheStatistics statistics(String name, Cache<?, ?> cache) {
+        // Settle pending evictions so the counters are current
+        cache.cleanUp();
+        CacheStats stats = cache.stats();
+        Optional<Policy.Eviction<?, ?>> eviction = cache.policy().eviction().map(policy -> policy);
+        long weightedSize = eviction.map(policy -> policy.weightedSize().orElse(cache.estimatedSize())).orElse(cache.estimatedSize());
+        long maximum = eviction.map(Policy.Eviction::getMaximum).orElse(0L);
+        return new CacheStatistics(name, cache.estimatedSize(), weightedSize, maximum, stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount(), stats.evictionWeight(), stats.averageLoadPenalty() / 1_000_000.0);
+    }
+}
@@ -0,0 +1,117 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.dto.PageResponse;
+import com.chatbot.backend.model.Product;
+import com.chatbot.backend.repository.ProductRepository;
+import com.chatbot.backend.util.PageCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+// Catalog browsing (facet values, products by category/brand/department/price range) served from an
+// immutable CatalogSnapshot instead of the database. The catalog only changes when data is loaded,
+// so a new snapshot is built after every load and swapped in with a single write; readers always see
+// either the old or the new snapshot in full. Returned lists are read-only.
+@Service
+public class CatalogService {
+
+    private final ProductRepository productRepository;
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+
+    @Autowired
+    public CatalogService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener
+    @Order(DataLoadedEvent.REBUILD)
+    public void onDataLoaded(DataLoadedEvent event) {
+        reload();
+    }
+
+    // Called whenever catalog rows change
+    public void reload() {
+        long start = System.currentTimeMillis();
+        CatalogSnapshot loaded = CatalogSnapshot.of(productRepository.findAll());
+        snapshot = loaded;
+        System.out.println("Catalog snapshot built: " + loaded.size() + " products, " + loaded.sizeInBytes() / 1024
+                + " KB in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public CatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public List<String> getAllCategories() {
+        return snapshot.categories();
+    }
+
+    public List<String> getAllBrands() {
+        return snapshot.brands();
+    }
+
+    public List<String> getAllDepartments() {
+        return snapshot.departments();
+    }
+
+    public List<Product> getProductsByCategory(String category) {
+        return snapshot.byCategory(category);
+    }
+
+    public List<Product> getProductsByBrand(String brand) {
+        return snapshot.byBrand(brand);
+    }
+
+    public List<Product> getProductsByDepartment(String department) {
+        return snapshot.byDepartment(department);
+    }
+
+    public List<Product> getProductsByPriceRange(double minPrice, double maxPrice) {
+        return snapshot.byPriceRange(minPrice, maxPrice);
+    }
+
+    // Keyset pages: category, brand and department lists are in id order and their cursor is the
+    // last id; price ranges are in (price, id) order and their cursor carries both
+    public PageResponse<Product> getProductsByCategory(String category, String cursor, int size) {
+        return Paging.page(snapshot.byCategory(category, afterId(cursor)), size, CatalogService::idCursor);
+    }
+
+    public PageResponse<Product> getProductsByBrand(String brand, String cursor, int size) {
+        return Paging.page(snapshot.byBrand(brand, afterId(cursor)), size, CatalogService::idCursor);
+    }
+
+    public PageResponse<Product> getProductsByDepartment(String department, String cursor, int size) {
+        return Paging.page(snapshot.byDepartment(department, afterId(cursor)), size, CatalogService::idCursor);
+    }
+
+    public PageResponse<Product> getProductsByPriceRange(double minPrice, double maxPrice, String cursor, int size) {
+        List<Product> products;
+        if (cursor == null) {
+            products = snapshot.byPriceRange(minPrice, maxPrice);
+        } else {
+            String[] key = PageCursor.decode(cursor, 2);
+            products = snapshot.byPriceRange(minPrice, maxPrice, parsePrice(key[0], cursor), key[1]);
+        }
+        return Paging.page(products, size,
+                product -> PageCursor.encode(Double.toString(product.getRetailPrice()), product.getId()));
+    }
+
+    private static String afterId(String cursor) {
+        return cursor == null ? null : PageCursor.decode(cursor, 1)[0];
+    }
+
+    private static String idCursor(Product product) {
+        return PageCursor.encode(product.getId());
+    }
+
+    private static double parsePrice(String price, String cursor) {
+        try {
+            return Double.parseDouble(price);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+    }
+}
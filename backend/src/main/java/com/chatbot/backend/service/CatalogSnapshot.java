@@ -0,0 +1,288 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.model.Product;
+
+import java.util.*;
+import java.util.function.Function;
+
+// Immutable, column-oriented copy of the products table. Prices and costs are primitive arrays,
+// category, brand, department and distribution center are dictionary codes, and each category,
+// brand and department value has a posting list of its rows. A sorted price index turns a price
+// range into two binary searches. Lookups return read-only views over the columns: a Product is
+// only built when an element is read, and never enters a persistence context. Rows are kept in id
+// order, so every view can also resume after a given product (keyset pagination).
+public final class CatalogSnapshot {
+
+    static final CatalogSnapshot EMPTY = of(List.of());
+
+    private final int size;
+    private final String[] ids;
+    private final String[] names;
+    private final String[] skus;
+    private final double[] costs;
+    private final double[] retailPrices;
+    private final Column categories;
+    private final Column brands;
+    private final Column departments;
+    private final Column distributionCenters;
+    // Rows ordered by retail price then id, and the prices in that order
+    private final int[] rowsByPrice;
+    private final double[] sortedPrices;
+
+    private CatalogSnapshot(List<Product> unordered) {
+        List<Product> products = new ArrayList<>(unordered);
+        products.sort(Comparator.comparing(Product::getId));
+        size = products.size();
+        ids = new String[size];
+        names = new String[size];
+        skus = new String[size];
+        costs = new double[size];
+        retailPrices = new double[size];
+        for (int row = 0; row < size; row++) {
+            Product product = products.get(row);
+            ids[row] = product.getId();
+            names[row] = product.getName();
+            skus[row] = product.getSku();
+            costs[row] = product.getCost();
+            retailPrices[row] = product.getRetailPrice();
+        }
+        categories = new Column(products, Product::getCategory);
+        brands = new Column(products, Product::getBrand);
+        departments = new Column(products, Product::getDepartment);
+        distributionCenters = new Column(products, Product::getDistributionCenterId);
+
+        Integer[] order = new Integer[size];
+        for (int row = 0; row < size; row++) {
+            order[row] = row;
+        }
+        // Stable sort, so equal prices stay in id order
+        Arrays.sort(order, Comparator.comparingDouble(row -> retailPrices[row]));
+        rowsByPrice = new int[size];
+        sortedPrices = new double[size];
+        for (int i = 0; i < size; i++) {
+            rowsByPrice[i] = order[i];
+            sortedPrices[i] = retailPrices[order[i]];
+        }
+    }
+
+    public static CatalogSnapshot of(List<Product> products) {
+        return new CatalogSnapshot(products);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Distinct values in alphabetical order
+    public List<String> categories() {
+        return categories.values;
+    }
+
+    public List<String> brands() {
+        return brands.values;
+    }
+
+    public List<String> departments() {
+        return departments.values;
+    }
+
+    // Products whose value matches ignoring case, in id order
+    public List<Product> byCategory(String category) {
+        return byCategory(category, null);
+    }
+
+    // The same, starting after the product with id afterId (from the start when null)
+    public List<Product> byCategory(String category, String afterId) {
+        return idView(categories.rowsOf(category), afterId);
+    }
+
+    public List<Product> byBrand(String brand) {
+        return byBrand(brand, null);
+    }
+
+    public List<Product> byBrand(String brand, String afterId) {
+        return idView(brands.rowsOf(brand), afterId);
+    }
+
+    public List<Product> byDepartment(String department) {
+        return byDepartment(department, null);
+    }
+
+    public List<Product> byDepartment(String department, String afterId) {
+        return idView(departments.rowsOf(department), afterId);
+    }
+
+    // Products priced within [minPrice, maxPrice], cheapest first
+    public List<Product> byPriceRange(double minPrice, double maxPrice) {
+        return byPriceRange(minPrice, maxPrice, 0, null);
+    }
+
+    // The same, starting after the product (afterPrice, afterId) when afterId is not null
+    public List<Product> byPriceRange(double minPrice, double maxPrice, double afterPrice, String afterId) {
+        if (!(minPrice <= maxPrice)) {
+            return List.of();
+        }
+        int from = firstAtLeast(minPrice, false);
+        if (afterId != null) {
+            from = Math.max(from, firstAfter(afterPrice, afterId));
+        }
+        return view(rowsByPrice, from, firstAtLeast(maxPrice, true));
+    }
+
+    // Approximate heap footprint of the columns, excluding the strings shared with the dictionaries
+    public long sizeInBytes() {
+        long bytes = 5L * 16 + (long) size * (3 * 4 + 2 * 8 + 2 * 4 + 8);
+        for (String[] column : new String[][] {ids, names, skus}) {
+            for (String value : column) {
+                bytes += value == null ? 0 : 40 + value.length();
+            }
+        }
+        return bytes + categories.sizeInBytes() + brands.sizeInBytes() + departments.sizeInBytes()
+                + distributionCenters.sizeInBytes();
+    }
+
+    private Product product(int row) {
+        return new Product(ids[row], costs[row], categories.valueAt(row), names[row], brands.valueAt(row),
+                retailPrices[row], departments.valueAt(row), skus[row], distributionCenters.valueAt(row));
+    }
+
+    // Index of the first price >= bound (or > bound when inclusive is set, i.e. one past the last match)
+    private int firstAtLeast(double bound, boolean inclusive) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid] < bound || (inclusive && sortedPrices[mid] == bound)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Index of the first position in price order that comes after (price, id)
+    private int firstAfter(double price, String id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int order = Double.compare(sortedPrices[mid], price);
+            if (order < 0 || (order == 0 && ids[rowsByPrice[mid]].compareTo(id) <= 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Rows are ascending, and so are their ids
+    private List<Product> idView(int[] rows, String afterId) {
+        int from = 0;
+        if (afterId != null) {
+            int high = rows.length;
+            while (from < high) {
+                int mid = (from + high) >>> 1;
+                if (ids[rows[mid]].compareTo(afterId) <= 0) {
+                    from = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+        }
+        return view(rows, from, rows.length);
+    }
+
+    private List<Product> view(int[] rows, int from, int to) {
+        if (to <= from) {
+            return List.of();
+        }
+        return new ProductView(rows, from, to);
+    }
+
+    private final class ProductView extends AbstractList<Product> implements RandomAccess {
+        private final int[] rows;
+        private final int from;
+        private final int to;
+
+        ProductView(int[] rows, int from, int to) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Product get(int index) {
+            Objects.checkIndex(index, to - from);
+            return product(rows[from + index]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    // One dictionary-encoded column: per-row codes into the sorted distinct values, and the rows of each
+    // value keyed by its lowercase form (values differing only in case share a posting list, matching
+    // the repository's IgnoreCase queries)
+    private static final class Column {
+        private static final int[] NO_ROWS = new int[0];
+
+        final List<String> values;
+        final int[] codes;
+        final Map<String, int[]> rowsByKey = new HashMap<>();
+
+        Column(List<Product> products, Function<Product, String> getter) {
+            TreeSet<String> distinct = new TreeSet<>();
+            for (Product product : products) {
+                String value = getter.apply(product);
+                if (value != null) {
+                    distinct.add(value);
+                }
+            }
+            values = List.copyOf(distinct);
+            Map<String, Integer> codesByValue = new HashMap<>();
+            for (int code = 0; code < values.size(); code++) {
+                codesByValue.put(values.get(code), code);
+            }
+            codes = new int[products.size()];
+            Map<String, Integer> counts = new HashMap<>();
+            for (int row = 0; row < codes.length; row++) {
+                String value = getter.apply(products.get(row));
+                codes[row] = value == null ? -1 : codesByValue.get(value);
+                if (value != null) {
+                    counts.merge(value.toLowerCase(Locale.ROOT), 1, Integer::sum);
+                }
+            }
+            Map<String, Integer> filled = new HashMap<>();
+            counts.forEach((key, count) -> rowsByKey.put(key, new int[count]));
+            for (int row = 0; row < codes.length; row++) {
+                if (codes[row] >= 0) {
+                    String key = values.get(codes[row]).toLowerCase(Locale.ROOT);
+                    rowsByKey.get(key)[filled.merge(key, 1, Integer::sum) - 1] = row;
+                }
+            }
+        }
+
+        String valueAt(int row) {
+            return codes[row] < 0 ? null : values.get(codes[row]);
+        }
+
+        int[] rowsOf(String value) {
+            return value == null ? NO_ROWS : rowsByKey.getOrDefault(value.toLowerCase(Locale.ROOT), NO_ROWS);
+        }
+
+        long sizeInBytes() {
+            long bytes = 16 + 4L * codes.length;
+            for (String value : values) {
+                bytes += 40 + value.length();
+            }
+            for (int[] rows : rowsByKey.values()) {
+                bytes += 16 + 4L * rows.length;
+            }
+            return bytes;
+        }
+    }
+}
@@ -3,39 +3,136 @@ package com.chatbot.backend.service;
 import com.chatbot.backend.model.*;
 import com.chatbot.backend.repository.*;
 import com.chatbot.backend.dto.*;
+import com.chatbot.backend.util.FanOut;
+import com.chatbot.backend.util.PageCursor;
+import com.chatbot.backend.util.SingleFlight;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 @Service
 public class ChatbotService {
+    // Where a question asking for several things is cut into parts ("status of order 7 and do you
+    // have jeans in stock?")
+    private static final Pattern PART_BREAK = Pattern.compile("(?i)\\s+(?:and|also|plus)\\s+|[?!;]+");
+    // "between 20 and 50": that "and" joins the two ends of a price range, not two questions
+    private static final Pattern RANGE_START = Pattern.compile("(?i)\\bbetween\\s+\\$?\\d[\\d.,]*(?:\\s*(?:dollars|usd|bucks))?$");
+
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
     private final InventoryItemRepository inventoryItemRepository;
     private final OrderItemRepository orderItemRepository;
+    private final SalesRankingService salesRankingService;
+    private final IntentClassifier intentClassifier;
+    private final EntityExtractor entityExtractor;
+    private final StockCounterService stockCounterService;
+    private final InventoryBitmapIndex inventoryBitmapIndex;
+    private final DistributionCenterRepository distributionCenterRepository;
+    private final CatalogService catalogService;
+    private final ResponseCache responseCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCardCache productCardCache;
+    private final OrderIdFilter orderIdFilter;
+    private final EntityManager entityManager;
+    // Identical order reads running at the same time share one database call
+    private final SingleFlight<String, Optional<OrderStatusResponse>> orderStatusCalls;
+    private final SingleFlight<String, Optional<OrderDetail>> orderDetailCalls;
+    private final SingleFlight<String, List<Order>> userOrderCalls;
+    private final long fanOutDeadlineMillis;
+    private final int maxBatchSize;
+    // Where chat answers read orders, distribution centers, search results and product cards: straight
+    // from the repositories and the search index, or from what a batch fetched up front
+    private final Lookups directLookups;
     
     @Autowired
     public ChatbotService(ProductRepository productRepository, 
                         OrderRepository orderRepository,
                         InventoryItemRepository inventoryItemRepository,
-                        OrderItemRepository orderItemRepository) {
+                        OrderItemRepository orderItemRepository,
+                        SalesRankingService salesRankingService,
+                        IntentClassifier intentClassifier,
+                        EntityExtractor entityExtractor,
+                        StockCounterService stockCounterService,
+                        InventoryBitmapIndex inventoryBitmapIndex,
+                        DistributionCenterRepository distributionCenterRepository,
+                        CatalogService catalogService,
+                        ResponseCache responseCache,
+                        ProductSearchIndex productSearchIndex,
+                        ProductCardCache productCardCache,
+                        OrderIdFilter orderIdFilter,
+                        EntityManager entityManager,
+                        @Value("${chatbot.single-flight.max-wait-ms:2000}") long maxWaitMillis,
+                        @Value("${chatbot.fan-out.deadline-ms:2000}") long fanOutDeadlineMillis,
+                        @Value("${chatbot.query.batch.max-size:5000}") int maxBatchSize) {
         this.productRepository = productRepository;
         this.orderRepository = orderRepository;
         this.inventoryItemRepository = inventoryItemRepository;
         this.orderItemRepository = orderItemRepository;
+        this.salesRankingService = salesRankingService;
+        this.intentClassifier = intentClassifier;
+        this.entityExtractor = entityExtractor;
+        this.stockCounterService = stockCounterService;
+        this.inventoryBitmapIndex = inventoryBitmapIndex;
+        this.distributionCenterRepository = distributionCenterRepository;
+        this.catalogService = catalogService;
+        this.responseCache = responseCache;
+        this.productSearchIndex = productSearchIndex;
+        this.productCardCache = productCardCache;
+        this.orderIdFilter = orderIdFilter;
+        this.entityManager = entityManager;
+        this.orderStatusCalls = new SingleFlight<>("order-status", maxWaitMillis);
+        this.orderDetailCalls = new SingleFlight<>("order-detail", maxWaitMillis);
+        this.userOrderCalls = new SingleFlight<>("user-orders", maxWaitMillis);
+        this.fanOutDeadlineMillis = fanOutDeadlineMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.directLookups = new Lookups(this::getOrderStatus,
+                centerId -> distributionCenterRepository.findById(centerId).map(DistributionCenter::getName),
+                this::searchFor,
+                productRepository::findCardsByIdIn);
     }
     
-    public List<Product> getTop5SoldProducts() {
-        // Simple approach: get first 5 products
-        return productRepository.findAll().stream().limit(5).toList();
+    public List<ProductSales> getTopSoldProducts(int limit) {
+        return salesRankingService.getTopProducts(limit);
     }
     
-    public OrderStatusResponse getOrderStatus(String orderId) {
-        Order order = orderRepository.findById(orderId)
-            .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
-        
+    public List<ProductSales> getTopSoldProductsByCategory(String category, int limit) {
+        return salesRankingService.getTopProductsByCategory(category, limit);
+    }
+    
+    public List<ProductSales> getTopSoldProductsByDepartment(String department, int limit) {
+        return salesRankingService.getTopProductsByDepartment(department, limit);
+    }
+    
+    // Empty when there is no such order; ids the order id filter rules out never reach the database
+    public Optional<OrderStatusResponse> getOrderStatus(String orderId) {
+        if (!orderIdFilter.mightExist(orderId)) {
+            return Optional.empty();
+        }
+        return orderStatusCalls.execute(orderId, () -> findOrder(orderId).map(this::toStatusResponse));
+    }
+    
+    private Optional<Order> findOrder(String orderId) {
+        Optional<Order> order = orderRepository.findById(orderId);
+        if (order.isEmpty()) {
+            orderIdFilter.recordFalsePositive();
+        }
+        return order;
+    }
+    
+    private OrderStatusResponse toStatusResponse(Order order) {
         OrderStatusResponse response = new OrderStatusResponse(
             order.getOrderId(),
             order.getStatus(),
@@ -44,7 +141,7 @@ public class ChatbotService {
         );
         response.setReturnedAt(order.getReturnedAt());
         response.setNumOfItem(order.getNumOfItem());
-        response.setTotalAmount(0.0); // Simplified for now
+        response.setTotalAmount(order.getTotalAmount());
         
         // Generate user-friendly message
         String message = generateOrderStatusMessage(order);
@@ -53,192 +150,566 @@ public class ChatbotService {
         return response;
     }
     
+    // Status, timestamps, total and line items of an order, read with one joined query
+    public Optional<OrderDetail> getOrderDetail(String orderId) {
+        if (!orderIdFilter.mightExist(orderId)) {
+            return Optional.empty();
+        }
+        return orderDetailCalls.execute(orderId, () -> readOrderDetail(orderId));
+    }
+    
+    private Optional<OrderDetail> readOrderDetail(String orderId) {
+        List<OrderDetailRow> rows = orderRepository.findDetailRows(orderId);
+        if (rows.isEmpty()) {
+            orderIdFilter.recordFalsePositive();
+            return Optional.empty();
+        }
+        OrderDetailRow first = rows.get(0);
+        List<OrderLine> items = new ArrayList<>(rows.size());
+        for (OrderDetailRow row : rows) {
+            if (row.itemId() != null) {
+                items.add(new OrderLine(row.itemId(), row.productId(), row.productName(), row.brand(), row.category(),
+                        row.itemStatus(), row.salePrice()));
+            }
+        }
+        return Optional.of(new OrderDetail(first.orderId(), first.userId(), first.status(), first.createdAt(), first.shippedAt(),
+                first.deliveredAt(), first.returnedAt(), first.numOfItem(), first.totalAmount(), items));
+    }
+    
+    // Units in stock across every product the name resolves to, the same way the stock intent does
     public int getProductStockCount(String productName) {
-        return inventoryItemRepository.countByProductNameAndSoldAtIsNull(productName);
+        return (int) countStock(entityExtractor.extract(productName));
+    }
+    
+    // Wording made only of brand/category/department names is answered from the inventory bitmaps;
+    // anything more specific sums the live counters of the products it resolved to
+    private long countStock(ExtractedEntities entities) {
+        if (entities.facetsOnly()) {
+            return inventoryBitmapIndex.countAvailable(entities.stockFilter());
+        }
+        String centerId = entities.distributionCenterId();
+        long total = 0;
+        for (String productId : entities.productIds()) {
+            total += centerId == null ? stockCounterService.available(productId) : stockCounterService.available(productId, centerId);
+        }
+        return total;
+    }
+    
+    // Available units per product id from the live stock counters; unknown ids map to 0
+    public Map<String, Integer> getAvailableStock(Collection<String> productIds) {
+        Map<String, Integer> stock = new LinkedHashMap<>();
+        for (String productId : productIds) {
+            stock.put(productId, (int) stockCounterService.available(productId));
+        }
+        return stock;
     }
     
     public List<Product> searchProducts(String query) {
-        return productRepository.findByNameContainingIgnoreCase(query);
+        return searchProducts(query, productSearchIndex.getDefaultLimit());
+    }
+    
+    // Best-ranked products for the query, at most limit of them
+    public List<Product> searchProducts(String query, int limit) {
+        return productSearchIndex.search(query, limit).products();
+    }
+    
+    // Keyset pages through the ranking; the cursor holds the last hit's score and id
+    public PageResponse<Product> searchProducts(String query, String cursor, int size) {
+        ProductSearchIndex.Position after = null;
+        if (cursor != null) {
+            String[] key = PageCursor.decode(cursor, 2);
+            try {
+                after = new ProductSearchIndex.Position(Double.parseDouble(key[0]), key[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+            }
+        }
+        List<ProductSearchIndex.Hit> hits = productSearchIndex.search(query, size + 1, product -> true, after).hits();
+        PageResponse<ProductSearchIndex.Hit> page = Paging.page(hits, size,
+                hit -> PageCursor.encode(Double.toString(hit.score()), hit.product().getId()));
+        return new PageResponse<>(page.getItems().stream().map(ProductSearchIndex.Hit::product).toList(), page.getNextCursor());
     }
     
     public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategoryIgnoreCase(category);
+        return catalogService.getProductsByCategory(category);
+    }
+    
+    public PageResponse<Product> getProductsByCategory(String category, String cursor, int size) {
+        return catalogService.getProductsByCategory(category, cursor, size);
+    }
+    
+    public PageResponse<Product> getProductsByBrand(String brand, String cursor, int size) {
+        return catalogService.getProductsByBrand(brand, cursor, size);
+    }
+    
+    public PageResponse<Product> getProductsByDepartment(String department, String cursor, int size) {
+        return catalogService.getProductsByDepartment(department, cursor, size);
+    }
+    
+    public PageResponse<Product> getProductsByPriceRange(double minPrice, double maxPrice, String cursor, int size) {
+        return catalogService.getProductsByPriceRange(minPrice, maxPrice, cursor, size);
     }
     
     public List<Product> getProductsByBrand(String brand) {
-        return productRepository.findByBrandIgnoreCase(brand);
+        return catalogService.getProductsByBrand(brand);
+    }
+    
+    public List<Product> getProductsByDepartment(String department) {
+        return catalogService.getProductsByDepartment(department);
     }
     
     public List<Product> getProductsByPriceRange(double minPrice, double maxPrice) {
-        return productRepository.findByPriceRange(minPrice, maxPrice);
+        return catalogService.getProductsByPriceRange(minPrice, maxPrice);
     }
     
+    // Coalesced callers share the leader's result, so it holds detached copies rather than entities
+    // managed by the leader's persistence context, and each caller gets copies of its own to change
     public List<Order> getUserOrders(String userId) {
-        return orderRepository.findByUserId(userId);
+        List<Order> shared = userOrderCalls.execute(userId,
+                () -> orderRepository.findByUserId(userId).stream().map(ChatbotService::copyOf).toList());
+        return shared.stream().map(ChatbotService::copyOf).toList();
+    }
+    
+    private static Order copyOf(Order order) {
+        return new Order(order.getOrderId(), order.getUserId(), order.getStatus(), order.getGender(), order.getCreatedAt(),
+                order.getReturnedAt(), order.getShippedAt(), order.getDeliveredAt(), order.getNumOfItem(), order.getTotalAmount());
+    }
+    
+    public List<SingleFlightStatistics> getSingleFlightStatistics() {
+        return Stream.of(orderStatusCalls, orderDetailCalls, userOrderCalls)
+                .map(calls -> new SingleFlightStatistics(calls.name(), calls.calls(), calls.executions(), calls.collapsed(),
+                        calls.timedOut(), calls.inFlight()))
+                .toList();
+    }
+    
+    public PageResponse<Order> getUserOrders(String userId, String cursor, int size) {
+        List<Order> orders = cursor == null
+                ? orderRepository.findByUserIdOrderByOrderId(userId, Limit.of(size + 1))
+                : orderRepository.findByUserIdAndOrderIdGreaterThanOrderByOrderId(userId,
+                        PageCursor.decode(cursor, 1)[0], Limit.of(size + 1));
+        return Paging.page(orders, size, order -> PageCursor.encode(order.getOrderId()));
+    }
+    
+    // Hands each of the user's orders to the action as it is read, detaching it afterwards so the
+    // persistence context stays empty however many orders there are
+    @Transactional(readOnly = true)
+    public void forEachUserOrder(String userId, Consumer<? super Order> action) {
+        try (Stream<Order> orders = orderRepository.streamByUserId(userId)) {
+            orders.forEach(order -> {
+                action.accept(order);
+                entityManager.detach(order);
+            });
+        }
     }
     
     public List<String> getAllCategories() {
-        return productRepository.findAllCategories();
+        return catalogService.getAllCategories();
     }
     
     public List<String> getAllBrands() {
-        return productRepository.findAllBrands();
+        return catalogService.getAllBrands();
     }
     
     public List<String> getAllDepartments() {
-        return productRepository.findAllDepartments();
+        return catalogService.getAllDepartments();
     }
     
     public ChatResponse processNaturalLanguageQuery(String question) {
         System.out.println("User asked: " + question);
-        String lowerQuestion = question.toLowerCase();
-
-        // Categories
-        if (lowerQuestion.contains("category") || lowerQuestion.contains("categories")) {
-            System.out.println("Matched category intent");
-            List<String> categories = getAllCategories();
-            System.out.println("Categories: " + categories);
-            return new ChatResponse("Here are all available product categories:\n" + String.join(", ", categories));
+        List<QuestionPart> parts = splitIntents(question);
+        if (parts.size() > 1) {
+            return answerParts(parts);
         }
+        IntentClassifier.Classification classification = intentClassifier.classify(question);
+        ExtractedEntities entities = entityExtractor.extract(question);
+        return responseCache.get(classification.intent(), entities,
+                () -> answer(classification.intent(), entities, directLookups));
+    }
 
-        // Brands
-        if (lowerQuestion.contains("brand") || lowerQuestion.contains("brands")) {
-            System.out.println("Matched brand intent");
-            List<String> brands = getAllBrands();
-            System.out.println("Brands: " + brands);
-            return new ChatResponse("Here are all available brands:\n" + String.join(", ", brands));
+    // Answers in question order. Every question is classified first; each distinct lookup (same
+    // intent and the entities its answer depends on) is then answered once, from the response cache
+    // when it holds it, otherwise from orders, distribution centers and product cards fetched for the
+    // whole batch with one IN-list query per table.
+    public List<ChatResponse> processNaturalLanguageQueries(List<String> questions) {
+        if (questions.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " questions per batch, got " + questions.size());
+        }
+        List<List<QuestionPart>> plans = new ArrayList<>(questions.size());
+        // Keys are taken once, so an invalidation during the batch cannot split a lookup in two
+        Map<QuestionPart, ResponseCache.Key> keys = new HashMap<>();
+        Map<ResponseCache.Key, QuestionPart> lookups = new LinkedHashMap<>();
+        for (String question : questions) {
+            List<QuestionPart> parts = splitIntents(question);
+            if (parts.isEmpty()) {
+                parts = List.of(new QuestionPart(question, intentClassifier.classify(question).intent(),
+                        entityExtractor.extract(question)));
+            }
+            plans.add(parts);
+            for (QuestionPart part : parts) {
+                ResponseCache.Key key = keys.computeIfAbsent(part, p -> responseCache.key(p.intent(), p.entities()));
+                lookups.putIfAbsent(key, part);
+            }
         }
 
-        // Order status queries
-        if (lowerQuestion.contains("order status") || lowerQuestion.contains("track order") || lowerQuestion.contains("status of order")) {
-            System.out.println("Matched order status intent");
-            String orderId = extractOrderId(question);
-            System.out.println("Extracted orderId: " + orderId);
-            if (orderId != null) {
-                try {
-                    OrderStatusResponse orderStatus = getOrderStatus(orderId);
-                    List<Map<String, Object>> data = new ArrayList<>();
-                    Map<String, Object> orderData = new HashMap<>();
-                    orderData.put("orderId", orderStatus.getOrderId());
-                    orderData.put("status", orderStatus.getStatus());
-                    orderData.put("shippedAt", orderStatus.getShippedAt());
-                    orderData.put("deliveredAt", orderStatus.getDeliveredAt());
-                    orderData.put("numOfItem", orderStatus.getNumOfItem());
-                    orderData.put("totalAmount", orderStatus.getTotalAmount());
-                    data.add(orderData);
-                    System.out.println("Order status found: " + orderStatus.getStatus());
-                    return new ChatResponse(orderStatus.getMessage(), "order_status", data);
-                } catch (RuntimeException e) {
-                    System.out.println("Order not found for ID: " + orderId);
-                    return new ChatResponse("Sorry, I couldn't find an order with ID: " + orderId);
-                }
+        Map<ResponseCache.Key, ChatResponse> answers = new HashMap<>();
+        List<QuestionPart> uncached = new ArrayList<>();
+        lookups.forEach((key, part) -> {
+            ChatResponse cached = responseCache.getIfPresent(part.intent(), part.entities());
+            if (cached != null) {
+                answers.put(key, cached);
             } else {
-                System.out.println("No order ID extracted");
-                return new ChatResponse("Please provide an order ID to check the status.");
+                uncached.add(part);
             }
+        });
+        Lookups fetched = prefetch(uncached);
+        for (QuestionPart part : uncached) {
+            answers.put(keys.get(part),
+                    responseCache.get(part.intent(), part.entities(), () -> answer(part.intent(), part.entities(), fetched)));
+        }
+
+        List<ChatResponse> responses = new ArrayList<>(plans.size());
+        for (List<QuestionPart> parts : plans) {
+            List<ChatResponse> partAnswers = parts.stream()
+                    .map(part -> answers.get(keys.get(part)))
+                    .toList();
+            responses.add(parts.size() == 1 ? partAnswers.get(0) : merge(parts, partAnswers));
         }
+        return responses;
+    }
 
-        // Stock queries (fuzzy, case-insensitive)
-        if (lowerQuestion.contains("stock") || lowerQuestion.contains("available") || lowerQuestion.contains("inventory")) {
-            System.out.println("Matched stock intent");
-            String productName = extractProductName(question);
-            System.out.println("Extracted productName: " + productName);
-            if (productName != null) {
-                List<Product> products = productRepository.findByNameContainingIgnoreCase(productName);
-                System.out.println("Products found: " + products.size());
-                if (!products.isEmpty()) {
-                    int totalStock = 0;
-                    for (Product p : products) {
-                        totalStock += getProductStockCount(p.getName());
+    // Everything the parts' answers read, fetched up front: orders, distribution centers and product
+    // cards with one query each, search results once per distinct wording
+    private Lookups prefetch(List<QuestionPart> parts) {
+        Set<String> orderIds = new HashSet<>();
+        Set<String> centerIds = new HashSet<>();
+        Map<ExtractedEntities, ProductSearchIndex.Result> searches = new HashMap<>();
+        Set<String> cardIds = new HashSet<>();
+        for (QuestionPart part : parts) {
+            ExtractedEntities entities = part.entities();
+            switch (part.intent()) {
+                case ORDER_STATUS -> {
+                    if (entities.orderId() != null && orderIdFilter.mightExist(entities.orderId())) {
+                        orderIds.add(entities.orderId());
                     }
-                    System.out.println("Total stock for '" + productName + "': " + totalStock);
-                    return new ChatResponse("We have " + totalStock + " units of '" + productName + "' in stock.");
-                } else {
-                    System.out.println("No products found matching: " + productName);
-                    return new ChatResponse("Sorry, I couldn't find any products matching '" + productName + "'.");
                 }
-            } else {
-                System.out.println("No product name extracted");
-                return new ChatResponse("Please specify which product you'd like to check stock for.");
+                case STOCK -> {
+                    if (!entities.productIds().isEmpty() && entities.distributionCenterId() != null) {
+                        centerIds.add(entities.distributionCenterId());
+                    }
+                }
+                case PRODUCT_SEARCH -> {
+                    if (entities.productTerm() != null) {
+                        ProductSearchIndex.Result result = searches.computeIfAbsent(entities, this::searchFor);
+                        if (!result.complete()) {
+                            cardIds.addAll(entities.productIds());
+                        }
+                    }
+                }
+                default -> {
+                }
             }
         }
 
-        // Top products queries
-        if (lowerQuestion.contains("top") || lowerQuestion.contains("popular") || lowerQuestion.contains("best selling")) {
-            System.out.println("Matched top products intent");
-            List<Product> topProducts = getTop5SoldProducts();
-            List<Map<String, Object>> data = new ArrayList<>();
-            for (Product product : topProducts) {
-                Map<String, Object> productData = new HashMap<>();
-                productData.put("id", product.getId());
-                productData.put("name", product.getName());
-                productData.put("brand", product.getBrand());
-                productData.put("category", product.getCategory());
-                productData.put("retailPrice", product.getRetailPrice());
-                data.add(productData);
+        Map<String, OrderStatusResponse> statuses = new HashMap<>();
+        if (!orderIds.isEmpty()) {
+            for (Order order : orderRepository.findAllById(orderIds)) {
+                statuses.put(order.getOrderId(), toStatusResponse(order));
+            }
+            for (int i = statuses.size(); i < orderIds.size(); i++) {
+                orderIdFilter.recordFalsePositive();
             }
-            return new ChatResponse("Here are our top 5 best-selling products:", "product_list", data);
         }
+        Map<String, String> centerNames = new HashMap<>();
+        if (!centerIds.isEmpty()) {
+            distributionCenterRepository.findAllById(centerIds)
+                    .forEach(center -> centerNames.put(center.getId(), center.getName()));
+        }
+        Map<String, ProductCard> cards = new HashMap<>();
+        if (!cardIds.isEmpty()) {
+            productRepository.findCardsByIdIn(cardIds).forEach(card -> cards.put(card.id(), card));
+        }
+        return new Lookups(orderId -> Optional.ofNullable(statuses.get(orderId)),
+                centerId -> Optional.ofNullable(centerNames.get(centerId)),
+                entities -> searches.computeIfAbsent(entities, this::searchFor),
+                ids -> ids.stream().map(cards::get).filter(Objects::nonNull).toList());
+    }
 
-        // Product search queries
-        if (lowerQuestion.contains("find") || lowerQuestion.contains("search") || lowerQuestion.contains("looking for")) {
-            System.out.println("Matched product search intent");
-            String productName = extractProductName(question);
-            System.out.println("Extracted productName: " + productName);
-            if (productName != null) {
-                List<Product> products = searchProducts(productName);
-                if (!products.isEmpty()) {
-                    List<Map<String, Object>> data = new ArrayList<>();
-                    for (Product product : products) {
-                        Map<String, Object> productData = new HashMap<>();
-                        productData.put("id", product.getId());
-                        productData.put("name", product.getName());
-                        productData.put("brand", product.getBrand());
-                        productData.put("category", product.getCategory());
-                        productData.put("retailPrice", product.getRetailPrice());
-                        data.add(productData);
-                    }
-                    return new ChatResponse("I found " + products.size() + " products matching '" + productName + "':", "product_list", data);
-                } else {
-                    System.out.println("No products found matching: " + productName);
-                    return new ChatResponse("Sorry, I couldn't find any products matching '" + productName + "'.");
-                }
+    private record Lookups(Function<String, Optional<OrderStatusResponse>> orderStatus,
+                           Function<String, Optional<String>> centerName,
+                           Function<ExtractedEntities, ProductSearchIndex.Result> search,
+                           Function<Collection<String>, List<ProductCard>> cards) {
+    }
+
+    private record QuestionPart(String question, Intent intent, ExtractedEntities entities) {
+    }
+
+    // A stretch of a question between two breaks, classified on its own
+    private record Piece(int start, int end, Intent intent, ExtractedEntities entities) {
+    }
+
+    // The parts of a question that ask for different things, one per distinct intent and entities.
+    // Empty unless the parts resolve to at least two different intents, so a question about one
+    // thing is classified as a whole, as before. A piece that cannot be answered on its own ("how
+    // many are in stock", "thanks") stays with the part before it, or the one after it when it
+    // comes first, so "do you have jeans and how many are in stock" is still one stock question.
+    private List<QuestionPart> splitIntents(String question) {
+        if (question == null) {
+            return List.of();
+        }
+        List<int[]> spans = new ArrayList<>();
+        Matcher breaks = PART_BREAK.matcher(question);
+        int start = 0;
+        while (breaks.find()) {
+            if (RANGE_START.matcher(question.substring(start, breaks.start())).find()) {
+                continue;
             }
+            if (!question.substring(start, breaks.start()).isBlank()) {
+                spans.add(new int[] {start, breaks.start()});
+            }
+            start = breaks.end();
+        }
+        if (!question.substring(start).isBlank()) {
+            spans.add(new int[] {start, question.length()});
+        }
+        if (spans.size() < 2) {
+            return List.of();
+        }
+
+        List<List<Piece>> groups = new ArrayList<>();
+        List<Piece> leading = new ArrayList<>();
+        for (int[] span : spans) {
+            String text = question.substring(span[0], span[1]).trim();
+            Intent intent = intentClassifier.classify(text).intent();
+            Piece piece = new Piece(span[0], span[1], intent, entityExtractor.extract(text));
+            if (standsAlone(piece)) {
+                List<Piece> group = new ArrayList<>(leading);
+                group.add(piece);
+                groups.add(group);
+                leading.clear();
+            } else if (!groups.isEmpty()) {
+                groups.getLast().add(piece);
+            } else {
+                leading.add(piece);
+            }
+        }
+        if (groups.size() < 2) {
+            return List.of();
+        }
+
+        Map<List<Object>, QuestionPart> parts = new LinkedHashMap<>();
+        Set<Intent> intents = EnumSet.noneOf(Intent.class);
+        for (List<Piece> group : groups) {
+            String text = question.substring(group.getFirst().start(), group.getLast().end()).trim();
+            // A piece that stands alone keeps its classification; merged ones are classified together
+            Intent intent = group.size() == 1 ? group.getFirst().intent() : intentClassifier.classify(text).intent();
+            if (intent == Intent.UNKNOWN) {
+                continue;
+            }
+            ExtractedEntities entities = group.size() == 1 ? group.getFirst().entities() : entityExtractor.extract(text);
+            parts.putIfAbsent(List.of(intent, entities), new QuestionPart(text, intent, entities));
+            intents.add(intent);
+        }
+        return intents.size() < 2 ? List.of() : List.copyOf(parts.values());
+    }
+
+    // Whether a piece has an intent of its own and the entities that intent's answer reads
+    private static boolean standsAlone(Piece piece) {
+        ExtractedEntities entities = piece.entities();
+        boolean products = entities.hasProductTerm() || entities.brand() != null || entities.category() != null
+                || entities.department() != null;
+        return switch (piece.intent()) {
+            case UNKNOWN -> false;
+            case ORDER_STATUS -> entities.orderId() != null;
+            case STOCK -> products || entities.distributionCenterId() != null;
+            case PRODUCT_SEARCH -> products || entities.hasPriceBounds();
+            default -> true;
+        };
+    }
+
+    // Answers every part at once, each through the response cache and within its own deadline, and
+    // merges the answers into one response with a section per part
+    private ChatResponse answerParts(List<QuestionPart> parts) {
+        List<Callable<ChatResponse>> lookups = parts.stream()
+                .map(part -> (Callable<ChatResponse>) () -> responseCache.get(part.intent(), part.entities(),
+                        () -> answer(part.intent(), part.entities(), directLookups)))
+                .toList();
+        List<ChatResponse> answers = FanOut.all(lookups, fanOutDeadlineMillis, (index, failure) -> {
+            QuestionPart part = parts.get(index);
+            System.out.println("No answer for '" + part.question() + "': " + failure);
+            return failure instanceof TimeoutException
+                    ? new ChatResponse("Sorry, '" + part.question() + "' is taking too long to look up. Please try again.")
+                    : new ChatResponse("Sorry, I couldn't answer '" + part.question() + "'.");
+        });
+        return merge(parts, answers);
+    }
+
+    private static ChatResponse merge(List<QuestionPart> parts, List<ChatResponse> answers) {
+        List<ChatSection> sections = new ArrayList<>(parts.size());
+        StringJoiner text = new StringJoiner("\n\n");
+        boolean answered = false;
+        boolean cached = true;
+        for (int i = 0; i < parts.size(); i++) {
+            QuestionPart part = parts.get(i);
+            ChatResponse answer = answers.get(i);
+            sections.add(new ChatSection(part.intent().name().toLowerCase(Locale.ROOT), part.question(), answer));
+            text.add(answer.isSuccess() ? answer.getMessage() : answer.getErrorMessage());
+            answered |= answer.isSuccess();
+            cached &= answer.isCached();
+        }
+        ChatResponse response = answered ? new ChatResponse(text.toString(), "multi_intent", sections)
+                : new ChatResponse(text.toString());
+        response.setData(sections);
+        response.setCached(cached);
+        return response;
+    }
+
+    private ChatResponse answer(Intent intent, ExtractedEntities entities, Lookups lookups) {
+        ChatResponse response;
+        switch (intent) {
+            case CATEGORIES:
+                response = answerCategories();
+                break;
+            case BRANDS:
+                response = answerBrands();
+                break;
+            case ORDER_STATUS:
+                response = answerOrderStatus(entities, lookups);
+                break;
+            case STOCK:
+                response = answerStock(entities, lookups);
+                break;
+            case TOP_PRODUCTS:
+                response = answerTopProducts();
+                break;
+            case PRODUCT_SEARCH:
+                response = answerProductSearch(entities, lookups);
+                break;
+            default:
+                response = null;
+        }
+        if (response != null) {
+            return response;
         }
 
         System.out.println("No intent matched. Returning default response.");
         // Default response
         return new ChatResponse("I'm here to help! You can ask me about order status, product availability, search for products, or find our top-selling items.");
     }
-    
-    private String extractOrderId(String question) {
-        // Match numbers or alphanumeric IDs
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("\\b[0-9A-Z]{1,}\\b");
-        java.util.regex.Matcher matcher = pattern.matcher(question.toUpperCase());
-        if (matcher.find()) {
-            return matcher.group();
-        }
-        return null;
-    }
-    
-    private String extractProductName(String question) {
-        // Simple extraction - look for words after "find", "search", "stock", etc.
-        String[] keywords = {"find", "search", "stock", "available", "looking for"};
-        for (String keyword : keywords) {
-            if (question.toLowerCase().contains(keyword)) {
-                String[] parts = question.toLowerCase().split(keyword);
-                if (parts.length > 1) {
-                    String afterKeyword = parts[1].trim();
-                    // Remove common words and punctuation
-                    afterKeyword = afterKeyword.replaceAll("\\b(the|a|an|for|of|in|on|at|to|with|by)\\b", "").trim();
-                    afterKeyword = afterKeyword.replaceAll("[^a-zA-Z0-9\\s]", "").trim();
-                    if (!afterKeyword.isEmpty()) {
-                        return afterKeyword;
-                    }
+
+    private ChatResponse answerCategories() {
+        System.out.println("Matched category intent");
+        List<String> categories = getAllCategories();
+        System.out.println("Categories: " + categories);
+        return new ChatResponse("Here are all available product categories:\n" + String.join(", ", categories));
+    }
+
+    private ChatResponse answerBrands() {
+        System.out.println("Matched brand intent");
+        List<String> brands = getAllBrands();
+        System.out.println("Brands: " + brands);
+        return new ChatResponse("Here are all available brands:\n" + String.join(", ", brands));
+    }
+
+    private ChatResponse answerOrderStatus(ExtractedEntities entities, Lookups lookups) {
+        System.out.println("Matched order status intent");
+        String orderId = entities.orderId();
+        System.out.println("Extracted orderId: " + orderId);
+        if (orderId == null) {
+            System.out.println("No order ID extracted");
+            return new ChatResponse("Please provide an order ID to check the status.");
+        }
+        Optional<OrderStatusResponse> found = lookups.orderStatus().apply(orderId);
+        if (found.isEmpty()) {
+            System.out.println("Order not found for ID: " + orderId);
+            return new ChatResponse("Sorry, I couldn't find an order with ID: " + orderId);
+        }
+        OrderStatusResponse orderStatus = found.get();
+        System.out.println("Order status found: " + orderStatus.getStatus());
+        return new ChatResponse(orderStatus.getMessage(), "order_status", List.of(orderStatus));
+    }
+
+    // Stock queries; the product wording is resolved to catalog ids, tolerating typos
+    private ChatResponse answerStock(ExtractedEntities entities, Lookups lookups) {
+        System.out.println("Matched stock intent");
+        String productName = entities.productTerm();
+        System.out.println("Extracted productName: " + productName);
+        if (productName == null) {
+            System.out.println("No product name extracted");
+            return new ChatResponse("Please specify which product you'd like to check stock for.");
+        }
+        System.out.println("Products found: " + entities.productIds().size());
+        if (entities.productIds().isEmpty()) {
+            System.out.println("No products found matching: " + productName);
+            return new ChatResponse("Sorry, I couldn't find any products matching '" + productName + "'.");
+        }
+        long totalStock = countStock(entities);
+        String where = "";
+        if (entities.distributionCenterId() != null) {
+            where = lookups.centerName().apply(entities.distributionCenterId())
+                    .map(name -> " at our " + name + " distribution center")
+                    .orElse("");
+        }
+        System.out.println("Total stock for '" + productName + "'" + where + ": " + totalStock);
+        return new ChatResponse("We have " + totalStock + " units of '" + productName + "' in stock" + where + ".");
+    }
+
+    private ChatResponse answerTopProducts() {
+        System.out.println("Matched top products intent");
+        List<ProductSales> topProducts = getTopSoldProducts(salesRankingService.getTopK());
+        return new ChatResponse("Here are our top " + topProducts.size() + " best-selling products:", "product_list", topProducts);
+    }
+
+    // Returns null when the question names no product, brand or category so the default answer is used
+    private ChatResponse answerProductSearch(ExtractedEntities entities, Lookups lookups) {
+        System.out.println("Matched product search intent");
+        String productName = entities.productTerm();
+        System.out.println("Extracted productName: " + productName);
+        List<ProductCardJson> cards;
+        int total = -1;
+        if (productName != null) {
+            ProductSearchIndex.Result result = lookups.search().apply(entities);
+            if (result.complete()) {
+                cards = productCardCache.cardsOf(result.products());
+                total = result.totalMatches();
+            } else {
+                // Misspelled names only resolve through the extractor's fuzzy match
+                List<ProductCard> projections = lookups.cards().apply(entities.productIds());
+                if (entities.hasPriceBounds()) {
+                    projections = projections.stream().filter(card -> entities.withinPriceBounds(card.retailPrice())).toList();
                 }
+                cards = productCardCache.cardsOfProjections(projections);
             }
+        } else if (entities.brand() != null) {
+            productName = entities.brand();
+            cards = productCardCache.cardsOf(withinPriceBounds(getProductsByBrand(productName), entities));
+        } else if (entities.category() != null) {
+            productName = entities.category();
+            cards = productCardCache.cardsOf(withinPriceBounds(getProductsByCategory(productName), entities));
+        } else {
+            return null;
+        }
+        if (cards.isEmpty()) {
+            System.out.println("No products found matching: " + productName);
+            return new ChatResponse("Sorry, I couldn't find any products matching '" + productName + "'.");
+        }
+        if (total > cards.size()) {
+            return new ChatResponse("I found " + total + " products matching '" + productName + "', here are the top "
+                    + cards.size() + ":", "product_list", cards);
+        }
+        return new ChatResponse("I found " + cards.size() + " products matching '" + productName + "':", "product_list", cards);
+    }
+    
+    // Search-intent hits for the extracted product wording, within the question's price bounds
+    private ProductSearchIndex.Result searchFor(ExtractedEntities entities) {
+        return productSearchIndex.search(entities.productTerm(), productSearchIndex.getDefaultLimit(),
+                p -> entities.withinPriceBounds(p.getRetailPrice()));
+    }
+    
+    private static List<Product> withinPriceBounds(List<Product> products, ExtractedEntities entities) {
+        if (!entities.hasPriceBounds()) {
+            return products;
         }
-        return null;
+        return products.stream().filter(p -> entities.withinPriceBounds(p.getRetailPrice())).toList();
     }
     
     private String generateOrderStatusMessage(Order order) {
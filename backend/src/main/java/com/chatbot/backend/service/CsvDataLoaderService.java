@@ -2,23 +2,42 @@ package com.chatbot.backend.service;
 
 import com.chatbot.backend.model.*;
 import com.chatbot.backend.repository.*;
+import com.chatbot.backend.util.CsvRow;
+import com.chatbot.backend.util.MappedCsvScanner;
+import com.chatbot.backend.util.StringArrayCsvRow;
 import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 public class CsvDataLoaderService {
-    
+
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final OrderRepository orderRepository;
@@ -26,10 +45,41 @@ public class CsvDataLoaderService {
     private final InventoryItemRepository inventoryItemRepository;
     private final DistributionCenterRepository distributionCenterRepository;
     private final ResourceLoader resourceLoader;
-    
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private static final DateTimeFormatter DATE_FORMATTER_UTC = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss 'UTC'");
-    
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final NativeBulkWriter nativeBulkWriter;
+    private final DatasetSnapshotService datasetSnapshotService;
+    private final SourceChangeTracker sourceChangeTracker;
+    private final StringDictionaries dictionaries;
+    private final String dataLocation;
+    private final LoadMode loadMode;
+    private final boolean memoryMapped;
+    private final boolean incremental;
+    private final int parserThreads;
+    private final int chunkSize;
+    private final int queueCapacity;
+
+    // JPA goes through saveAll; NATIVE writes the same rows with multi-row JDBC upserts
+    public enum LoadMode { JPA, NATIVE }
+
+    // Settings for a single loadAllData run
+    private record LoadRun(String location, LoadMode mode, boolean memoryMapped, ExecutorService executor,
+                           Queue<SourceChangeTracker.RowDelta<?>> deltas) {
+        boolean incremental() {
+            return deltas != null;
+        }
+    }
+
+    // complete is false if any file failed to load; changed is false only for an incremental run
+    // that found nothing to write or delete
+    record LoadResult(boolean complete, boolean changed) {
+    }
+
+    @FunctionalInterface
+    private interface FileLoader {
+        LoadStats load(LoadRun run) throws Exception;
+    }
+
     @Autowired
     public CsvDataLoaderService(ProductRepository productRepository,
                               UserRepository userRepository,
@@ -37,7 +87,20 @@ public class CsvDataLoaderService {
                               OrderItemRepository orderItemRepository,
                               InventoryItemRepository inventoryItemRepository,
                               DistributionCenterRepository distributionCenterRepository,
-                              ResourceLoader resourceLoader) {
+                              ResourceLoader resourceLoader,
+                              ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager,
+                              NativeBulkWriter nativeBulkWriter,
+                              DatasetSnapshotService datasetSnapshotService,
+                              SourceChangeTracker sourceChangeTracker,
+                              StringDictionaries dictionaries,
+                              @Value("${chatbot.data.location:classpath:}") String dataLocation,
+                              @Value("${chatbot.loader.mode:jpa}") String loadMode,
+                              @Value("${chatbot.loader.memory-mapped:true}") boolean memoryMapped,
+                              @Value("${chatbot.loader.incremental:false}") boolean incremental,
+                              @Value("${chatbot.loader.parser-threads:0}") int parserThreads,
+                              @Value("${chatbot.loader.chunk-size:500}") int chunkSize,
+                              @Value("${chatbot.loader.queue-capacity:4}") int queueCapacity) {
         this.productRepository = productRepository;
         this.userRepository = userRepository;
         this.orderRepository = orderRepository;
@@ -45,248 +108,378 @@ public class CsvDataLoaderService {
         this.inventoryItemRepository = inventoryItemRepository;
         this.distributionCenterRepository = distributionCenterRepository;
         this.resourceLoader = resourceLoader;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nativeBulkWriter = nativeBulkWriter;
+        this.datasetSnapshotService = datasetSnapshotService;
+        this.sourceChangeTracker = sourceChangeTracker;
+        this.dictionaries = dictionaries;
+        this.dataLocation = dataLocation;
+        this.loadMode = LoadMode.valueOf(loadMode.trim().toUpperCase(Locale.ROOT));
+        this.memoryMapped = memoryMapped;
+        this.incremental = incremental;
+        this.parserThreads = parserThreads > 0 ? parserThreads : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = chunkSize;
+        this.queueCapacity = queueCapacity;
     }
-    
+
     public void loadAllData() {
-        try {
-            loadDistributionCenters();
-            loadProducts();
-            loadUsers();
-            loadInventoryItems();
-            loadOrders();
-            loadOrderItems();
-            System.out.println("All CSV data loaded successfully!");
-        } catch (Exception e) {
-            System.err.println("Error loading CSV data: " + e.getMessage());
-            e.printStackTrace();
+        long start = System.currentTimeMillis();
+        String location = directory(dataLocation);
+        if (datasetSnapshotService.restoreIfCurrent(location)) {
+            eventPublisher.publishEvent(new DataLoadedEvent(System.currentTimeMillis() - start));
+            return;
         }
-    }
-    
-    private void loadDistributionCenters() throws IOException, CsvValidationException {
-        Resource resource = resourceLoader.getResource("classpath:distribution_centers.csv");
-        if (!resource.exists()) {
-            System.out.println("distribution_centers.csv not found, skipping...");
+        // Snapshots are only restored into an empty database, so one taken of a database that
+        // already held data would never be read, and rewriting it would cost a full read of every table
+        boolean populated = datasetSnapshotService.isEnabled() && !datasetSnapshotService.isDatabaseEmpty();
+        LoadResult result = loadAllData(location, loadMode);
+        if (!result.complete()) {
             return;
         }
-        
-        try (CSVReader reader = new CSVReader(new InputStreamReader(resource.getInputStream()))) {
-            reader.readNext(); // Skip header
-            String[] line;
-            List<DistributionCenter> centers = new ArrayList<>();
-            
-            while ((line = reader.readNext()) != null) {
-                if (line.length >= 4) {
-                    DistributionCenter center = new DistributionCenter();
-                    center.setId(line[0]);
-                    center.setName(line[1]);
-                    center.setLatitude(Double.parseDouble(line[2]));
-                    center.setLongitude(Double.parseDouble(line[3]));
-                    centers.add(center);
-                }
-            }
-            
-            distributionCenterRepository.saveAll(centers);
-            System.out.println("Loaded " + centers.size() + " distribution centers");
+        if (populated) {
+            System.out.println("Database already held data, not writing a dataset snapshot");
+        } else if (!result.changed()) {
+            System.out.println("No source rows changed, keeping the existing dataset snapshot");
+        } else {
+            datasetSnapshotService.write(location, System.currentTimeMillis() - start);
         }
     }
-    
-    private void loadProducts() throws IOException, CsvValidationException {
-        Resource resource = resourceLoader.getResource("classpath:products.csv");
-        if (!resource.exists()) {
-            System.out.println("products.csv not found, skipping...");
-            return;
+
+    LoadResult loadAllData(String location, LoadMode mode) {
+        return loadAllData(location, mode, memoryMapped);
+    }
+
+    LoadResult loadAllData(String location, LoadMode mode, boolean memoryMapped) {
+        return loadAllData(location, mode, memoryMapped, incremental);
+    }
+
+    LoadResult loadAllData(String location, LoadMode mode, boolean memoryMapped, boolean incremental) {
+        if (mode == LoadMode.NATIVE && !nativeBulkWriter.supportsUpserts()) {
+            System.out.println("Native load mode has no upsert statement for " + nativeBulkWriter.getDatabaseName()
+                    + "; loading in JPA mode instead");
+            mode = LoadMode.JPA;
         }
-        
-        try (CSVReader reader = new CSVReader(new InputStreamReader(resource.getInputStream()))) {
-            reader.readNext(); // Skip header
-            String[] line;
-            List<Product> products = new ArrayList<>();
-            
-            while ((line = reader.readNext()) != null) {
-                if (line.length >= 9) {
-                    Product product = new Product();
-                    product.setId(line[0]);
-                    product.setCost(Double.parseDouble(line[1]));
-                    product.setCategory(line[2]);
-                    product.setName(line[3]);
-                    product.setBrand(line[4]);
-                    product.setRetailPrice(Double.parseDouble(line[5]));
-                    product.setDepartment(line[6]);
-                    product.setSku(line[7]);
-                    product.setDistributionCenterId(line[8]);
-                    products.add(product);
-                }
+        boolean complete = false;
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newCachedThreadPool(loaderThreadFactory());
+        LoadRun run = new LoadRun(directory(location), mode, memoryMapped, executor,
+                incremental ? new ConcurrentLinkedQueue<>() : null);
+        System.out.println("Loading CSV data from " + run.location() + " in " + mode + " mode"
+                + (incremental ? ", incrementally" : ""));
+        try {
+            // Parent tables load concurrently; each child waits only for the tables it references
+            CompletableFuture<LoadStats> centers = loadAsync(this::loadDistributionCenters, run);
+            CompletableFuture<LoadStats> products = loadAsync(this::loadProducts, run);
+            CompletableFuture<LoadStats> users = loadAsync(this::loadUsers, run);
+            CompletableFuture<LoadStats> inventoryItems = CompletableFuture.allOf(centers, products)
+                    .thenCompose(ignored -> loadAsync(this::loadInventoryItems, run));
+            // Order totals are summed from order_items.csv up front so each order is written with its total
+            CompletableFuture<Map<String, Double>> orderTotals = CompletableFuture.supplyAsync(() -> sumOrderTotals(run), executor);
+            CompletableFuture<LoadStats> orders = CompletableFuture.allOf(users, orderTotals)
+                    .thenCompose(ignored -> loadAsync(r -> loadOrders(r, orderTotals.join()), run));
+            CompletableFuture<LoadStats> orderItems = CompletableFuture.allOf(inventoryItems, orders)
+                    .thenCompose(ignored -> loadAsync(this::loadOrderItems, run));
+
+            List<CompletableFuture<LoadStats>> all = List.of(centers, products, users, inventoryItems, orders, orderItems);
+            CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).join();
+            for (CompletableFuture<LoadStats> stats : all) {
+                System.out.println("  " + stats.join());
             }
-            
-            productRepository.saveAll(products);
-            System.out.println("Loaded " + products.size() + " products");
-        }
-    }
-    
-    private void loadUsers() throws IOException, CsvValidationException {
-        Resource resource = resourceLoader.getResource("classpath:users.csv");
-        if (!resource.exists()) {
-            System.out.println("users.csv not found, skipping...");
-            return;
+            if (run.incremental()) {
+                sourceChangeTracker.commit(run.deltas());
+            }
+            if (orderItemsChanged(run)) {
+                updateOrderTotals();
+            }
+            System.out.println("All CSV data loaded successfully in " + (System.currentTimeMillis() - start) + " ms!");
+            System.out.println("String dictionaries: " + dictionaries);
+            complete = true;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("Error loading CSV data: " + cause.getMessage());
+            cause.printStackTrace();
+        } finally {
+            executor.shutdownNow();
+            dictionaries.releaseIdentifiers();
         }
-        
-        try (CSVReader reader = new CSVReader(new InputStreamReader(resource.getInputStream()))) {
-            reader.readNext(); // Skip header
-            String[] line;
-            List<User> users = new ArrayList<>();
-            
-            while ((line = reader.readNext()) != null) {
-                if (line.length >= 16) {
-                    User user = new User();
-                    user.setId(line[0]);
-                    user.setFirstName(line[1]);
-                    user.setLastName(line[2]);
-                    user.setEmail(line[3]);
-                    user.setAge(Integer.parseInt(line[4]));
-                    user.setGender(line[5]);
-                    user.setState(line[6]);
-                    user.setStreetAddress(line[7]);
-                    user.setPostalCode(line[8]);
-                    user.setCity(line[9]);
-                    user.setCountry(line[10]);
-                    user.setLatitude(Double.parseDouble(line[11]));
-                    user.setLongitude(Double.parseDouble(line[12]));
-                    user.setTrafficSource(line[13]);
-                    user.setCreatedAt(parseDateTime(line[14]));
-                    users.add(user);
-                }
+        // Rebuild in-memory views even after a partial load so they match what is in the database;
+        // only a complete incremental load can tell them exactly which rows changed
+        Map<String, DataLoadedEvent.TableChanges> changes = null;
+        if (complete && run.incremental()) {
+            changes = new HashMap<>();
+            for (SourceChangeTracker.RowDelta<?> delta : run.deltas()) {
+                changes.put(delta.table(), new DataLoadedEvent.TableChanges(delta.changedKeys(), Set.copyOf(delta.removedKeys())));
             }
-            
-            userRepository.saveAll(users);
-            System.out.println("Loaded " + users.size() + " users");
         }
+        eventPublisher.publishEvent(new DataLoadedEvent(System.currentTimeMillis() - start, changes));
+        boolean changed = !run.incremental() || run.deltas().stream()
+                .anyMatch(delta -> delta.changedRows() > 0 || !delta.removedKeys().isEmpty());
+        return new LoadResult(complete, changed);
+    }
+
+    // Only an incremental load can leave totals behind: unchanged orders are skipped even when their
+    // line items changed
+    private static boolean orderItemsChanged(LoadRun run) {
+        return run.incremental() && run.deltas().stream()
+                .anyMatch(delta -> delta.table().equals(TableLayouts.ORDER_ITEMS.getTable()));
     }
-    
-    private void loadInventoryItems() throws IOException, CsvValidationException {
-        Resource resource = resourceLoader.getResource("classpath:inventory_items.csv");
+
+    // Sum of sale_price per order id in order_items.csv; a cheap pass that maps no entities
+    private Map<String, Double> sumOrderTotals(LoadRun run) {
+        Map<String, Double> totals = new HashMap<>();
+        Resource resource = resourceLoader.getResource(run.location() + "order_items.csv");
         if (!resource.exists()) {
-            System.out.println("inventory_items.csv not found, skipping...");
-            return;
+            return totals;
         }
-        
-        try (CSVReader reader = new CSVReader(new InputStreamReader(resource.getInputStream()))) {
-            reader.readNext(); // Skip header
-            String[] line;
-            List<InventoryItem> items = new ArrayList<>();
-            
-            while ((line = reader.readNext()) != null) {
-                if (line.length >= 12) {
-                    InventoryItem item = new InventoryItem();
-                    item.setId(line[0]);
-                    item.setProductId(line[1]);
-                    item.setCreatedAt(parseDateTime(line[2]));
-                    item.setSoldAt(line[3].isEmpty() ? null : parseDateTime(line[3]));
-                    item.setCost(Double.parseDouble(line[4]));
-                    item.setProductCategory(line[5]);
-                    item.setProductName(line[6]);
-                    item.setProductBrand(line[7]);
-                    item.setProductRetailPrice(Double.parseDouble(line[8]));
-                    item.setProductDepartment(line[9]);
-                    item.setProductSku(line[10]);
-                    item.setProductDistributionCenterId(line[11]);
-                    items.add(item);
+        try {
+            MappedCsvScanner scanner = run.memoryMapped() && resource.isFile() ? openMapped(resource) : null;
+            if (scanner != null) {
+                MappedCsvScanner.Cursor cursor = scanner.cursor();
+                while (cursor.next()) {
+                    addSalePrice(totals, cursor);
+                }
+            } else {
+                try (CSVReader reader = new CSVReader(new InputStreamReader(resource.getInputStream()))) {
+                    reader.readNext(); // Skip header
+                    String[] line;
+                    while ((line = reader.readNext()) != null) {
+                        addSalePrice(totals, new StringArrayCsvRow(line));
+                    }
                 }
             }
-            
-            inventoryItemRepository.saveAll(items);
-            System.out.println("Loaded " + items.size() + " inventory items");
+        } catch (Exception e) {
+            throw new CompletionException(e);
         }
+        return totals;
     }
-    
-    private void loadOrders() throws IOException, CsvValidationException {
-        Resource resource = resourceLoader.getResource("classpath:orders.csv");
-        if (!resource.exists()) {
-            System.out.println("orders.csv not found, skipping...");
-            return;
+
+    // Sums are rounded to cents so the file pass and the database agree whatever order they add in
+    private static double toCents(double amount) {
+        return Math.round(amount * 100) / 100.0;
+    }
+
+    private static void addSalePrice(Map<String, Double> totals, CsvRow row) {
+        if (row.size() > 10 && !row.isEmpty(10)) {
+            totals.merge(row.string(1), row.doubleAt(10), Double::sum);
         }
-        
-        try (CSVReader reader = new CSVReader(new InputStreamReader(resource.getInputStream()))) {
-            reader.readNext(); // Skip header
-            String[] line;
-            List<Order> orders = new ArrayList<>();
-            
-            while ((line = reader.readNext()) != null) {
-                if (line.length >= 9) {
-                    Order order = new Order();
-                    order.setOrderId(line[0]);
-                    order.setUserId(line[1]);
-                    order.setStatus(line[2]);
-                    order.setGender(line[3]);
-                    order.setCreatedAt(parseDateTime(line[4]));
-                    order.setReturnedAt(line[5].isEmpty() ? null : parseDateTime(line[5]));
-                    order.setShippedAt(line[6].isEmpty() ? null : parseDateTime(line[6]));
-                    order.setDeliveredAt(line[7].isEmpty() ? null : parseDateTime(line[7]));
-                    order.setNumOfItem(Integer.parseInt(line[8]));
-                    orders.add(order);
-                }
+    }
+
+    // Brings stored totals in line with the line items: sums them per order in one grouped scan and
+    // writes only the totals that differ
+    private void updateOrderTotals() {
+        long start = System.currentTimeMillis();
+        Map<String, Double> stored = new HashMap<>();
+        for (Object[] row : orderRepository.findNonZeroTotals()) {
+            stored.put((String) row[0], ((Number) row[1]).doubleValue());
+        }
+        List<Object[]> changed = new ArrayList<>();
+        for (Object[] row : orderItemRepository.sumSalePriceByOrder()) {
+            String orderId = (String) row[0];
+            double total = toCents(((Number) row[1]).doubleValue());
+            Double previous = stored.remove(orderId);
+            if (total != (previous == null ? 0 : previous)) {
+                changed.add(new Object[] {orderId, total});
             }
-            
-            orderRepository.saveAll(orders);
-            System.out.println("Loaded " + orders.size() + " orders");
         }
+        // Orders left in stored no longer have any line items
+        stored.keySet().forEach(orderId -> changed.add(new Object[] {orderId, 0.0}));
+        nativeBulkWriter.updateColumn(TableLayouts.ORDERS, "total_amount", changed);
+        System.out.println("Order totals updated for " + changed.size() + " orders in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private CompletableFuture<LoadStats> loadAsync(FileLoader loader, LoadRun run) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loader.load(run);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, run.executor());
+    }
+
+    // Repeated columns go through the shared dictionaries, so each distinct value is held once
+    private LoadStats loadDistributionCenters(LoadRun run) throws Exception {
+        return loadFile("distribution_centers.csv", "distribution centers", 4, row -> {
+            DistributionCenter center = new DistributionCenter();
+            center.setId(dictionaries.label(row.string(0)));
+            center.setName(row.string(1));
+            center.setLatitude(row.doubleAt(2));
+            center.setLongitude(row.doubleAt(3));
+            return center;
+        }, distributionCenterRepository, TableLayouts.DISTRIBUTION_CENTERS, run);
+    }
+
+    private LoadStats loadProducts(LoadRun run) throws Exception {
+        return loadFile("products.csv", "products", 9, row -> {
+            Product product = new Product();
+            product.setId(dictionaries.product(row.string(0)));
+            product.setCost(row.doubleAt(1));
+            product.setCategory(dictionaries.label(row.string(2)));
+            product.setName(dictionaries.product(row.string(3)));
+            product.setBrand(dictionaries.label(row.string(4)));
+            product.setRetailPrice(row.doubleAt(5));
+            product.setDepartment(dictionaries.label(row.string(6)));
+            product.setSku(dictionaries.product(row.string(7)));
+            product.setDistributionCenterId(dictionaries.label(row.string(8)));
+            return product;
+        }, productRepository, TableLayouts.PRODUCTS, run);
+    }
+
+    private LoadStats loadUsers(LoadRun run) throws Exception {
+        return loadFile("users.csv", "users", 16, row -> {
+            User user = new User();
+            user.setId(dictionaries.user(row.string(0)));
+            user.setFirstName(row.string(1));
+            user.setLastName(row.string(2));
+            user.setEmail(row.string(3));
+            user.setAge(row.intAt(4));
+            user.setGender(dictionaries.label(row.string(5)));
+            user.setState(dictionaries.label(row.string(6)));
+            user.setStreetAddress(row.string(7));
+            user.setPostalCode(row.string(8));
+            user.setCity(dictionaries.label(row.string(9)));
+            user.setCountry(dictionaries.label(row.string(10)));
+            user.setLatitude(row.doubleAt(11));
+            user.setLongitude(row.doubleAt(12));
+            user.setTrafficSource(dictionaries.label(row.string(13)));
+            user.setCreatedAt(row.timestampAt(14));
+            return user;
+        }, userRepository, TableLayouts.USERS, run);
+    }
+
+    private LoadStats loadInventoryItems(LoadRun run) throws Exception {
+        return loadFile("inventory_items.csv", "inventory items", 12, row -> {
+            InventoryItem item = new InventoryItem();
+            item.setId(row.string(0));
+            item.setProductId(dictionaries.product(row.string(1)));
+            item.setCreatedAt(row.timestampAt(2));
+            item.setSoldAt(row.timestampAt(3));
+            item.setCost(row.doubleAt(4));
+            item.setProductCategory(dictionaries.label(row.string(5)));
+            item.setProductName(dictionaries.product(row.string(6)));
+            item.setProductBrand(dictionaries.label(row.string(7)));
+            item.setProductRetailPrice(row.doubleAt(8));
+            item.setProductDepartment(dictionaries.label(row.string(9)));
+            item.setProductSku(dictionaries.product(row.string(10)));
+            item.setProductDistributionCenterId(dictionaries.label(row.string(11)));
+            return item;
+        }, inventoryItemRepository, TableLayouts.INVENTORY_ITEMS, run);
+    }
+
+    private LoadStats loadOrders(LoadRun run, Map<String, Double> totals) throws Exception {
+        return loadFile("orders.csv", "orders", 9, row -> {
+            Order order = new Order();
+            order.setOrderId(row.string(0));
+            order.setUserId(dictionaries.user(row.string(1)));
+            order.setStatus(dictionaries.label(row.string(2)));
+            order.setGender(dictionaries.label(row.string(3)));
+            order.setCreatedAt(row.timestampAt(4));
+            order.setReturnedAt(row.timestampAt(5));
+            order.setShippedAt(row.timestampAt(6));
+            order.setDeliveredAt(row.timestampAt(7));
+            order.setNumOfItem(row.intAt(8));
+            order.setTotalAmount(toCents(totals.getOrDefault(order.getOrderId(), 0.0)));
+            return order;
+        }, orderRepository, TableLayouts.ORDERS, run);
+    }
+
+    private LoadStats loadOrderItems(LoadRun run) throws Exception {
+        return loadFile("order_items.csv", "order items", 9, row -> {
+            OrderItem item = new OrderItem();
+            item.setId(row.string(0));
+            item.setOrderId(row.string(1));
+            item.setUserId(dictionaries.user(row.string(2)));
+            item.setProductId(dictionaries.product(row.string(3)));
+            item.setInventoryItemId(row.string(4));
+            item.setStatus(dictionaries.label(row.string(5)));
+            item.setCreatedAt(row.timestampAt(6));
+            item.setShippedAt(row.timestampAt(7));
+            item.setDeliveredAt(row.timestampAt(8));
+            item.setReturnedAt(row.size() > 9 ? row.timestampAt(9) : null);
+            item.setSalePrice(row.size() > 10 && !row.isEmpty(10) ? row.doubleAt(10) : 0);
+            return item;
+        }, orderItemRepository, TableLayouts.ORDER_ITEMS, run);
     }
-    
-    private void loadOrderItems() throws IOException, CsvValidationException {
-        Resource resource = resourceLoader.getResource("classpath:order_items.csv");
+
+    // Streams one CSV through the pipeline, committing each chunk in its own transaction so the
+    // persistence context never holds more than one chunk and Hibernate can batch the inserts
+    private <T> LoadStats loadFile(String fileName, String label, int minColumns, Function<CsvRow, T> mapper,
+                                   JpaRepository<T, String> repository, TableLayout<T> layout, LoadRun run) throws Exception {
+        Resource resource = resourceLoader.getResource(run.location() + fileName);
         if (!resource.exists()) {
-            System.out.println("order_items.csv not found, skipping...");
-            return;
+            System.out.println(fileName + " not found, skipping...");
+            return LoadStats.skipped(fileName);
         }
-        
-        try (CSVReader reader = new CSVReader(new InputStreamReader(resource.getInputStream()))) {
-            reader.readNext(); // Skip header
-            String[] line;
-            List<OrderItem> items = new ArrayList<>();
-            
-            while ((line = reader.readNext()) != null) {
-                if (line.length >= 9) {
-                    OrderItem item = new OrderItem();
-                    item.setId(line[0]);
-                    item.setOrderId(line[1]);
-                    item.setUserId(line[2]);
-                    item.setProductId(line[3]);
-                    item.setInventoryItemId(line[4]);
-                    item.setStatus(line[5]);
-                    item.setCreatedAt(parseDateTime(line[6]));
-                    item.setShippedAt(line[7].isEmpty() ? null : parseDateTime(line[7]));
-                    item.setDeliveredAt(line[8].isEmpty() ? null : parseDateTime(line[8]));
-                    item.setReturnedAt(line.length > 9 && !line[9].isEmpty() ? parseDateTime(line[9]) : null);
-                    items.add(item);
+
+        SourceChangeTracker.RowDelta<T> delta = null;
+        if (run.incremental()) {
+            long checksum = SourceChangeTracker.checksum(resource);
+            if (sourceChangeTracker.isUnchanged(fileName, checksum, layout)) {
+                System.out.println(fileName + " and its table layout unchanged since the last import, skipping...");
+                return LoadStats.skipped(fileName);
+            }
+            delta = sourceChangeTracker.startDelta(fileName, checksum, layout);
+            run.deltas().add(delta);
+        }
+
+        // In incremental runs rows identical to the previous import are dropped before the writer
+        SourceChangeTracker.RowDelta<T> changes = delta;
+        Function<CsvRow, T> rowMapper = row -> {
+            T entity = row.size() >= minColumns ? mapper.apply(row) : null;
+            return entity == null || changes == null || changes.changed(entity) ? entity : null;
+        };
+        Consumer<List<T>> writer = run.mode() == LoadMode.NATIVE
+                ? chunk -> nativeBulkWriter.write(layout, chunk)
+                : chunk -> transactionTemplate.executeWithoutResult(status -> repository.saveAll(chunk));
+        CsvLoadPipeline<String[], T> pipeline = new CsvLoadPipeline<>(chunkSize, queueCapacity, run.executor());
+
+        LoadStats stats;
+        MappedCsvScanner scanner = run.memoryMapped() && resource.isFile() ? openMapped(resource) : null;
+        if (scanner != null) {
+            // Local files: scan line-aligned ranges of the mapping in parallel, no per-cell Strings
+            stats = pipeline.runParallel(fileName, scanner.split(parserThreads), (range, sink) -> {
+                MappedCsvScanner.Cursor cursor = scanner.cursor(range);
+                while (cursor.next()) {
+                    sink.accept(rowMapper.apply(cursor));
                 }
+            }, writer);
+        } else {
+            // Classpath and jar resources keep the opencsv path
+            try (CSVReader reader = new CSVReader(new InputStreamReader(resource.getInputStream()))) {
+                reader.readNext(); // Skip header
+                stats = pipeline.run(fileName, reader::readNext,
+                        line -> rowMapper.apply(new StringArrayCsvRow(line)), writer);
             }
-            
-            orderItemRepository.saveAll(items);
-            System.out.println("Loaded " + items.size() + " order items");
         }
-    }
-    
-    private LocalDateTime parseDateTime(String dateTimeStr) {
-        if (dateTimeStr == null || dateTimeStr.isEmpty()) {
-            return null;
+        if (delta != null) {
+            System.out.println("Loaded " + stats.rows() + " new or changed " + label + ", "
+                    + delta.removedKeys().size() + " to delete (" + stats.rowsPerSecond() + " rows/s)");
+        } else {
+            System.out.println("Loaded " + stats.rows() + " " + label + " (" + stats.rowsPerSecond() + " rows/s)");
         }
+        return stats;
+    }
+
+    private static MappedCsvScanner openMapped(Resource resource) {
         try {
-            // Handle timezone offset format (e.g., 2022-07-02 07:09:20+00:00)
-            if (dateTimeStr.contains("+") || (dateTimeStr.contains("-") && dateTimeStr.lastIndexOf("-") > 10)) {
-                // Remove timezone offset and parse as LocalDateTime
-                String dateTimeWithoutTz = dateTimeStr.replaceAll("[+-]\\d{2}:?\\d{2}$", "");
-                return LocalDateTime.parse(dateTimeWithoutTz, DATE_FORMATTER);
-            }
-            // Try with UTC format
-            else if (dateTimeStr.endsWith("UTC")) {
-                return LocalDateTime.parse(dateTimeStr, DATE_FORMATTER_UTC);
-            } 
-            // Try with standard format
-            else {
-                return LocalDateTime.parse(dateTimeStr, DATE_FORMATTER);
-            }
-        } catch (Exception e) {
-            System.err.println("Error parsing date: " + dateTimeStr + " - " + e.getMessage());
+            return MappedCsvScanner.open(resource.getFile().toPath(), true);
+        } catch (IOException e) {
+            System.out.println("Cannot memory-map " + resource.getDescription() + ", reading it as a stream: " + e.getMessage());
             return null;
         }
     }
-} 
\ No newline at end of file
+
+    private static String directory(String location) {
+        return location.endsWith("/") || location.endsWith(":") ? location : location + "/";
+    }
+
+    private static ThreadFactory loaderThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "csv-loader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,206 @@
+package com.chatbot.backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Reader -> parser -> writer pipeline joined by bounded queues.
+// run() reads sequentially on the calling thread and parses on one worker; runParallel() parses
+// pre-split input on one worker per split. Either way a single writer drains fixed-size chunks,
+// so at most queueCapacity chunks per stage are ever held in memory.
+class CsvLoadPipeline<R, T> {
+
+    @FunctionalInterface
+    interface RowSource<R> {
+        // Returns null at end of input
+        R next() throws Exception;
+    }
+
+    @FunctionalInterface
+    interface SplitParser<S, T> {
+        // Emits each mapped row of the split; null rows are skipped
+        void parse(S split, Consumer<T> sink) throws Exception;
+    }
+
+    private static final long POLL_MILLIS = 100;
+
+    private final int chunkSize;
+    private final int queueCapacity;
+    private final Executor executor;
+
+    CsvLoadPipeline(int chunkSize, int queueCapacity, Executor executor) {
+        if (chunkSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("chunkSize and queueCapacity must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.queueCapacity = queueCapacity;
+        this.executor = executor;
+    }
+
+    // mapper may return null to skip a row; writer receives non-empty chunks of at most chunkSize rows
+    LoadStats run(String fileName, RowSource<R> source, Function<R, T> mapper, Consumer<List<T>> writer) throws Exception {
+        long start = System.nanoTime();
+        BlockingQueue<List<R>> rawChunks = new ArrayBlockingQueue<>(queueCapacity);
+        List<R> rawEnd = new ArrayList<>(0);
+        Stage stage = new Stage(writer);
+
+        CompletableFuture<Void> parser = CompletableFuture.runAsync(() -> {
+            try {
+                ChunkSink sink = stage.sink();
+                List<R> raw;
+                while ((raw = take(rawChunks, stage.failure)) != rawEnd) {
+                    for (R row : raw) {
+                        sink.accept(mapper.apply(row));
+                    }
+                }
+                sink.flush();
+            } catch (Throwable t) {
+                stage.failure.compareAndSet(null, t);
+            }
+        }, executor);
+
+        try {
+            List<R> chunk = new ArrayList<>(chunkSize);
+            R row;
+            while ((row = source.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    put(rawChunks, chunk, stage.failure);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                put(rawChunks, chunk, stage.failure);
+            }
+            put(rawChunks, rawEnd, stage.failure);
+        } catch (Throwable t) {
+            stage.failure.compareAndSet(null, t);
+        }
+
+        return stage.finish(fileName, List.of(parser), start);
+    }
+
+    <S> LoadStats runParallel(String fileName, List<S> splits, SplitParser<? super S, T> parser,
+                              Consumer<List<T>> writer) throws Exception {
+        long start = System.nanoTime();
+        Stage stage = new Stage(writer);
+        List<CompletableFuture<Void>> parsers = new ArrayList<>(splits.size());
+        for (S split : splits) {
+            parsers.add(CompletableFuture.runAsync(() -> {
+                try {
+                    ChunkSink sink = stage.sink();
+                    parser.parse(split, sink);
+                    sink.flush();
+                } catch (Throwable t) {
+                    stage.failure.compareAndSet(null, t);
+                }
+            }, executor));
+        }
+        return stage.finish(fileName, parsers, start);
+    }
+
+    // Shared writer stage: parsers hand chunks over through parsedChunks
+    private final class Stage {
+        final BlockingQueue<List<T>> parsedChunks = new ArrayBlockingQueue<>(queueCapacity);
+        final List<T> parsedEnd = new ArrayList<>(0);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicLong rows = new AtomicLong();
+        final CompletableFuture<Void> writerStage;
+
+        Stage(Consumer<List<T>> writer) {
+            writerStage = CompletableFuture.runAsync(() -> {
+                try {
+                    List<T> chunk;
+                    while ((chunk = take(parsedChunks, failure)) != parsedEnd) {
+                        writer.accept(chunk);
+                        rows.addAndGet(chunk.size());
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }, executor);
+        }
+
+        ChunkSink sink() {
+            return new ChunkSink(this);
+        }
+
+        LoadStats finish(String fileName, List<CompletableFuture<Void>> parsers, long startNanos) throws Exception {
+            // Parser tasks record their own failures, so this join never throws
+            CompletableFuture.allOf(parsers.toArray(new CompletableFuture<?>[0])).join();
+            try {
+                put(parsedChunks, parsedEnd, failure);
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+            writerStage.join();
+            Throwable error = failure.get();
+            if (error instanceof Exception exception) {
+                throw exception;
+            } else if (error != null) {
+                throw new IllegalStateException("Loading " + fileName + " failed", error);
+            }
+            return new LoadStats(fileName, rows.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+
+    // Per-parser buffer that hands full chunks to the writer
+    private final class ChunkSink implements Consumer<T> {
+        private final Stage stage;
+        private List<T> chunk = new ArrayList<>(chunkSize);
+
+        ChunkSink(Stage stage) {
+            this.stage = stage;
+        }
+
+        @Override
+        public void accept(T value) {
+            if (value == null) {
+                return;
+            }
+            chunk.add(value);
+            if (chunk.size() == chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                put(stage.parsedChunks, chunk, stage.failure);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while handing a chunk to the writer");
+            }
+            chunk = new ArrayList<>(chunkSize);
+        }
+    }
+
+    // Queue hand-offs poll so a failed stage cannot leave its neighbours blocked forever
+    private static <E> void put(BlockingQueue<E> queue, E element, AtomicReference<Throwable> failure) throws InterruptedException {
+        abortIfFailed(failure);
+        while (!queue.offer(element, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            abortIfFailed(failure);
+        }
+    }
+
+    private static <E> E take(BlockingQueue<E> queue, AtomicReference<Throwable> failure) throws InterruptedException {
+        E element;
+        while ((element = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            abortIfFailed(failure);
+        }
+        return element;
+    }
+
+    private static void abortIfFailed(AtomicReference<Throwable> failure) {
+        if (failure.get() != null) {
+            throw new CancellationException("Aborted after failure in another pipeline stage");
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.chatbot.backend.service;
+
+import org.springframework.core.Ordered;
+
+import java.util.Map;
+import java.util.Set;
+
+// Published once the CSV import has finished so in-memory views can rebuild from the database.
+// An incremental load also says which rows it wrote or removed per table (tables it did not touch
+// are absent); after a full load or a snapshot restore changes is null and everything may differ.
+// Listeners that rebuild a view run at REBUILD; anything derived from those views (cached answers)
+// is cleared at AFTER_REBUILD, once every view already reflects the new data.
+public class DataLoadedEvent {
+
+    public static final int REBUILD = 0;
+    public static final int AFTER_REBUILD = Ordered.LOWEST_PRECEDENCE;
+
+    public record TableChanges(Set<String> changedKeys, Set<String> removedKeys) {
+    }
+
+    private final long loadMillis;
+    private final Map<String, TableChanges> changes;
+
+    public DataLoadedEvent(long loadMillis) {
+        this(loadMillis, null);
+    }
+
+    public DataLoadedEvent(long loadMillis, Map<String, TableChanges> changes) {
+        this.loadMillis = loadMillis;
+        this.changes = changes;
+    }
+
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+
+    public boolean isIncremental() {
+        return changes != null;
+    }
+
+    // Rows of one table this load changed; only meaningful for incremental loads
+    public TableChanges changes(String table) {
+        return changes.getOrDefault(table, new TableChanges(Set.of(), Set.of()));
+    }
+}
@@ -0,0 +1,454 @@
+package com.chatbot.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Versioned, columnar binary copy of the imported tables. Strings are dictionary-encoded per
+// column, and the header records a CRC32C of every source CSV; a snapshot is only restored when
+// those checksums still match, otherwise the loader falls back to parsing the CSVs.
+@Service
+public class DatasetSnapshotService {
+
+    static final String[] SOURCE_FILES = {"distribution_centers.csv", "products.csv", "users.csv",
+            "inventory_items.csv", "orders.csv", "order_items.csv"};
+
+    private static final int MAGIC = 0x43425331; // "CBS1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int RESTORE_CHUNK_ROWS = 1000;
+
+    private final ResourceLoader resourceLoader;
+    private final JdbcTemplate jdbcTemplate;
+    private final NativeBulkWriter nativeBulkWriter;
+    private final boolean enabled;
+    private final Path snapshotPath;
+
+    @Autowired
+    public DatasetSnapshotService(ResourceLoader resourceLoader,
+                                  JdbcTemplate jdbcTemplate,
+                                  NativeBulkWriter nativeBulkWriter,
+                                  @Value("${chatbot.snapshot.enabled:false}") boolean enabled,
+                                  @Value("${chatbot.snapshot.path:data/dataset.snapshot}") String snapshotPath) {
+        this.resourceLoader = resourceLoader;
+        this.jdbcTemplate = jdbcTemplate;
+        this.nativeBulkWriter = nativeBulkWriter;
+        this.enabled = enabled;
+        this.snapshotPath = Paths.get(snapshotPath);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Restores the snapshot into the database if it was taken from the current source files
+    public boolean restoreIfCurrent(String location) {
+        if (!enabled || !Files.isRegularFile(snapshotPath)) {
+            return false;
+        }
+        // A populated (persistent) database is brought up to date by the incremental loader instead
+        if (!isDatabaseEmpty()) {
+            System.out.println("Database already holds data, not restoring the dataset snapshot");
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() != layoutSignature()) {
+                System.out.println("Dataset snapshot " + snapshotPath + " has an old format, ignoring it");
+                return false;
+            }
+            long csvLoadMillis = in.readLong();
+            Map<String, Long> recorded = new LinkedHashMap<>();
+            int sourceCount = in.readInt();
+            for (int i = 0; i < sourceCount; i++) {
+                recorded.put(in.readUTF(), in.readLong());
+            }
+            if (!recorded.equals(sourceChecksums(location))) {
+                System.out.println("Source CSVs changed since the dataset snapshot was written, reloading from CSV");
+                return false;
+            }
+
+            CRC32C crc = new CRC32C();
+            DataInputStream body = new DataInputStream(new CheckedInputStream(in, crc));
+            List<TableColumns> tables = new ArrayList<>();
+            int tableCount = body.readInt();
+            for (int t = 0; t < tableCount; t++) {
+                tables.add(TableColumns.read(body));
+            }
+            long expectedCrc = crc.getValue();
+            if (in.readLong() != expectedCrc) {
+                System.out.println("Dataset snapshot " + snapshotPath + " is corrupt, reloading from CSV");
+                return false;
+            }
+
+            for (TableColumns table : tables) {
+                restoreTable(table);
+            }
+            System.out.println("Restored dataset snapshot in " + (System.currentTimeMillis() - start)
+                    + " ms (CSV load took " + csvLoadMillis + " ms when it was written)");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not restore dataset snapshot " + snapshotPath + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Captures the current table contents; called after a successful CSV import
+    public void write(String location, long csvLoadMillis) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            Map<String, Long> checksums = sourceChecksums(location);
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "dataset", ".snapshot.tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(layoutSignature());
+                out.writeLong(csvLoadMillis);
+                out.writeInt(checksums.size());
+                for (Map.Entry<String, Long> entry : checksums.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+
+                CRC32C crc = new CRC32C();
+                DataOutputStream body = new DataOutputStream(new CheckedOutputStream(out, crc));
+                body.writeInt(TableLayouts.ALL.size());
+                for (TableLayout<?> layout : TableLayouts.ALL) {
+                    readTable(layout).write(body);
+                }
+                body.flush();
+                out.writeLong(crc.getValue());
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("Wrote dataset snapshot " + snapshotPath + " (" + Files.size(snapshotPath) + " bytes) in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not write dataset snapshot " + snapshotPath + ": " + e.getMessage());
+        }
+    }
+
+    // CRC32C per source file; files that do not exist are recorded as -1
+    Map<String, Long> sourceChecksums(String location) throws IOException {
+        Map<String, Long> checksums = new LinkedHashMap<>();
+        for (String fileName : SOURCE_FILES) {
+            Resource resource = resourceLoader.getResource(location + fileName);
+            checksums.put(fileName, resource.exists() ? SourceChangeTracker.checksum(resource) : -1L);
+        }
+        return checksums;
+    }
+
+    public boolean isDatabaseEmpty() {
+        for (TableLayout<?> layout : TableLayouts.ALL) {
+            String sql = "SELECT " + layout.getKeyColumn() + " FROM " + layout.getTable() + " LIMIT 1";
+            if (!jdbcTemplate.queryForList(sql, String.class).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TableColumns readTable(TableLayout<?> layout) {
+        TableColumns table = new TableColumns(layout.getTable(), layout.getSqlTypes());
+        String sql = "SELECT " + String.join(", ", layout.getColumns()) + " FROM " + layout.getTable();
+        jdbcTemplate.query(sql, (RowCallbackHandler) table::append);
+        return table;
+    }
+
+    private void restoreTable(TableColumns table) {
+        TableLayout<?> layout = TableLayouts.ALL.stream()
+                .filter(l -> l.getTable().equals(table.name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown table in snapshot: " + table.name));
+        List<Object[]> chunk = new ArrayList<>(RESTORE_CHUNK_ROWS);
+        for (int row = 0; row < table.rowCount; row++) {
+            chunk.add(table.row(row));
+            if (chunk.size() == RESTORE_CHUNK_ROWS) {
+                nativeBulkWriter.writeRows(layout, chunk);
+                chunk = new ArrayList<>(RESTORE_CHUNK_ROWS);
+            }
+        }
+        nativeBulkWriter.writeRows(layout, chunk);
+    }
+
+    // Changes to any table layout invalidate existing snapshots
+    private static long layoutSignature() {
+        CRC32C crc = new CRC32C();
+        for (TableLayout<?> layout : TableLayouts.ALL) {
+            crc.update((layout.getTable() + ":" + layout.getColumns() + Arrays.toString(layout.getSqlTypes()))
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        return crc.getValue();
+    }
+
+    // One table held column by column
+    private static final class TableColumns {
+        final String name;
+        final int[] types;
+        final Column[] columns;
+        int rowCount;
+
+        TableColumns(String name, int[] types) {
+            this.name = name;
+            this.types = types;
+            this.columns = new Column[types.length];
+            for (int c = 0; c < types.length; c++) {
+                columns[c] = Column.forType(types[c]);
+            }
+        }
+
+        void append(ResultSet rs) throws SQLException {
+            for (int c = 0; c < columns.length; c++) {
+                columns[c].append(rs, c + 1);
+            }
+            rowCount++;
+        }
+
+        Object[] row(int row) {
+            Object[] values = new Object[columns.length];
+            for (int c = 0; c < columns.length; c++) {
+                values[c] = columns[c].get(row);
+            }
+            return values;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(name);
+            out.writeInt(rowCount);
+            out.writeInt(types.length);
+            for (int type : types) {
+                out.writeInt(type);
+            }
+            for (Column column : columns) {
+                column.write(out, rowCount);
+            }
+        }
+
+        static TableColumns read(DataInputStream in) throws IOException {
+            String name = in.readUTF();
+            int rowCount = in.readInt();
+            int[] types = new int[in.readInt()];
+            for (int c = 0; c < types.length; c++) {
+                types[c] = in.readInt();
+            }
+            TableColumns table = new TableColumns(name, types);
+            for (Column column : table.columns) {
+                column.read(in, rowCount);
+            }
+            table.rowCount = rowCount;
+            return table;
+        }
+    }
+
+    private abstract static class Column {
+        abstract void append(ResultSet rs, int index) throws SQLException;
+
+        abstract Object get(int row);
+
+        abstract void write(DataOutputStream out, int rows) throws IOException;
+
+        abstract void read(DataInputStream in, int rows) throws IOException;
+
+        static Column forType(int sqlType) {
+            switch (sqlType) {
+                case Types.VARCHAR:
+                    return new StringColumn();
+                case Types.DOUBLE:
+                    return new DoubleColumn();
+                case Types.INTEGER:
+                    return new IntColumn();
+                case Types.TIMESTAMP:
+                    return new TimestampColumn();
+                default:
+                    throw new IllegalArgumentException("Unsupported column type " + sqlType);
+            }
+        }
+    }
+
+    // Dictionary-encoded strings; code -1 is null
+    private static final class StringColumn extends Column {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private List<String> dictionary = new ArrayList<>();
+        private int[] values = new int[1024];
+        private int size;
+
+        @Override
+        void append(ResultSet rs, int index) throws SQLException {
+            String value = rs.getString(index);
+            int code = value == null ? -1 : codes.computeIfAbsent(value, v -> {
+                dictionary.add(v);
+                return dictionary.size() - 1;
+            });
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = code;
+        }
+
+        @Override
+        Object get(int row) {
+            int code = values[row];
+            return code < 0 ? null : dictionary.get(code);
+        }
+
+        @Override
+        void write(DataOutputStream out, int rows) throws IOException {
+            out.writeInt(dictionary.size());
+            for (String value : dictionary) {
+                out.writeUTF(value);
+            }
+            for (int row = 0; row < rows; row++) {
+                out.writeInt(values[row]);
+            }
+        }
+
+        @Override
+        void read(DataInputStream in, int rows) throws IOException {
+            int dictionarySize = in.readInt();
+            dictionary = new ArrayList<>(dictionarySize);
+            for (int i = 0; i < dictionarySize; i++) {
+                dictionary.add(in.readUTF());
+            }
+            values = new int[rows];
+            for (int row = 0; row < rows; row++) {
+                values[row] = in.readInt();
+            }
+            size = rows;
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        private double[] values = new double[1024];
+        private int size;
+
+        @Override
+        void append(ResultSet rs, int index) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = rs.getDouble(index);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void write(DataOutputStream out, int rows) throws IOException {
+            for (int row = 0; row < rows; row++) {
+                out.writeDouble(values[row]);
+            }
+        }
+
+        @Override
+        void read(DataInputStream in, int rows) throws IOException {
+            values = new double[rows];
+            for (int row = 0; row < rows; row++) {
+                values[row] = in.readDouble();
+            }
+            size = rows;
+        }
+    }
+
+    private static final class IntColumn extends Column {
+        private int[] values = new int[1024];
+        private int size;
+
+        @Override
+        void append(ResultSet rs, int index) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = rs.getInt(index);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void write(DataOutputStream out, int rows) throws IOException {
+            for (int row = 0; row < rows; row++) {
+                out.writeInt(values[row]);
+            }
+        }
+
+        @Override
+        void read(DataInputStream in, int rows) throws IOException {
+            values = new int[rows];
+            for (int row = 0; row < rows; row++) {
+                values[row] = in.readInt();
+            }
+            size = rows;
+        }
+    }
+
+    // Epoch seconds (Long.MIN_VALUE for null) plus nanos, wall-clock as stored
+    private static final class TimestampColumn extends Column {
+        private long[] seconds = new long[1024];
+        private int[] nanos = new int[1024];
+        private int size;
+
+        @Override
+        void append(ResultSet rs, int index) throws SQLException {
+            if (size == seconds.length) {
+                seconds = Arrays.copyOf(seconds, size * 2);
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            LocalDateTime value = rs.getObject(index, LocalDateTime.class);
+            seconds[size] = value == null ? Long.MIN_VALUE : value.toEpochSecond(ZoneOffset.UTC);
+            nanos[size] = value == null ? 0 : value.getNano();
+            size++;
+        }
+
+        @Override
+        Object get(int row) {
+            return seconds[row] == Long.MIN_VALUE ? null
+                    : LocalDateTime.ofEpochSecond(seconds[row], nanos[row], ZoneOffset.UTC);
+        }
+
+        @Override
+        void write(DataOutputStream out, int rows) throws IOException {
+            for (int row = 0; row < rows; row++) {
+                out.writeLong(seconds[row]);
+                out.writeInt(nanos[row]);
+            }
+        }
+
+        @Override
+        void read(DataInputStream in, int rows) throws IOException {
+            seconds = new long[rows];
+            nanos = new int[rows];
+            for (int row = 0; row < rows; row++) {
+                seconds[row] = in.readLong();
+                nanos[row] = in.readInt();
+            }
+            size = rows;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.chatbot.backend.service;
+
+import java.util.List;
+
+// The keyword rules the chatbot has always answered to. Priorities keep the original
+// if/else order for questions that score the same for several intents.
+public class DefaultIntentRuleTable implements IntentRuleTable {
+
+    private static final List<IntentRule> RULES = List.of(
+            IntentRule.of(Intent.CATEGORIES, "category"),
+            IntentRule.of(Intent.CATEGORIES, "categories"),
+            IntentRule.of(Intent.BRANDS, "brand"),
+            IntentRule.of(Intent.ORDER_STATUS, "order status"),
+            IntentRule.of(Intent.ORDER_STATUS, "track order"),
+            IntentRule.of(Intent.ORDER_STATUS, "track my order"),
+            IntentRule.of(Intent.ORDER_STATUS, "status of order"),
+            IntentRule.of(Intent.ORDER_STATUS, "status of my order"),
+            IntentRule.of(Intent.STOCK, "stock"),
+            IntentRule.of(Intent.STOCK, "available"),
+            IntentRule.of(Intent.STOCK, "availability"),
+            IntentRule.of(Intent.STOCK, "inventory"),
+            IntentRule.of(Intent.TOP_PRODUCTS, "top"),
+            IntentRule.of(Intent.TOP_PRODUCTS, "popular"),
+            IntentRule.of(Intent.TOP_PRODUCTS, "best selling"),
+            IntentRule.of(Intent.TOP_PRODUCTS, "best-selling"),
+            IntentRule.of(Intent.PRODUCT_SEARCH, "find"),
+            IntentRule.of(Intent.PRODUCT_SEARCH, "search"),
+            IntentRule.of(Intent.PRODUCT_SEARCH, "looking for"));
+
+    @Override
+    public List<IntentRule> rules() {
+        return RULES;
+    }
+
+    @Override
+    public int priority(Intent intent) {
+        switch (intent) {
+            case CATEGORIES:
+                return 60;
+            case BRANDS:
+                return 50;
+            case ORDER_STATUS:
+                return 40;
+            case STOCK:
+                return 30;
+            case TOP_PRODUCTS:
+                return 20;
+            case PRODUCT_SEARCH:
+                return 10;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.model.DistributionCenter;
+import com.chatbot.backend.model.Product;
+import com.chatbot.backend.repository.DistributionCenterRepository;
+import com.chatbot.backend.repository.ProductRepository;
+import com.chatbot.backend.util.WordTrie;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+// Gazetteer built from the loaded catalog. Product-name words, brands, categories and departments
+// share one WordTrie vocabulary, so each question word is resolved once (exactly, or within a small
+// edit distance for misspellings) and then matched against multi-word entity phrases and per-word
+// product postings (name, brand, category and department words). The result carries product ids, so callers can query by key instead of LIKE.
+// Distribution center names are phrases too ("Memphis TN", or just "Memphis"); their words never count as product words.
+@Service
+public class EntityExtractor {
+
+    private enum EntityType { BRAND, CATEGORY, DEPARTMENT, DISTRIBUTION_CENTER }
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "a", "an", "for", "of", "in", "on", "at", "to", "with", "by", "and", "or", "from",
+            "how", "many", "much", "what", "which", "is", "are", "do", "does", "did", "you", "your", "have", "has",
+            "we", "i", "im", "me", "my", "it", "its", "there", "theres", "any", "some", "all", "left", "can", "could",
+            "would", "please", "show", "tell", "give", "list", "get", "want", "need", "hi", "hello", "hey", "thanks",
+            "find", "search", "looking", "stock", "available", "availability", "inventory", "units", "unit",
+            "order", "orders", "status", "track", "products", "product", "items", "item", "price", "priced",
+            "category", "categories", "brand", "brands", "department", "cost", "costs", "dollars", "usd", "bucks",
+            "dc", "warehouse", "distribution", "center", "centre");
+    private static final Set<String> MAX_PRICE_WORDS = Set.of("under", "below", "less", "cheaper", "max", "maximum", "upto");
+    private static final Set<String> MIN_PRICE_WORDS = Set.of("over", "above", "more", "min", "minimum", "least");
+    private static final Set<String> PRICE_UNITS = Set.of("dollars", "usd", "bucks");
+
+    private final ProductRepository productRepository;
+    private final DistributionCenterRepository distributionCenterRepository;
+    private volatile Gazetteer gazetteer = new Gazetteer(List.of(), List.of());
+
+    @Autowired
+    public EntityExtractor(ProductRepository productRepository, DistributionCenterRepository distributionCenterRepository) {
+        this.productRepository = productRepository;
+        this.distributionCenterRepository = distributionCenterRepository;
+    }
+
+    @EventListener
+    @Order(DataLoadedEvent.REBUILD)
+    public void onDataLoaded(DataLoadedEvent event) {
+        rebuild();
+    }
+
+    public void rebuild() {
+        rebuild(productRepository.findAll(), distributionCenterRepository.findAll());
+    }
+
+    void rebuild(List<Product> products, List<DistributionCenter> centers) {
+        long start = System.currentTimeMillis();
+        Gazetteer rebuilt = new Gazetteer(products, centers);
+        gazetteer = rebuilt;
+        System.out.println("Entity gazetteer rebuilt: " + rebuilt.vocabulary.size() + " words over "
+                + products.size() + " products in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public ExtractedEntities extract(String question) {
+        Gazetteer current = gazetteer;
+        List<Token> tokens = tokenize(question == null ? "" : question);
+        int[][] candidates = new int[tokens.size()][];
+
+        String orderId = null;
+        Double minPrice = null;
+        Double maxPrice = null;
+        Map<EntityType, String> entities = new EnumMap<>(EntityType.class);
+        List<Integer> productWords = new ArrayList<>();
+
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.hasDigit()) {
+                // Numbers are prices when the wording says so, otherwise the first one is the order id
+                PriceBound bound = token.numeric() ? priceBound(tokens, i) : PriceBound.NONE;
+                if (bound == PriceBound.MAX) {
+                    maxPrice = Double.parseDouble(token.text());
+                } else if (bound == PriceBound.MIN) {
+                    minPrice = Double.parseDouble(token.text());
+                } else if (bound == PriceBound.NONE) {
+                    if (orderId == null) {
+                        orderId = token.text().toUpperCase(Locale.ROOT);
+                    }
+                    // Model numbers such as "501" also count towards the product
+                    if (current.vocabulary.id(token.text()) >= 0) {
+                        productWords.add(i);
+                    }
+                }
+                continue;
+            }
+            if (!STOP_WORDS.contains(token.text()) && !MAX_PRICE_WORDS.contains(token.text())
+                    && !MIN_PRICE_WORDS.contains(token.text()) && !token.text().equals("than")) {
+                productWords.add(i);
+            }
+        }
+
+        // Entity phrases, longest match first at each position
+        boolean[] inFacet = new boolean[tokens.size()];
+        boolean[] inCenter = new boolean[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            Gazetteer.Phrase best = null;
+            for (int wordId : current.candidates(tokens, candidates, i)) {
+                for (Gazetteer.Phrase phrase : current.phrasesByFirstWord.getOrDefault(wordId, List.of())) {
+                    if ((best == null || phrase.wordIds().length > best.wordIds().length)
+                            && current.matchesAt(phrase, tokens, candidates, i)) {
+                        best = phrase;
+                    }
+                }
+            }
+            if (best != null) {
+                entities.putIfAbsent(best.type(), best.value());
+                boolean[] covered = best.type() == EntityType.DISTRIBUTION_CENTER ? inCenter : inFacet;
+                Arrays.fill(covered, i, i + best.wordIds().length, true);
+            }
+        }
+
+        // Product words are ANDed like the words of a product name; words the catalog has never
+        // seen are dropped unless nothing else is known
+        List<String> known = new ArrayList<>();
+        List<String> all = new ArrayList<>();
+        int[] productIndexes = null;
+        boolean facetsOnly = true;
+        for (int i : productWords) {
+            if (inCenter[i]) {
+                continue;
+            }
+            all.add(tokens.get(i).text());
+            int[] words = current.candidates(tokens, candidates, i);
+            if (words.length == 0) {
+                continue;
+            }
+            known.add(tokens.get(i).text());
+            facetsOnly &= inFacet[i];
+            int[] postings = current.union(words);
+            productIndexes = productIndexes == null ? postings : intersect(productIndexes, postings);
+        }
+        String productTerm = !known.isEmpty() ? String.join(" ", known) : all.isEmpty() ? null : String.join(" ", all);
+        List<String> productIds = new ArrayList<>();
+        if (productIndexes != null) {
+            for (int index : productIndexes) {
+                productIds.add(current.productIds[index]);
+            }
+        }
+        return new ExtractedEntities(productTerm, productIds, entities.get(EntityType.BRAND),
+                entities.get(EntityType.CATEGORY), entities.get(EntityType.DEPARTMENT),
+                entities.get(EntityType.DISTRIBUTION_CENTER), orderId, minPrice, maxPrice, !known.isEmpty() && facetsOnly);
+    }
+
+    private enum PriceBound { NONE, MIN, MAX, UNBOUNDED }
+
+    // Looks at the two words before a number ("under 50", "less than $50", "between 20 and 40")
+    private static PriceBound priceBound(List<Token> tokens, int i) {
+        for (int back = 1; back <= 2 && i - back >= 0; back++) {
+            String word = tokens.get(i - back).text();
+            if (MAX_PRICE_WORDS.contains(word)) {
+                return PriceBound.MAX;
+            }
+            if (MIN_PRICE_WORDS.contains(word) || word.equals("between")) {
+                return PriceBound.MIN;
+            }
+            if (word.equals("and") && i - back - 1 >= 0 && tokens.get(i - back - 1).numeric()
+                    && i - back - 2 >= 0 && tokens.get(i - back - 2).text().equals("between")) {
+                return PriceBound.MAX;
+            }
+            if (!word.equals("than")) {
+                break;
+            }
+        }
+        Token token = tokens.get(i);
+        boolean unit = i + 1 < tokens.size() && PRICE_UNITS.contains(tokens.get(i + 1).text());
+        return token.currency() || unit || token.text().contains(".") ? PriceBound.UNBOUNDED : PriceBound.NONE;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // Lowercase words with possessives folded ("levi's" -> "levi"); decimals stay one token
+    private record Token(String text, boolean numeric, boolean hasDigit, boolean currency) {
+    }
+
+    private static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < lower.length()) {
+            char c = lower.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                i++;
+                continue;
+            }
+            boolean currency = i > 0 && lower.charAt(i - 1) == '$';
+            StringBuilder word = new StringBuilder();
+            boolean numeric = true;
+            boolean hasDigit = false;
+            boolean decimal = false;
+            while (i < lower.length()) {
+                char ch = lower.charAt(i);
+                if (Character.isLetterOrDigit(ch)) {
+                    word.append(ch);
+                    // Only ASCII digits parse as a number; "٥٠" is a word like any other
+                    numeric &= isAsciiDigit(ch);
+                    hasDigit |= Character.isDigit(ch);
+                    i++;
+                } else if ((ch == '.' || ch == ',') && numeric && hasDigit && !decimal && i + 1 < lower.length()
+                        && isAsciiDigit(lower.charAt(i + 1))) {
+                    // "1,200.50" is one number; a second point ends it, so "1.2.3" is "1.2" and "3"
+                    if (ch == '.') {
+                        word.append(ch);
+                        decimal = true;
+                    }
+                    i++;
+                } else if ((ch == '\'' || ch == '’') && i + 1 < lower.length() && Character.isLetter(lower.charAt(i + 1))) {
+                    // Drop the possessive "'s" and keep other contractions joined ("don't" -> "dont")
+                    if (lower.charAt(i + 1) == 's' && (i + 2 == lower.length() || !Character.isLetterOrDigit(lower.charAt(i + 2)))) {
+                        i += 2;
+                        break;
+                    }
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            tokens.add(new Token(word.toString(), numeric, hasDigit, currency));
+        }
+        return tokens;
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int maxEdits(String word) {
+        return word.length() >= 8 ? 2 : word.length() >= 4 ? 1 : 0;
+    }
+
+    // Immutable lookup structures for one catalog load
+    private static final class Gazetteer {
+
+        record Phrase(EntityType type, String value, int[] wordIds) {
+        }
+
+        final WordTrie vocabulary = new WordTrie();
+        final String[] productIds;
+        final int[][] postings;
+        final Map<Integer, List<Phrase>> phrasesByFirstWord = new HashMap<>();
+
+        Gazetteer(List<Product> products, List<DistributionCenter> centers) {
+            productIds = new String[products.size()];
+            List<List<Integer>> postingLists = new ArrayList<>();
+            Map<String, EntityType> phrases = new LinkedHashMap<>();
+            for (int p = 0; p < products.size(); p++) {
+                Product product = products.get(p);
+                productIds[p] = product.getId();
+                // A product is found by the words of its name, brand, category and department
+                String words = String.join(" ", Objects.toString(product.getName(), ""), Objects.toString(product.getBrand(), ""),
+                        Objects.toString(product.getCategory(), ""), Objects.toString(product.getDepartment(), ""));
+                for (Token token : tokenize(words)) {
+                    int id = vocabulary.add(token.text());
+                    while (postingLists.size() <= id) {
+                        postingLists.add(new ArrayList<>());
+                    }
+                    List<Integer> posting = postingLists.get(id);
+                    if (posting.isEmpty() || posting.get(posting.size() - 1) != p) {
+                        posting.add(p);
+                    }
+                }
+                addPhrase(phrases, product.getBrand(), EntityType.BRAND);
+                addPhrase(phrases, product.getCategory(), EntityType.CATEGORY);
+                addPhrase(phrases, product.getDepartment(), EntityType.DEPARTMENT);
+            }
+            for (Map.Entry<String, EntityType> entry : phrases.entrySet()) {
+                List<Token> words = tokenize(entry.getKey());
+                if (words.isEmpty()) {
+                    continue;
+                }
+                int[] wordIds = words.stream().mapToInt(token -> vocabulary.add(token.text())).toArray();
+                phrasesByFirstWord.computeIfAbsent(wordIds[0], k -> new ArrayList<>())
+                        .add(new Phrase(entry.getValue(), entry.getKey(), wordIds));
+            }
+            // Centers resolve to their id, by full name or by the city without its state codes
+            for (DistributionCenter center : centers) {
+                String name = Objects.toString(center.getName(), "").trim();
+                for (String alias : new LinkedHashSet<>(List.of(name, name.replaceAll("(\\s+[A-Z]{2}(/[A-Z]{2})*)+$", "")))) {
+                    int[] wordIds = tokenize(alias).stream().mapToInt(token -> vocabulary.add(token.text())).toArray();
+                    if (wordIds.length > 0) {
+                        phrasesByFirstWord.computeIfAbsent(wordIds[0], k -> new ArrayList<>())
+                                .add(new Phrase(EntityType.DISTRIBUTION_CENTER, center.getId(), wordIds));
+                    }
+                }
+            }
+            postings = new int[vocabulary.size()][];
+            for (int id = 0; id < postings.length; id++) {
+                postings[id] = id < postingLists.size()
+                        ? postingLists.get(id).stream().mapToInt(Integer::intValue).toArray()
+                        : new int[0];
+            }
+        }
+
+        private static void addPhrase(Map<String, EntityType> phrases, String value, EntityType type) {
+            if (value != null && !value.isBlank()) {
+                phrases.putIfAbsent(value, type);
+            }
+        }
+
+        // Vocabulary words for token i: the exact word if known, otherwise the closest misspellings
+        int[] candidates(List<Token> tokens, int[][] cache, int i) {
+            if (cache[i] != null) {
+                return cache[i];
+            }
+            String text = tokens.get(i).text();
+            int exact = vocabulary.id(text);
+            if (exact >= 0) {
+                return cache[i] = new int[] {exact};
+            }
+            int[] bestDistance = {Integer.MAX_VALUE};
+            List<Integer> best = new ArrayList<>();
+            vocabulary.search(text, maxEdits(text), (wordId, distance) -> {
+                if (distance < bestDistance[0]) {
+                    bestDistance[0] = distance;
+                    best.clear();
+                }
+                if (distance == bestDistance[0]) {
+                    best.add(wordId);
+                }
+            });
+            return cache[i] = best.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        boolean matchesAt(Phrase phrase, List<Token> tokens, int[][] cache, int start) {
+            int[] wordIds = phrase.wordIds();
+            if (start + wordIds.length > tokens.size()) {
+                return false;
+            }
+            for (int w = 0; w < wordIds.length; w++) {
+                int wanted = wordIds[w];
+                if (Arrays.stream(candidates(tokens, cache, start + w)).noneMatch(id -> id == wanted)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Sorted union of the postings of several vocabulary words
+        int[] union(int[] wordIds) {
+            if (wordIds.length == 1) {
+                return postings[wordIds[0]];
+            }
+            return Arrays.stream(wordIds).flatMap(id -> Arrays.stream(postings[id])).distinct().sorted().toArray();
+        }
+    }
+}
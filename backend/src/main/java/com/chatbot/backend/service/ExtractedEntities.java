@@ -0,0 +1,35 @@
+package com.chatbot.backend.service;
+
+import java.util.List;
+
+// Typed entities found in a chat question. productTerm is the product wording the user used and
+// productIds the catalog products it resolves to; the remaining fields are null when not mentioned.
+// facetsOnly is true when every recognised product word belongs to a brand, category or department
+// phrase, so those filters alone describe the products the user asked about.
+public record ExtractedEntities(String productTerm,
+                                List<String> productIds,
+                                String brand,
+                                String category,
+                                String department,
+                                String distributionCenterId,
+                                String orderId,
+                                Double minPrice,
+                                Double maxPrice,
+                                boolean facetsOnly) {
+
+    public boolean hasProductTerm() {
+        return productTerm != null;
+    }
+
+    public StockFilter stockFilter() {
+        return new StockFilter(category, brand, department, distributionCenterId);
+    }
+
+    public boolean hasPriceBounds() {
+        return minPrice != null || maxPrice != null;
+    }
+
+    public boolean withinPriceBounds(double price) {
+        return (minPrice == null || price >= minPrice) && (maxPrice == null || price <= maxPrice);
+    }
+}
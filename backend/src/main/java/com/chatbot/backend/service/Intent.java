@@ -0,0 +1,12 @@
+package com.chatbot.backend.service;
+
+// What a chat question is asking for
+public enum Intent {
+    CATEGORIES,
+    BRANDS,
+    ORDER_STATUS,
+    STOCK,
+    TOP_PRODUCTS,
+    PRODUCT_SEARCH,
+    UNKNOWN
+}
@@ -0,0 +1,62 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.util.PhraseMatcher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Scores every intent in a single pass over the question. All rule phrases are compiled into one
+// PhraseMatcher; each occurrence adds its rule's weight to that intent, the highest score wins and
+// IntentRuleTable.priority breaks ties.
+@Service
+public class IntentClassifier {
+
+    // Outcome of one classification; scores holds every intent that matched at least once
+    public record Classification(Intent intent, Map<Intent, Integer> scores) {
+    }
+
+    private final IntentRuleTable ruleTable;
+    private final PhraseMatcher<IntentRule> matcher;
+
+    @Autowired
+    public IntentClassifier(ObjectProvider<IntentRuleTable> ruleTable) {
+        this(ruleTable.getIfAvailable(DefaultIntentRuleTable::new));
+    }
+
+    public IntentClassifier(IntentRuleTable ruleTable) {
+        this.ruleTable = ruleTable;
+        PhraseMatcher.Builder<IntentRule> builder = PhraseMatcher.builder();
+        for (IntentRule rule : ruleTable.rules()) {
+            builder.add(rule.phrase(), rule);
+        }
+        this.matcher = builder.build();
+        System.out.println("Compiled " + matcher.size() + " intent rules");
+    }
+
+    public Classification classify(String question) {
+        if (question == null || question.isEmpty()) {
+            return new Classification(Intent.UNKNOWN, Collections.emptyMap());
+        }
+        int[] scores = new int[Intent.values().length];
+        matcher.scan(question, rule -> scores[rule.intent().ordinal()] += rule.weight());
+
+        Intent best = Intent.UNKNOWN;
+        Map<Intent, Integer> matched = new EnumMap<>(Intent.class);
+        for (Intent intent : Intent.values()) {
+            int score = scores[intent.ordinal()];
+            if (score <= 0) {
+                continue;
+            }
+            matched.put(intent, score);
+            if (best == Intent.UNKNOWN || score > scores[best.ordinal()]
+                    || (score == scores[best.ordinal()] && ruleTable.priority(intent) > ruleTable.priority(best))) {
+                best = intent;
+            }
+        }
+        return new Classification(best, matched);
+    }
+}
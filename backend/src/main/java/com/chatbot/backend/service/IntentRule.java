@@ -0,0 +1,10 @@
+package com.chatbot.backend.service;
+
+// A phrase that votes for an intent; weight defaults to the phrase's word count so that
+// specific phrases like "order status" outvote single words like "brand"
+public record IntentRule(Intent intent, String phrase, int weight) {
+
+    public static IntentRule of(Intent intent, String phrase) {
+        return new IntentRule(intent, phrase, phrase.trim().split("\\s+").length);
+    }
+}
@@ -0,0 +1,12 @@
+package com.chatbot.backend.service;
+
+import java.util.List;
+
+// Source of the rules IntentClassifier compiles; declare a bean of this type to replace the defaults
+public interface IntentRuleTable {
+
+    List<IntentRule> rules();
+
+    // Breaks ties between intents with equal scores; higher wins
+    int priority(Intent intent);
+}
@@ -0,0 +1,329 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.repository.InventoryItemRepository;
+import com.chatbot.backend.util.RoaringBitmap;
+import com.chatbot.backend.util.StringDictionary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Compressed bitmaps over inventory_items row ordinals: one of unsold rows and one per category,
+// brand, department and distribution center value. An availability question such as "Levi's jeans
+// at the Memphis DC" becomes an intersection of a few bitmaps and a cardinality, with no table scan.
+// Rebuilt on every data load; sell/restock flip the item's bit in the unsold bitmap.
+@Service
+public class InventoryBitmapIndex {
+
+    public enum Facet { CATEGORY, BRAND, DEPARTMENT, DISTRIBUTION_CENTER }
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final StringDictionaries dictionaries;
+    // Bitmaps are mutable; readers share the lock, sell/restock and rebuild take it exclusively
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index;
+
+    @Autowired
+    public InventoryBitmapIndex(InventoryItemRepository inventoryItemRepository, StringDictionaries dictionaries) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.dictionaries = dictionaries;
+        this.index = new Index(List.of(), dictionaries.labels());
+    }
+
+    @EventListener
+    @Order(DataLoadedEvent.REBUILD)
+    public void onDataLoaded(DataLoadedEvent event) {
+        rebuild();
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Index rebuilt = new Index(inventoryItemRepository.findFacetRows(), dictionaries.labels());
+        lock.writeLock().lock();
+        try {
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Inventory bitmap index built: " + rebuilt.rows + " rows, " + rebuilt.bitmapCount() + " bitmaps, "
+                + rebuilt.bitmapBytes() / 1024 + " KB (" + rebuilt.uncompressedBytes() / 1024 + " KB as plain bitsets) plus "
+                + rebuilt.ordinals.sizeInBytes() / 1024 + " KB of item id lookup in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public long countAvailable(StockFilter filter) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> bitmaps = index.bitmapsFor(filter);
+            return bitmaps == null ? 0 : RoaringBitmap.andCardinality(bitmaps);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Available units per value of one facet within the filter, largest first; values with none are left out
+    public Map<String, Long> facetCounts(Facet facet, StockFilter filter) {
+        List<Map.Entry<String, Long>> counts = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> bitmaps = index.bitmapsFor(filter);
+            if (bitmaps == null) {
+                return Map.of();
+            }
+            for (Map.Entry<String, RoaringBitmap> value : index.facets.get(facet).entrySet()) {
+                bitmaps.add(value.getValue());
+                long count = RoaringBitmap.andCardinality(bitmaps);
+                bitmaps.remove(bitmaps.size() - 1);
+                if (count > 0) {
+                    counts.add(Map.entry(index.labels.get(facet).get(value.getKey()), count));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        counts.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Long> result = new LinkedHashMap<>();
+        counts.forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    public void markSold(String inventoryItemId) {
+        update(inventoryItemId, false);
+    }
+
+    public void markRestocked(String inventoryItemId) {
+        update(inventoryItemId, true);
+    }
+
+    public long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return index.sizeInBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(String inventoryItemId, boolean available) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = index.ordinals.get(inventoryItemId);
+            // Items added after the last load are not indexed until the next rebuild
+            if (ordinal < 0) {
+                return;
+            }
+            if (available) {
+                index.unsold.add(ordinal);
+            } else {
+                index.unsold.remove(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static String key(Facet facet, String value) {
+        return facet == Facet.DISTRIBUTION_CENTER ? value : value.toLowerCase(Locale.ROOT);
+    }
+
+    // Bitmaps for one load. Rows are numbered in category, brand, department and center order, so
+    // each facet value covers a few long stretches of ordinals and its bitmap compresses to runs.
+    private static final class Index {
+        final int rows;
+        final Ordinals ordinals;
+        final RoaringBitmap unsold = new RoaringBitmap();
+        final Map<Facet, Map<String, RoaringBitmap>> facets = new EnumMap<>(Facet.class);
+        final Map<Facet, Map<String, String>> labels = new EnumMap<>(Facet.class);
+
+        Index(List<Object[]> unordered, StringDictionary dictionary) {
+            // Bucket by facet combination, keyed by the four label codes packed into a long, then lay
+            // the (few hundred) buckets out in value order. Once the label dictionary is full, a row
+            // with a value it cannot encode is bucketed by the values themselves instead.
+            Map<Object, List<Object[]>> buckets = new HashMap<>();
+            Set<String> unencoded = new TreeSet<>();
+            for (Object[] row : unordered) {
+                long combination = 0;
+                boolean encoded = true;
+                for (int column = 1; column <= 4; column++) {
+                    String value = (String) row[column];
+                    int code = dictionary.encode(value);
+                    if (code == StringDictionary.NOT_ENCODED && value != null) {
+                        encoded = false;
+                        unencoded.add(value);
+                    }
+                    combination = combination << 16 | (code + 1);
+                }
+                Object bucket = encoded ? combination : Arrays.asList(row[1], row[2], row[3], row[4]);
+                buckets.computeIfAbsent(bucket, k -> new ArrayList<>()).add(row);
+            }
+            if (!unencoded.isEmpty()) {
+                System.out.println("Label dictionary is full (" + dictionary.maxSize() + " values); " + unencoded.size()
+                        + " inventory facet values were bucketed without codes, e.g. " + unencoded.iterator().next());
+            }
+            Comparator<Object[]> valueOrder = Comparator.comparing((Object[] row) -> String.valueOf(row[1]))
+                    .thenComparing(row -> String.valueOf(row[2]))
+                    .thenComparing(row -> String.valueOf(row[3]))
+                    .thenComparing(row -> String.valueOf(row[4]));
+            List<Object[]> rows = new ArrayList<>(unordered.size());
+            buckets.values().stream()
+                    .sorted(Comparator.comparing(bucket -> bucket.get(0), valueOrder))
+                    .forEach(rows::addAll);
+            this.rows = rows.size();
+            for (Facet facet : Facet.values()) {
+                facets.put(facet, new HashMap<>());
+                labels.put(facet, new HashMap<>());
+            }
+            String[] ids = new String[rows.size()];
+            for (int ordinal = 0; ordinal < rows.size(); ordinal++) {
+                Object[] row = rows.get(ordinal);
+                ids[ordinal] = (String) row[0];
+                add(Facet.CATEGORY, (String) row[1], ordinal);
+                add(Facet.BRAND, (String) row[2], ordinal);
+                add(Facet.DEPARTMENT, (String) row[3], ordinal);
+                add(Facet.DISTRIBUTION_CENTER, (String) row[4], ordinal);
+                if (row[5] == null) {
+                    unsold.add(ordinal);
+                }
+            }
+            facets.values().forEach(values -> values.values().forEach(RoaringBitmap::runOptimize));
+            ordinals = Ordinals.of(ids);
+        }
+
+        private void add(Facet facet, String value, int ordinal) {
+            if (value == null || value.isBlank()) {
+                return;
+            }
+            String key = key(facet, value);
+            labels.get(facet).putIfAbsent(key, value);
+            facets.get(facet).computeIfAbsent(key, k -> new RoaringBitmap()).add(ordinal);
+        }
+
+        // The unsold bitmap plus one per filtered facet; null when a filter value is unknown
+        List<RoaringBitmap> bitmapsFor(StockFilter filter) {
+            List<RoaringBitmap> bitmaps = new ArrayList<>(6);
+            bitmaps.add(unsold);
+            String[] values = {filter.category(), filter.brand(), filter.department(), filter.distributionCenterId()};
+            for (Facet facet : Facet.values()) {
+                String value = values[facet.ordinal()];
+                if (value == null) {
+                    continue;
+                }
+                RoaringBitmap bitmap = facets.get(facet).get(key(facet, value));
+                if (bitmap == null) {
+                    return null;
+                }
+                bitmaps.add(bitmap);
+            }
+            return bitmaps;
+        }
+
+        int bitmapCount() {
+            return 1 + facets.values().stream().mapToInt(Map::size).sum();
+        }
+
+        long sizeInBytes() {
+            return bitmapBytes() + ordinals.sizeInBytes();
+        }
+
+        long bitmapBytes() {
+            long bytes = unsold.sizeInBytes();
+            for (Map<String, RoaringBitmap> values : facets.values()) {
+                for (RoaringBitmap bitmap : values.values()) {
+                    bytes += bitmap.sizeInBytes();
+                }
+            }
+            return bytes;
+        }
+
+        long uncompressedBytes() {
+            return (long) bitmapCount() * ((rows + 7) / 8);
+        }
+    }
+
+    // Item id -> row ordinal as sorted parallel arrays searched by bisection. Ids that are all plain
+    // numbers (as in the shipped dataset) are kept as longs, 12 bytes a row; otherwise as strings.
+    private static final class Ordinals {
+        private final long[] numericIds;
+        private final String[] ids;
+        private final int[] ordinalsById;
+
+        private Ordinals(long[] numericIds, String[] ids, int[] ordinalsById) {
+            this.numericIds = numericIds;
+            this.ids = ids;
+            this.ordinalsById = ordinalsById;
+        }
+
+        static Ordinals of(String[] idsByOrdinal) {
+            int size = idsByOrdinal.length;
+            long[] numbers = new long[size];
+            boolean numeric = true;
+            for (int ordinal = 0; ordinal < size && numeric; ordinal++) {
+                numbers[ordinal] = parseCanonical(idsByOrdinal[ordinal]);
+                numeric = numbers[ordinal] >= 0;
+            }
+            Integer[] order = new Integer[size];
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                order[ordinal] = ordinal;
+            }
+            if (numeric) {
+                Arrays.sort(order, Comparator.comparingLong(ordinal -> numbers[ordinal]));
+            } else {
+                Arrays.sort(order, Comparator.comparing(ordinal -> idsByOrdinal[ordinal]));
+            }
+            long[] sortedNumbers = numeric ? new long[size] : null;
+            String[] sortedIds = numeric ? null : new String[size];
+            int[] ordinalsById = new int[size];
+            for (int i = 0; i < size; i++) {
+                if (numeric) {
+                    sortedNumbers[i] = numbers[order[i]];
+                } else {
+                    sortedIds[i] = idsByOrdinal[order[i]];
+                }
+                ordinalsById[i] = order[i];
+            }
+            return new Ordinals(sortedNumbers, sortedIds, ordinalsById);
+        }
+
+        // The item's row ordinal, or -1 when it is not indexed
+        int get(String id) {
+            int position;
+            if (numericIds != null) {
+                long number = parseCanonical(id);
+                position = number < 0 ? -1 : Arrays.binarySearch(numericIds, number);
+            } else {
+                position = id == null ? -1 : Arrays.binarySearch(ids, id);
+            }
+            return position < 0 ? -1 : ordinalsById[position];
+        }
+
+        long sizeInBytes() {
+            long bytes = 48 + 4L * ordinalsById.length;
+            if (numericIds != null) {
+                return bytes + 8L * numericIds.length;
+            }
+            for (String id : ids) {
+                bytes += 4 + 40 + id.length();
+            }
+            return bytes;
+        }
+
+        // The id as a non-negative number when it is written exactly as Long.toString would; -1 otherwise
+        private static long parseCanonical(String id) {
+            if (id == null || id.isEmpty() || id.length() > 18 || (id.length() > 1 && id.charAt(0) == '0')) {
+                return -1;
+            }
+            long value = 0;
+            for (int i = 0; i < id.length(); i++) {
+                char c = id.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.chatbot.backend.service;
+
+// Per-file import figures reported at the end of a load
+public record LoadStats(String fileName, long rows, long millis) {
+
+    public static LoadStats skipped(String fileName) {
+        return new LoadStats(fileName, 0, 0);
+    }
+
+    public long rowsPerSecond() {
+        return millis == 0 ? rows : rows * 1000 / millis;
+    }
+
+    @Override
+    public String toString() {
+        return fileName + ": " + rows + " rows in " + millis + " ms (" + rowsPerSecond() + " rows/s)";
+    }
+}
@@ -0,0 +1,181 @@
+package com.chatbot.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Writes rows straight through JDBC with multi-row upserts: no entity state, no persistence
+// context and no select-before-merge per assigned id. Upserts are written for H2 (MERGE ... KEY)
+// and MySQL 8.0.19+ (INSERT ... AS new ON DUPLICATE KEY UPDATE); other databases are not supported.
+@Component
+public class NativeBulkWriter {
+
+    private enum Dialect { H2, MYSQL, GENERIC }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int rowsPerStatement;
+    private final Map<String, String> statements = new ConcurrentHashMap<>();
+    private volatile Dialect dialect;
+    private volatile String databaseName;
+
+    @Autowired
+    public NativeBulkWriter(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${chatbot.loader.native.rows-per-statement:100}") int rowsPerStatement) {
+        if (rowsPerStatement <= 0) {
+            throw new IllegalArgumentException("chatbot.loader.native.rows-per-statement must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rowsPerStatement = rowsPerStatement;
+    }
+
+    // Whether this database has an upsert form the writer knows; loads fall back to JPA when not
+    public boolean supportsUpserts() {
+        return dialect() != Dialect.GENERIC;
+    }
+
+    public String getDatabaseName() {
+        dialect();
+        return databaseName;
+    }
+
+    public <T> void write(TableLayout<T> layout, List<T> entities) {
+        List<Object[]> rows = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            rows.add(layout.values(entity));
+        }
+        writeRows(layout, rows);
+    }
+
+    // Rows are upserted on the key column, matching what JpaRepository.saveAll does for assigned ids
+    public void writeRows(TableLayout<?> layout, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int columnCount = layout.getColumns().size();
+        int fullStatements = rows.size() / rowsPerStatement;
+        int remainder = rows.size() % rowsPerStatement;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (fullStatements > 0) {
+                List<Object[]> batch = new ArrayList<>(fullStatements);
+                for (int s = 0; s < fullStatements; s++) {
+                    batch.add(flatten(rows, s * rowsPerStatement, rowsPerStatement, columnCount));
+                }
+                jdbcTemplate.batchUpdate(statement(layout, rowsPerStatement), batch, argumentTypes(layout, rowsPerStatement));
+            }
+            if (remainder > 0) {
+                Object[] args = flatten(rows, fullStatements * rowsPerStatement, remainder, columnCount);
+                jdbcTemplate.update(statement(layout, remainder), args, argumentTypes(layout, remainder));
+            }
+        });
+    }
+
+    // Sets one column of existing rows, given as (key, value) pairs, with multi-row
+    // UPDATE ... SET column = CASE key WHEN ? THEN ? ... END WHERE key IN (...) statements
+    public void updateColumn(TableLayout<?> layout, String column, List<Object[]> keyValues) {
+        if (keyValues.isEmpty()) {
+            return;
+        }
+        int valueType = layout.getSqlType(layout.getColumns().indexOf(column));
+        int keyType = layout.getSqlType(layout.getColumns().indexOf(layout.getKeyColumn()));
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < keyValues.size(); from += rowsPerStatement) {
+                int count = Math.min(rowsPerStatement, keyValues.size() - from);
+                Object[] args = new Object[count * 3];
+                int[] types = new int[count * 3];
+                for (int r = 0; r < count; r++) {
+                    Object[] pair = keyValues.get(from + r);
+                    args[2 * r] = pair[0];
+                    args[2 * r + 1] = pair[1];
+                    args[2 * count + r] = pair[0];
+                    types[2 * r] = keyType;
+                    types[2 * r + 1] = valueType;
+                    types[2 * count + r] = keyType;
+                }
+                String sql = statements.computeIfAbsent(layout.getTable() + "." + column + "#" + count,
+                        key -> buildColumnUpdate(layout, column, count));
+                jdbcTemplate.update(sql, args, types);
+            }
+        });
+    }
+
+    private static Object[] flatten(List<Object[]> rows, int from, int count, int columnCount) {
+        Object[] args = new Object[count * columnCount];
+        for (int r = 0; r < count; r++) {
+            System.arraycopy(rows.get(from + r), 0, args, r * columnCount, columnCount);
+        }
+        return args;
+    }
+
+    private static int[] argumentTypes(TableLayout<?> layout, int rowCount) {
+        int[] columnTypes = layout.getSqlTypes();
+        int[] types = new int[columnTypes.length * rowCount];
+        for (int r = 0; r < rowCount; r++) {
+            System.arraycopy(columnTypes, 0, types, r * columnTypes.length, columnTypes.length);
+        }
+        return types;
+    }
+
+    private String statement(TableLayout<?> layout, int rowCount) {
+        return statements.computeIfAbsent(layout.getTable() + "#" + rowCount, key -> buildStatement(layout, rowCount));
+    }
+
+    private String buildStatement(TableLayout<?> layout, int rowCount) {
+        List<String> columns = layout.getColumns();
+        String columnList = String.join(", ", columns);
+        String placeholders = "(" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        String values = String.join(", ", Collections.nCopies(rowCount, placeholders));
+
+        switch (dialect()) {
+            case H2:
+                return "MERGE INTO " + layout.getTable() + " (" + columnList + ") KEY (" + layout.getKeyColumn() + ") VALUES " + values;
+            case MYSQL:
+                List<String> updates = new ArrayList<>();
+                for (String column : columns) {
+                    if (!column.equals(layout.getKeyColumn())) {
+                        updates.add(column + " = new." + column);
+                    }
+                }
+                return "INSERT INTO " + layout.getTable() + " (" + columnList + ") VALUES " + values
+                        + " AS new ON DUPLICATE KEY UPDATE " + String.join(", ", updates);
+            default:
+                // A plain INSERT would fail on the rows a previous load already wrote
+                throw new IllegalStateException("Native bulk writes need upserts, which are only supported on H2 and MySQL, not "
+                        + databaseName + "; use chatbot.loader.mode=jpa");
+        }
+    }
+
+    private static String buildColumnUpdate(TableLayout<?> layout, String column, int rowCount) {
+        String key = layout.getKeyColumn();
+        return "UPDATE " + layout.getTable() + " SET " + column + " = CASE " + key
+                + String.join("", Collections.nCopies(rowCount, " WHEN ? THEN ?")) + " ELSE " + column + " END"
+                + " WHERE " + key + " IN (" + String.join(", ", Collections.nCopies(rowCount, "?")) + ")";
+    }
+
+    private Dialect dialect() {
+        Dialect current = dialect;
+        if (current == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            String name = product == null ? "" : product.toLowerCase(Locale.ROOT);
+            current = name.contains("h2") ? Dialect.H2 : name.contains("mysql") ? Dialect.MYSQL : Dialect.GENERIC;
+            databaseName = product;
+            dialect = current;
+        }
+        return current;
+    }
+}
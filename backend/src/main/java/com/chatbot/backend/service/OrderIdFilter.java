@@ -0,0 +1,107 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.dto.OrderIdFilterStatistics;
+import com.chatbot.backend.repository.OrderRepository;
+import com.chatbot.backend.util.BloomFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bloom filter over every order id in the database, so order lookups for ids that cannot exist
+// (typos, words picked up as ids, bot traffic) are answered without a query. Rebuilt after a full
+// load; an incremental load adds the ids it wrote. Removed ids stay in the filter, which only costs
+// a query, until the next rebuild. Until the first build every id is let through.
+@Service
+public class OrderIdFilter {
+
+    private final OrderRepository orderRepository;
+    private final double falsePositiveRate;
+    private final double headroom;
+    private volatile BloomFilter filter;
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    @Autowired
+    public OrderIdFilter(OrderRepository orderRepository,
+                         @Value("${chatbot.order-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                         @Value("${chatbot.order-filter.headroom:1.25}") double headroom) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("chatbot.order-filter.false-positive-rate must be between 0 and 1");
+        }
+        if (headroom < 1) {
+            throw new IllegalArgumentException("chatbot.order-filter.headroom must be at least 1");
+        }
+        this.orderRepository = orderRepository;
+        this.falsePositiveRate = falsePositiveRate;
+        this.headroom = headroom;
+    }
+
+    @EventListener
+    @Order(DataLoadedEvent.REBUILD)
+    public void onDataLoaded(DataLoadedEvent event) {
+        BloomFilter current = filter;
+        if (!event.isIncremental() || current == null) {
+            rebuild();
+            return;
+        }
+        DataLoadedEvent.TableChanges changes = event.changes(TableLayouts.ORDERS.getTable());
+        if (entries.get() + changes.changedKeys().size() > current.expectedEntries()) {
+            // Past its capacity the filter lets more and more misses through
+            rebuild();
+            return;
+        }
+        changes.changedKeys().forEach(this::add);
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<String> orderIds = orderRepository.findAllOrderIds();
+        BloomFilter rebuilt = new BloomFilter((long) Math.ceil(orderIds.size() * headroom), falsePositiveRate);
+        orderIds.forEach(rebuilt::add);
+        filter = rebuilt;
+        entries.set(orderIds.size());
+        System.out.println("Order id filter built: " + orderIds.size() + " ids, " + rebuilt.sizeInBytes() / 1024 + " KB, "
+                + rebuilt.numHashes() + " hashes in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // For orders written outside a data load
+    public void add(String orderId) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.add(orderId);
+            entries.incrementAndGet();
+        }
+    }
+
+    // False when the order certainly does not exist
+    public boolean mightExist(String orderId) {
+        lookups.incrementAndGet();
+        BloomFilter current = filter;
+        if (orderId == null || (current != null && !current.mightContain(orderId))) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    // Called when an id the filter let through was not found
+    public void recordFalsePositive() {
+        falsePositives.incrementAndGet();
+    }
+
+    public OrderIdFilterStatistics getStatistics() {
+        BloomFilter current = filter;
+        long misses = rejected.get() + falsePositives.get();
+        return new OrderIdFilterStatistics(entries.get(), current == null ? 0 : current.expectedEntries(),
+                current == null ? 0 : current.sizeInBytes(), current == null ? 0 : current.numHashes(),
+                current == null ? 1.0 : current.falsePositiveRate(), lookups.get(), rejected.get(), falsePositives.get(),
+                misses == 0 ? 0.0 : (double) falsePositives.get() / misses);
+    }
+}
@@ -0,0 +1,21 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.dto.PageResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+final class Paging {
+
+    private Paging() {
+    }
+
+    // The first size rows of those following the previous page, and a cursor to the next page
+    // if rows remain. Callers pass at least size + 1 rows when there are more.
+    static <T> PageResponse<T> page(List<T> remaining, int size, Function<T, String> cursorOf) {
+        List<T> items = new ArrayList<>(remaining.subList(0, Math.min(size, remaining.size())));
+        String nextCursor = remaining.size() > size ? cursorOf.apply(items.get(items.size() - 1)) : null;
+        return new PageResponse<>(items, nextCursor);
+    }
+}
@@ -0,0 +1,86 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.dto.CacheStatistics;
+import com.chatbot.backend.dto.ProductCard;
+import com.chatbot.backend.dto.ProductCardJson;
+import com.chatbot.backend.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Product cards serialized to JSON once per product. Product lists in chat answers are made of these
+// shared fragments, so answering a search costs a cache lookup per product instead of a map, boxed
+// fields and a reflective serialization. Bounded by the size of the fragments; a data load drops
+// the cards of the products it changed (all of them after a full load).
+@Service
+public class ProductCardCache {
+
+    private final ObjectWriter writer;
+    private final Cache<String, ProductCardJson> cards;
+
+    @Autowired
+    public ProductCardCache(ObjectMapper objectMapper, @Value("${chatbot.cache.cards.max-bytes:16777216}") long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("chatbot.cache.cards.max-bytes must be positive");
+        }
+        this.writer = objectMapper.writerFor(ProductCard.class);
+        this.cards = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String id, ProductCardJson card) -> card.sizeInBytes())
+                .recordStats()
+                .build();
+    }
+
+    @EventListener
+    @Order(DataLoadedEvent.REBUILD)
+    public void onDataLoaded(DataLoadedEvent event) {
+        if (!event.isIncremental()) {
+            cards.invalidateAll();
+            return;
+        }
+        DataLoadedEvent.TableChanges changes = event.changes(TableLayouts.PRODUCTS.getTable());
+        cards.invalidateAll(changes.changedKeys());
+        cards.invalidateAll(changes.removedKeys());
+    }
+
+    // One card per product, in the same order
+    public List<ProductCardJson> cardsOf(List<Product> products) {
+        List<ProductCardJson> result = new ArrayList<>(products.size());
+        for (Product product : products) {
+            result.add(cards.get(product.getId(), id -> serialize(ProductCard.of(product))));
+        }
+        return result;
+    }
+
+    // Cards of the given projections, e.g. from ProductRepository.findCardsByIdIn
+    public List<ProductCardJson> cardsOfProjections(List<ProductCard> projections) {
+        List<ProductCardJson> result = new ArrayList<>(projections.size());
+        for (ProductCard projection : projections) {
+            result.add(cards.get(projection.id(), id -> serialize(projection)));
+        }
+        return result;
+    }
+
+    public CacheStatistics getStatistics() {
+        return Caches.statistics("chat.product-cards", cards);
+    }
+
+    private ProductCardJson serialize(ProductCard card) {
+        try {
+            return new ProductCardJson(card.id(), writer.writeValueAsString(card));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
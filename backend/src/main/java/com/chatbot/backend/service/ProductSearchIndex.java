@@ -0,0 +1,330 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.model.Product;
+import com.chatbot.backend.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+// In-memory full-text index over the catalog: an inverted index of the words of each product's
+// name, brand, category and department, ranked with BM25. Query words of three or more letters also
+// match as prefixes ("jack" finds "jacket"). Products matching every query word rank first; when none
+// does, the best partial matches are returned instead. Only the top K are materialized.
+// A full load rebuilds the index; an incremental load re-indexes just the products it changed.
+@Service
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_WEIGHT = 0.8;
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    public record Hit(Product product, double score) {
+    }
+
+    // A place in the ranking (score descending, then product id), to resume a search after
+    public record Position(double score, String productId) {
+
+        boolean isBefore(double otherScore, String otherId) {
+            return otherScore < score || (otherScore == score && otherId.compareTo(productId) > 0);
+        }
+    }
+
+    // complete is true when every hit matched every query word; totalMatches counts all such products
+    public record Result(List<Hit> hits, int totalMatches, boolean complete) {
+
+        public List<Product> products() {
+            return hits.stream().map(Hit::product).toList();
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index;
+
+    @Autowired
+    public ProductSearchIndex(ProductRepository productRepository,
+                              @Value("${chatbot.search.default-limit:20}") int defaultLimit,
+                              @Value("${chatbot.search.max-limit:100}") int maxLimit) {
+        if (defaultLimit <= 0 || maxLimit < defaultLimit) {
+            throw new IllegalArgumentException("chatbot.search limits must satisfy 0 < default-limit <= max-limit");
+        }
+        this.productRepository = productRepository;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    @EventListener
+    @Order(DataLoadedEvent.REBUILD)
+    public void onDataLoaded(DataLoadedEvent event) {
+        if (!event.isIncremental() || !isBuilt()) {
+            rebuild();
+            return;
+        }
+        DataLoadedEvent.TableChanges changes = event.changes(TableLayouts.PRODUCTS.getTable());
+        if (!changes.changedKeys().isEmpty() || !changes.removedKeys().isEmpty()) {
+            apply(productRepository.findAllById(changes.changedKeys()), changes.removedKeys());
+        }
+    }
+
+    public void rebuild() {
+        rebuild(productRepository.findAll());
+    }
+
+    void rebuild(List<Product> products) {
+        long start = System.currentTimeMillis();
+        Index rebuilt = new Index();
+        products.forEach(rebuilt::add);
+        lock.writeLock().lock();
+        try {
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Product search index built: " + rebuilt.liveDocs + " products, " + rebuilt.terms.size()
+                + " terms in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // Re-indexes changed products and drops removed ones
+    void apply(Collection<Product> changed, Collection<String> removedIds) {
+        lock.writeLock().lock();
+        try {
+            removedIds.forEach(index::remove);
+            for (Product product : changed) {
+                index.remove(product.getId());
+                index.add(product);
+            }
+            if (index.deletedDocs > index.liveDocs / 4) {
+                index = index.compacted();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Product search index updated: " + changed.size() + " changed, " + removedIds.size() + " removed");
+    }
+
+    public int getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public Result search(String query, int limit) {
+        return search(query, limit, product -> true);
+    }
+
+    // The best `limit` products (capped at chatbot.search.max-limit) among those passing the filter
+    public Result search(String query, int limit, Predicate<Product> filter) {
+        return search(query, Math.min(limit, maxLimit), filter, null);
+    }
+
+    // The next `limit` products of the ranking after a position (from the top when null), for
+    // pages whose size the caller bounds; totalMatches still counts every match
+    public Result search(String query, int limit, Predicate<Product> filter, Position after) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(tokenize(query == null ? "" : query)));
+        int k = Math.max(1, limit);
+        lock.readLock().lock();
+        try {
+            if (words.isEmpty() || index == null || index.liveDocs == 0) {
+                return new Result(List.of(), 0, false);
+            }
+            return index.search(words, k, filter, after);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isBuilt() {
+        lock.readLock().lock();
+        try {
+            return index != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lowercase words with the possessive "'s" dropped, like the chat entity extractor
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= lower.length(); i++) {
+            char c = i < lower.length() ? lower.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+                continue;
+            }
+            if ((c == '\'' || c == '’') && word.length() > 0 && i + 1 < lower.length() && Character.isLetter(lower.charAt(i + 1))) {
+                boolean possessive = lower.charAt(i + 1) == 's'
+                        && (i + 2 == lower.length() || !Character.isLetterOrDigit(lower.charAt(i + 2)));
+                if (!possessive) {
+                    continue;
+                }
+                i++;
+            }
+            if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return words;
+    }
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+        // Live documents containing the term, for IDF
+        int documentFrequency;
+
+        void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size++] = frequency;
+            documentFrequency++;
+        }
+    }
+
+    // Documents are appended; removal tombstones a document until the index is compacted
+    private static final class Index {
+        final List<Product> docs = new ArrayList<>();
+        final List<String[]> docTerms = new ArrayList<>();
+        int[] lengths = new int[64];
+        final Map<String, Integer> docIdsByProduct = new HashMap<>();
+        final TreeMap<String, Postings> terms = new TreeMap<>();
+        int liveDocs;
+        int deletedDocs;
+        long totalLength;
+
+        void add(Product product) {
+            int doc = docs.size();
+            List<String> words = tokenize(String.join(" ", Objects.toString(product.getName(), ""),
+                    Objects.toString(product.getBrand(), ""), Objects.toString(product.getCategory(), ""),
+                    Objects.toString(product.getDepartment(), "")));
+            Map<String, Integer> frequencies = new LinkedHashMap<>();
+            words.forEach(word -> frequencies.merge(word, 1, Integer::sum));
+            frequencies.forEach((word, frequency) -> terms.computeIfAbsent(word, w -> new Postings()).add(doc, frequency));
+            if (doc == lengths.length) {
+                lengths = Arrays.copyOf(lengths, doc * 2);
+            }
+            lengths[doc] = words.size();
+            docs.add(product);
+            docTerms.add(frequencies.keySet().toArray(new String[0]));
+            docIdsByProduct.put(product.getId(), doc);
+            liveDocs++;
+            totalLength += words.size();
+        }
+
+        void remove(String productId) {
+            Integer doc = docIdsByProduct.remove(productId);
+            if (doc == null) {
+                return;
+            }
+            for (String word : docTerms.get(doc)) {
+                terms.get(word).documentFrequency--;
+            }
+            docs.set(doc, null);
+            liveDocs--;
+            deletedDocs++;
+            totalLength -= lengths[doc];
+        }
+
+        Index compacted() {
+            Index compacted = new Index();
+            docs.stream().filter(Objects::nonNull).forEach(compacted::add);
+            return compacted;
+        }
+
+        Result search(List<String> words, int k, Predicate<Product> filter, Position after) {
+            int n = docs.size();
+            double averageLength = Math.max(1.0, (double) totalLength / liveDocs);
+            double[] scores = new double[n];
+            int[] matchedWords = new int[n];
+            double[] wordScores = new double[n];
+            int[] touched = new int[n];
+            for (String word : words) {
+                int touchedCount = 0;
+                int expansions = 0;
+                // The word itself and, for longer words, the terms it is a prefix of
+                SortedMap<String, Postings> matches = word.length() >= MIN_PREFIX_LENGTH
+                        ? terms.subMap(word, word + Character.MAX_VALUE)
+                        : (terms.containsKey(word) ? terms.subMap(word, word + "\u0000") : Collections.emptySortedMap());
+                for (Map.Entry<String, Postings> match : matches.entrySet()) {
+                    if (expansions++ == MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                    Postings postings = match.getValue();
+                    if (postings.documentFrequency == 0) {
+                        continue;
+                    }
+                    double weight = match.getKey().equals(word) ? 1.0 : PREFIX_WEIGHT;
+                    double idf = Math.log(1 + (liveDocs - postings.documentFrequency + 0.5) / (postings.documentFrequency + 0.5));
+                    for (int p = 0; p < postings.size; p++) {
+                        int doc = postings.docs[p];
+                        if (docs.get(doc) == null) {
+                            continue;
+                        }
+                        int tf = postings.frequencies[p];
+                        double score = weight * idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * lengths[doc] / averageLength));
+                        if (wordScores[doc] == 0) {
+                            touched[touchedCount++] = doc;
+                        }
+                        // A word counts once per product, through its best-scoring term
+                        wordScores[doc] = Math.max(wordScores[doc], score);
+                    }
+                }
+                for (int t = 0; t < touchedCount; t++) {
+                    int doc = touched[t];
+                    scores[doc] += wordScores[doc];
+                    matchedWords[doc]++;
+                    wordScores[doc] = 0;
+                }
+            }
+
+            int bestCoverage = 0;
+            for (int doc = 0; doc < n; doc++) {
+                if (matchedWords[doc] > bestCoverage && filter.test(docs.get(doc))) {
+                    bestCoverage = matchedWords[doc];
+                }
+            }
+            if (bestCoverage == 0) {
+                return new Result(List.of(), 0, false);
+            }
+            // Min-heap of the best k; ties go to the lower product id so results are stable
+            Comparator<Hit> order = Comparator.comparingDouble(Hit::score)
+                    .thenComparing(hit -> hit.product().getId(), Comparator.reverseOrder());
+            PriorityQueue<Hit> top = new PriorityQueue<>(k + 1, order);
+            int total = 0;
+            for (int doc = 0; doc < n; doc++) {
+                if (matchedWords[doc] != bestCoverage || !filter.test(docs.get(doc))) {
+                    continue;
+                }
+                total++;
+                if (after != null && !after.isBefore(scores[doc], docs.get(doc).getId())) {
+                    continue;
+                }
+                Hit hit = new Hit(docs.get(doc), scores[doc]);
+                if (top.size() < k) {
+                    top.add(hit);
+                } else if (order.compare(hit, top.peek()) > 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(order.reversed());
+            return new Result(hits, total, bestCoverage == words.size());
+        }
+    }
+}
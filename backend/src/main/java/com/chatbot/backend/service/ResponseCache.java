@@ -0,0 +1,156 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.dto.CacheStatistics;
+import com.chatbot.backend.dto.ChatResponse;
+import com.chatbot.backend.dto.ProductCardJson;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+// Chat answers keyed by the resolved intent and the entities that answer depends on, so questions
+// that differ only in case, punctuation or filler words ("what categories do you have?", "show
+// categories") share one entry. Each intent has its own time-to-live (chatbot.cache.response.ttl-seconds,
+// 0 disables caching for that intent) and the cache is bounded by the estimated size of the answers.
+@Service
+public class ResponseCache {
+
+    private static final Map<Intent, Duration> DEFAULT_TTLS = Map.of(
+            Intent.CATEGORIES, Duration.ofHours(1),
+            Intent.BRANDS, Duration.ofHours(1),
+            Intent.TOP_PRODUCTS, Duration.ofMinutes(1),
+            Intent.ORDER_STATUS, Duration.ofSeconds(30),
+            Intent.STOCK, Duration.ofSeconds(5),
+            Intent.PRODUCT_SEARCH, Duration.ofMinutes(5),
+            Intent.UNKNOWN, Duration.ofHours(1));
+
+    // generation lets invalidate(intent) retire one intent's entries without scanning the cache
+    record Key(Intent intent, long generation, List<Object> entities) {
+    }
+
+    private final Map<Intent, Duration> ttls = new EnumMap<>(Intent.class);
+    private final AtomicLongArray generations = new AtomicLongArray(Intent.values().length);
+    private final Cache<Key, ChatResponse> responses;
+
+    @Autowired
+    public ResponseCache(@Value("${chatbot.cache.response.ttl-seconds:}") String ttlSeconds,
+                         @Value("${chatbot.cache.response.max-bytes:33554432}") long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("chatbot.cache.response.max-bytes must be positive");
+        }
+        ttls.putAll(DEFAULT_TTLS);
+        ttls.putAll(parseTtls(ttlSeconds));
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, ChatResponse response) -> estimateBytes(response))
+                .expireAfter(Expiry.creating((Key key, ChatResponse response) -> ttls.get(key.intent())))
+                .recordStats()
+                .build();
+    }
+
+    @EventListener
+    @Order(DataLoadedEvent.AFTER_REBUILD)
+    public void onDataLoaded(DataLoadedEvent event) {
+        // Runs after the views have rebuilt. Answers still being computed from the old views were
+        // keyed under the old generations, so they can be stored but never served.
+        for (Intent intent : Intent.values()) {
+            invalidate(intent);
+        }
+        invalidateAll();
+    }
+
+    public void invalidateAll() {
+        responses.invalidateAll();
+    }
+
+    // Drops every cached answer for one intent, e.g. stock answers after a sale
+    public void invalidate(Intent intent) {
+        generations.incrementAndGet(intent.ordinal());
+    }
+
+    // The cached answer for the question, or the computed one. Hits are returned as copies
+    // flagged cached=true; the stored response itself is never modified.
+    public ChatResponse get(Intent intent, ExtractedEntities entities, Supplier<ChatResponse> answer) {
+        if (ttls.get(intent).isZero()) {
+            return answer.get();
+        }
+        boolean[] computed = {false};
+        ChatResponse response = responses.get(key(intent, entities), key -> {
+            computed[0] = true;
+            return answer.get();
+        });
+        if (computed[0]) {
+            return response;
+        }
+        return asHit(response);
+    }
+
+    // The cached answer as get() would return it, or null when there is none
+    public ChatResponse getIfPresent(Intent intent, ExtractedEntities entities) {
+        if (ttls.get(intent).isZero()) {
+            return null;
+        }
+        ChatResponse response = responses.getIfPresent(key(intent, entities));
+        return response == null ? null : asHit(response);
+    }
+
+    private static ChatResponse asHit(ChatResponse response) {
+        return new ChatResponse(response.getMessage(), response.getType(), response.getData(),
+                response.isSuccess(), response.getErrorMessage(), true);
+    }
+
+    public CacheStatistics getStatistics() {
+        return Caches.statistics("chat.responses", responses);
+    }
+
+    // Only the entities an intent's answer reads take part in its key
+    Key key(Intent intent, ExtractedEntities entities) {
+        long generation = generations.get(intent.ordinal());
+        List<Object> parts = switch (intent) {
+            case ORDER_STATUS -> Collections.singletonList(entities.orderId());
+            case STOCK -> Arrays.asList(entities.productTerm(), entities.productIds(), entities.stockFilter(), entities.facetsOnly());
+            case PRODUCT_SEARCH -> Arrays.asList(entities.productTerm(), entities.productIds(), entities.brand(), entities.category(),
+                    entities.minPrice(), entities.maxPrice());
+            default -> List.of();
+        };
+        return new Key(intent, generation, parts);
+    }
+
+    private static int estimateBytes(ChatResponse response) {
+        int bytes = 64 + 2 * (Objects.toString(response.getMessage(), "").length()
+                + Objects.toString(response.getErrorMessage(), "").length());
+        if (response.getData() != null) {
+            for (Object row : response.getData()) {
+                // Cards are shared with ProductCardCache, which accounts for their bytes
+                bytes += row instanceof ProductCardJson ? 16 : 48 + 2 * String.valueOf(row).length();
+            }
+        }
+        return bytes;
+    }
+
+    // "stock:5,order_status:30" -> per-intent durations
+    private static Map<Intent, Duration> parseTtls(String spec) {
+        Map<Intent, Duration> parsed = new EnumMap<>(Intent.class);
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("chatbot.cache.response.ttl-seconds entries look like intent:seconds, got " + entry);
+            }
+            Intent intent = Intent.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+            parsed.put(intent, Duration.ofSeconds(Long.parseLong(parts[1].trim())));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,222 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.dto.ProductSales;
+import com.chatbot.backend.model.Product;
+import com.chatbot.backend.repository.InventoryItemRepository;
+import com.chatbot.backend.repository.OrderItemRepository;
+import com.chatbot.backend.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Service
+public class SalesRankingService {
+
+    // Highest sales first, product id breaks ties so the ranking is stable between rebuilds
+    private static final Comparator<ProductSales> BY_SALES_DESC = Comparator
+            .comparingLong(ProductSales::getSalesCount).reversed()
+            .thenComparing(ProductSales::getId);
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final int topK;
+
+    // Guarded by "this"; boards are swapped as immutable lists so readers never lock
+    private Map<String, ProductSales> salesByProduct = new HashMap<>();
+    private final TopBoard overall;
+    private final Map<String, TopBoard> byCategory = new HashMap<>();
+    private final Map<String, TopBoard> byDepartment = new HashMap<>();
+    private volatile Map<String, List<ProductSales>> categorySnapshot = Map.of();
+    private volatile Map<String, List<ProductSales>> departmentSnapshot = Map.of();
+
+    @Autowired
+    public SalesRankingService(ProductRepository productRepository,
+                               OrderItemRepository orderItemRepository,
+                               InventoryItemRepository inventoryItemRepository,
+                               @Value("${chatbot.ranking.top-k:5}") int topK) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("chatbot.ranking.top-k must be positive");
+        }
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.topK = topK;
+        this.overall = new TopBoard(topK);
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    public List<ProductSales> getTopProducts(int limit) {
+        return head(overall.snapshot, limit);
+    }
+
+    public List<ProductSales> getTopProductsByCategory(String category, int limit) {
+        return head(categorySnapshot.getOrDefault(key(category), List.of()), limit);
+    }
+
+    public List<ProductSales> getTopProductsByDepartment(String department, int limit) {
+        return head(departmentSnapshot.getOrDefault(key(department), List.of()), limit);
+    }
+
+    @EventListener
+    @Order(DataLoadedEvent.REBUILD)
+    public void onDataLoaded(DataLoadedEvent event) {
+        rebuild();
+    }
+
+    // Full recount from the database; runs once per data load
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        // Order items know about cancellations and returns, sold inventory items do not; inventory
+        // sell-through only ranks a dataset that ships without order_items.csv
+        Map<String, Long> counts = orderItemRepository.count() > 0
+                ? toCountMap(orderItemRepository.countSoldByProduct())
+                : toCountMap(inventoryItemRepository.countSoldByProduct());
+
+        Map<String, ProductSales> rebuilt = new HashMap<>();
+        for (Product product : productRepository.findAll()) {
+            rebuilt.put(product.getId(), toSales(product, counts.getOrDefault(product.getId(), 0L)));
+        }
+        salesByProduct = rebuilt;
+
+        overall.reset(rebuilt.values());
+        byCategory.clear();
+        byDepartment.clear();
+        Map<String, List<ProductSales>> categoryGroups = new HashMap<>();
+        Map<String, List<ProductSales>> departmentGroups = new HashMap<>();
+        for (ProductSales sales : rebuilt.values()) {
+            categoryGroups.computeIfAbsent(key(sales.getCategory()), k -> new ArrayList<>()).add(sales);
+            departmentGroups.computeIfAbsent(key(sales.getDepartment()), k -> new ArrayList<>()).add(sales);
+        }
+        categoryGroups.forEach((group, members) -> byCategory.computeIfAbsent(group, k -> new TopBoard(topK)).reset(members));
+        departmentGroups.forEach((group, members) -> byDepartment.computeIfAbsent(group, k -> new TopBoard(topK)).reset(members));
+        publishGroupSnapshots();
+
+        System.out.println("Sales ranking rebuilt for " + rebuilt.size() + " products in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // Applies a sale (positive quantity) or a return/cancellation (negative quantity)
+    public synchronized void recordSale(String productId, long quantity) {
+        ProductSales current = salesByProduct.get(productId);
+        if (current == null || quantity == 0) {
+            return;
+        }
+        ProductSales updated = toSales(current, Math.max(0, current.getSalesCount() + quantity));
+        salesByProduct.put(productId, updated);
+
+        overall.update(updated, quantity < 0, () -> salesByProduct.values());
+        String category = key(updated.getCategory());
+        String department = key(updated.getDepartment());
+        byCategory.get(category).update(updated, quantity < 0, () -> groupMembers(ProductSales::getCategory, category));
+        byDepartment.get(department).update(updated, quantity < 0, () -> groupMembers(ProductSales::getDepartment, department));
+        publishGroupSnapshots();
+    }
+
+    private Collection<ProductSales> groupMembers(Function<ProductSales, String> attribute, String group) {
+        List<ProductSales> members = new ArrayList<>();
+        for (ProductSales sales : salesByProduct.values()) {
+            if (key(attribute.apply(sales)).equals(group)) {
+                members.add(sales);
+            }
+        }
+        return members;
+    }
+
+    private void publishGroupSnapshots() {
+        Map<String, List<ProductSales>> categories = new HashMap<>();
+        byCategory.forEach((group, board) -> categories.put(group, board.snapshot));
+        Map<String, List<ProductSales>> departments = new HashMap<>();
+        byDepartment.forEach((group, board) -> departments.put(group, board.snapshot));
+        categorySnapshot = categories;
+        departmentSnapshot = departments;
+    }
+
+    private List<ProductSales> head(List<ProductSales> board, int limit) {
+        int size = Math.min(Math.max(limit, 0), board.size());
+        return size == board.size() ? board : board.subList(0, size);
+    }
+
+    private static Map<String, Long> toCountMap(List<Object[]> rows) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    private static ProductSales toSales(Product product, long sold) {
+        return new ProductSales(product.getId(), product.getName(), product.getBrand(),
+                product.getCategory(), product.getDepartment(), product.getRetailPrice(), sold);
+    }
+
+    private static ProductSales toSales(ProductSales sales, long sold) {
+        return new ProductSales(sales.getId(), sales.getName(), sales.getBrand(),
+                sales.getCategory(), sales.getDepartment(), sales.getRetailPrice(), sold);
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Bounded top-K leaderboard; the published snapshot is what readers see
+    private static final class TopBoard {
+        private final int capacity;
+        private volatile List<ProductSales> snapshot = List.of();
+
+        TopBoard(int capacity) {
+            this.capacity = capacity;
+        }
+
+        // Keeps the K best in a min-heap so a rebuild is O(n log K)
+        void reset(Collection<ProductSales> members) {
+            PriorityQueue<ProductSales> heap = new PriorityQueue<>(capacity + 1, BY_SALES_DESC.reversed());
+            for (ProductSales sales : members) {
+                heap.offer(sales);
+                if (heap.size() > capacity) {
+                    heap.poll();
+                }
+            }
+            List<ProductSales> ordered = new ArrayList<>(heap);
+            ordered.sort(BY_SALES_DESC);
+            snapshot = List.copyOf(ordered);
+        }
+
+        void update(ProductSales updated, boolean decreased, Supplier<Collection<ProductSales>> members) {
+            List<ProductSales> current = snapshot;
+            boolean onBoard = current.stream().anyMatch(s -> s.getId().equals(updated.getId()));
+            if (decreased) {
+                // A product losing sales may be overtaken by one that is not tracked here
+                if (onBoard) {
+                    reset(members.get());
+                }
+                return;
+            }
+            if (!onBoard && current.size() == capacity
+                    && BY_SALES_DESC.compare(updated, current.get(capacity - 1)) > 0) {
+                return;
+            }
+            List<ProductSales> next = new ArrayList<>(current.size() + 1);
+            for (ProductSales sales : current) {
+                if (!sales.getId().equals(updated.getId())) {
+                    next.add(sales);
+                }
+            }
+            next.add(updated);
+            next.sort(BY_SALES_DESC);
+            if (next.size() > capacity) {
+                next.remove(next.size() - 1);
+            }
+            snapshot = List.copyOf(next);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.model.SourceFileState;
+import com.chatbot.backend.model.SourceRowHash;
+import com.chatbot.backend.repository.SourceFileStateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+// Bookkeeping for incremental imports into a persistent database. Each source file's checksum is
+// kept in source_file_state so unchanged files are skipped outright; for changed files the hash of
+// every imported row is kept in source_row_hashes so only new, changed and removed rows are written.
+// A file also counts as changed when its table layout did, so newly mapped columns get filled in.
+@Component
+public class SourceChangeTracker {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final SourceFileStateRepository sourceFileStateRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NativeBulkWriter nativeBulkWriter;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public SourceChangeTracker(SourceFileStateRepository sourceFileStateRepository,
+                               JdbcTemplate jdbcTemplate,
+                               NativeBulkWriter nativeBulkWriter,
+                               PlatformTransactionManager transactionManager) {
+        this.sourceFileStateRepository = sourceFileStateRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.nativeBulkWriter = nativeBulkWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isUnchanged(String fileName, long checksum, TableLayout<?> layout) {
+        return sourceFileStateRepository.findById(fileName)
+                .map(state -> state.getChecksum() == checksum
+                        && Objects.equals(state.getLayoutSignature(), layout.signature()))
+                .orElse(false);
+    }
+
+    // Loads the row hashes recorded for the layout's table; the delta is then fed every parsed row.
+    // Hashes recorded under another layout cannot be compared, so then every row is written again.
+    public <T> RowDelta<T> startDelta(String fileName, long checksum, TableLayout<T> layout) {
+        boolean layoutChanged = sourceFileStateRepository.findById(fileName)
+                .map(state -> !Objects.equals(state.getLayoutSignature(), layout.signature()))
+                .orElse(false);
+        String prefix = layout.getTable() + ":";
+        Map<String, Long> previous = new ConcurrentHashMap<>();
+        jdbcTemplate.query("SELECT id, row_hash FROM source_row_hashes WHERE table_name = ?",
+                rs -> {
+                    previous.put(rs.getString(1).substring(prefix.length()), rs.getLong(2));
+                }, layout.getTable());
+        return new RowDelta<>(fileName, checksum, layout, previous, layoutChanged);
+    }
+
+    // Applies deletions children first, then records the new hashes and file checksums, all in
+    // one transaction. Only called once every file has loaded, so a failed import is retried in full.
+    public void commit(Collection<RowDelta<?>> deltas) {
+        List<RowDelta<?>> ordered = new ArrayList<>(deltas);
+        ordered.sort(Comparator.comparingInt(delta -> TableLayouts.ALL.indexOf(delta.layout)));
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = ordered.size() - 1; i >= 0; i--) {
+                RowDelta<?> delta = ordered.get(i);
+                List<String> removed = delta.removedKeys();
+                if (removed.isEmpty()) {
+                    continue;
+                }
+                TableLayout<?> layout = delta.layout;
+                jdbcTemplate.batchUpdate("DELETE FROM " + layout.getTable() + " WHERE " + layout.getKeyColumn() + " = ?",
+                        removed.stream().map(key -> new Object[] {key}).toList());
+                jdbcTemplate.batchUpdate("DELETE FROM source_row_hashes WHERE id = ?",
+                        removed.stream().map(key -> new Object[] {layout.getTable() + ":" + key}).toList());
+            }
+            for (RowDelta<?> delta : ordered) {
+                nativeBulkWriter.write(TableLayouts.SOURCE_ROW_HASHES, new ArrayList<>(delta.changedHashes));
+                sourceFileStateRepository.save(new SourceFileState(delta.fileName, delta.checksum,
+                        delta.layout.signature(), delta.rows.get(), LocalDateTime.now()));
+            }
+        });
+    }
+
+    public static long checksum(Resource resource) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = resource.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    // 64-bit FNV-1a over the column values as the database would receive them
+    static long rowHash(Object[] values) {
+        long hash = FNV_OFFSET;
+        for (Object value : values) {
+            String text = value == null ? "\u0000" : value.toString();
+            for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+                hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+            }
+            hash = (hash ^ 0x1f) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    // Diff of one file against its previous import; safe to feed from several parser threads
+    public static final class RowDelta<T> {
+        private final String fileName;
+        private final long checksum;
+        private final TableLayout<T> layout;
+        private final int keyIndex;
+        private final Map<String, Long> previous;
+        private final boolean rewriteAll;
+        private final Queue<SourceRowHash> changedHashes = new ConcurrentLinkedQueue<>();
+        private final AtomicLong rows = new AtomicLong();
+
+        private RowDelta(String fileName, long checksum, TableLayout<T> layout, Map<String, Long> previous,
+                         boolean rewriteAll) {
+            this.fileName = fileName;
+            this.checksum = checksum;
+            this.layout = layout;
+            this.keyIndex = layout.getColumns().indexOf(layout.getKeyColumn());
+            this.previous = previous;
+            this.rewriteAll = rewriteAll;
+        }
+
+        // True if the row is new or differs from the previous import and so must be written
+        public boolean changed(T entity) {
+            Object[] values = layout.values(entity);
+            String key = String.valueOf(values[keyIndex]);
+            long hash = rowHash(values);
+            rows.incrementAndGet();
+            Long before = previous.remove(key);
+            if (before != null && before == hash && !rewriteAll) {
+                return false;
+            }
+            changedHashes.add(new SourceRowHash(layout.getTable() + ":" + key, layout.getTable(), hash));
+            return true;
+        }
+
+        public long changedRows() {
+            return changedHashes.size();
+        }
+
+        public String table() {
+            return layout.getTable();
+        }
+
+        // Keys of the rows that were new or differed from the previous import
+        public Set<String> changedKeys() {
+            Set<String> keys = new HashSet<>();
+            int prefix = layout.getTable().length() + 1;
+            changedHashes.forEach(hash -> keys.add(hash.getId().substring(prefix)));
+            return keys;
+        }
+
+        // Keys imported last time that no longer appear in the file
+        public List<String> removedKeys() {
+            return new ArrayList<>(previous.keySet());
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.dto.StockReconciliation;
+import com.chatbot.backend.model.InventoryItem;
+import com.chatbot.backend.repository.InventoryItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Available (unsold) inventory per product, per distribution center and per product x center,
+// held in lock-free counters so stock questions never count inventory_items rows. Counters are
+// seeded from one grouped query per data load, adjusted by sell/restock, and periodically
+// reconciled against the table.
+@Service
+public class StockCounterService {
+
+    private static final int MAX_RECONCILE_DETAILS = 20;
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final SalesRankingService salesRankingService;
+    private final InventoryBitmapIndex inventoryBitmapIndex;
+    private final ResponseCache responseCache;
+    private volatile Counters counters = new Counters(List.of());
+    // Sales and restocks share the read side: each marks the row and moves the counters under it, so
+    // they never block one another. Seeding and reconciliation take the write side, which keeps the
+    // table and the counters still while they are compared and lets only one recount run at a time.
+    private final ReentrantReadWriteLock recountLock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public StockCounterService(InventoryItemRepository inventoryItemRepository,
+                               SalesRankingService salesRankingService,
+                               InventoryBitmapIndex inventoryBitmapIndex,
+                               ResponseCache responseCache) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.salesRankingService = salesRankingService;
+        this.inventoryBitmapIndex = inventoryBitmapIndex;
+        this.responseCache = responseCache;
+    }
+
+    @EventListener
+    @Order(DataLoadedEvent.REBUILD)
+    public void onDataLoaded(DataLoadedEvent event) {
+        seed();
+    }
+
+    public void seed() {
+        long start = System.currentTimeMillis();
+        Counters seeded;
+        recountLock.writeLock().lock();
+        try {
+            seeded = new Counters(inventoryItemRepository.getAvailableStockByProductAndDistributionCenter());
+            counters = seeded;
+        } finally {
+            recountLock.writeLock().unlock();
+        }
+        System.out.println("Stock counters seeded for " + seeded.productIndex.size() + " products in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public long available(String productId) {
+        return counters.get(Counters.PRODUCT, productId);
+    }
+
+    public long available(String productId, String distributionCenterId) {
+        return counters.get(Counters.PAIR, Counters.pairKey(productId, distributionCenterId));
+    }
+
+    public long availableAtDistributionCenter(String distributionCenterId) {
+        return counters.get(Counters.CENTER, distributionCenterId);
+    }
+
+    // Marks an unsold item as sold; false if it was already sold
+    public boolean sell(String inventoryItemId) {
+        InventoryItem item = findItem(inventoryItemId);
+        Lock lock = recountLock.readLock();
+        lock.lock();
+        try {
+            if (inventoryItemRepository.markSold(inventoryItemId, LocalDateTime.now()) == 0) {
+                return false;
+            }
+            counters.add(item.getProductId(), item.getProductDistributionCenterId(), -1);
+            inventoryBitmapIndex.markSold(inventoryItemId);
+        } finally {
+            lock.unlock();
+        }
+        salesRankingService.recordSale(item.getProductId(), 1);
+        // Cached stock and best-seller answers are now out of date
+        responseCache.invalidate(Intent.STOCK);
+        responseCache.invalidate(Intent.TOP_PRODUCTS);
+        return true;
+    }
+
+    // Puts a sold item back on the shelf; false if it was not sold
+    public boolean restock(String inventoryItemId) {
+        InventoryItem item = findItem(inventoryItemId);
+        Lock lock = recountLock.readLock();
+        lock.lock();
+        try {
+            if (inventoryItemRepository.markRestocked(inventoryItemId) == 0) {
+                return false;
+            }
+            counters.add(item.getProductId(), item.getProductDistributionCenterId(), 1);
+            inventoryBitmapIndex.markRestocked(inventoryItemId);
+        } finally {
+            lock.unlock();
+        }
+        salesRankingService.recordSale(item.getProductId(), -1);
+        // Cached stock and best-seller answers are now out of date
+        responseCache.invalidate(Intent.STOCK);
+        responseCache.invalidate(Intent.TOP_PRODUCTS);
+        return true;
+    }
+
+    // Recounts from inventory_items and corrects any counter that drifted. Sales and restocks wait
+    // for the recount, so only changes made outside this service are corrected, and a scheduled run
+    // and a requested one never apply the same correction twice.
+    @Scheduled(initialDelayString = "${chatbot.stock.reconcile-interval-ms:300000}",
+            fixedDelayString = "${chatbot.stock.reconcile-interval-ms:300000}")
+    public StockReconciliation reconcile() {
+        recountLock.writeLock().lock();
+        try {
+            return recount();
+        } finally {
+            recountLock.writeLock().unlock();
+        }
+    }
+
+    private StockReconciliation recount() {
+        long start = System.currentTimeMillis();
+        Counters current = counters;
+        Map<String, Long> expected = new HashMap<>();
+        for (Object[] row : inventoryItemRepository.getAvailableStockByProductAndDistributionCenter()) {
+            String productId = String.valueOf(row[0]);
+            String centerId = String.valueOf(row[1]);
+            long count = ((Number) row[2]).longValue();
+            expected.merge(Counters.PRODUCT + productId, count, Long::sum);
+            expected.merge(Counters.CENTER + centerId, count, Long::sum);
+            expected.merge(Counters.PAIR + Counters.pairKey(productId, centerId), count, Long::sum);
+        }
+        Set<String> keys = new HashSet<>(expected.keySet());
+        keys.addAll(current.keys());
+
+        List<String> details = new ArrayList<>();
+        int mismatches = 0;
+        for (String key : keys) {
+            long want = expected.getOrDefault(key, 0L);
+            long have = current.get(key.substring(0, 2), key.substring(2));
+            if (want != have) {
+                current.addRaw(key, want - have);
+                mismatches++;
+                if (details.size() < MAX_RECONCILE_DETAILS) {
+                    details.add(key + ": " + have + " -> " + want);
+                }
+            }
+        }
+        if (mismatches > 0) {
+            System.out.println("Stock reconciliation corrected " + mismatches + " of " + keys.size() + " counters: " + details);
+            // The same drift is in the bitmap index's unsold set
+            inventoryBitmapIndex.rebuild();
+            responseCache.invalidate(Intent.STOCK);
+        }
+        long millis = System.currentTimeMillis() - start;
+        return new StockReconciliation(LocalDateTime.now(), keys.size(), mismatches, details, millis);
+    }
+
+    private InventoryItem findItem(String inventoryItemId) {
+        return inventoryItemRepository.findById(inventoryItemId)
+                .orElseThrow(() -> new RuntimeException("Inventory item not found with ID: " + inventoryItemId));
+    }
+
+    // One seeding's worth of counters. Keys known at seed time index into AtomicLongArrays; keys
+    // first seen later (new products or centers) fall back to striped LongAdders.
+    private static final class Counters {
+        static final String PRODUCT = "p:";
+        static final String CENTER = "c:";
+        static final String PAIR = "x:";
+
+        final Map<String, Integer> productIndex = new HashMap<>();
+        final Map<String, Integer> centerIndex = new HashMap<>();
+        final Map<String, Integer> pairIndex = new HashMap<>();
+        final AtomicLongArray byProduct;
+        final AtomicLongArray byCenter;
+        final AtomicLongArray byPair;
+        final Map<String, LongAdder> overflow = new ConcurrentHashMap<>();
+
+        Counters(List<Object[]> rows) {
+            long[] products = new long[rows.size()];
+            long[] centers = new long[rows.size()];
+            long[] pairs = new long[rows.size()];
+            for (Object[] row : rows) {
+                String productId = String.valueOf(row[0]);
+                String centerId = String.valueOf(row[1]);
+                long count = ((Number) row[2]).longValue();
+                products[productIndex.computeIfAbsent(productId, k -> productIndex.size())] += count;
+                centers[centerIndex.computeIfAbsent(centerId, k -> centerIndex.size())] += count;
+                pairs[pairIndex.computeIfAbsent(pairKey(productId, centerId), k -> pairIndex.size())] += count;
+            }
+            byProduct = new AtomicLongArray(Arrays.copyOf(products, productIndex.size()));
+            byCenter = new AtomicLongArray(Arrays.copyOf(centers, centerIndex.size()));
+            byPair = new AtomicLongArray(Arrays.copyOf(pairs, pairIndex.size()));
+        }
+
+        static String pairKey(String productId, String centerId) {
+            return productId + "|" + centerId;
+        }
+
+        long get(String kind, String key) {
+            Integer index = index(kind).get(String.valueOf(key));
+            long base = index == null ? 0 : array(kind).get(index);
+            LongAdder extra = overflow.get(kind + key);
+            return extra == null ? base : base + extra.sum();
+        }
+
+        // Null ids are counted under "null", as when seeding
+        void add(String productId, String centerId, long delta) {
+            addRaw(PRODUCT + productId, delta);
+            addRaw(CENTER + centerId, delta);
+            addRaw(PAIR + pairKey(productId, centerId), delta);
+        }
+
+        void addRaw(String key, long delta) {
+            String kind = key.substring(0, 2);
+            Integer index = index(kind).get(key.substring(2));
+            if (index != null) {
+                array(kind).addAndGet(index, delta);
+            } else {
+                overflow.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+            }
+        }
+
+        Set<String> keys() {
+            Set<String> keys = new HashSet<>(overflow.keySet());
+            productIndex.keySet().forEach(key -> keys.add(PRODUCT + key));
+            centerIndex.keySet().forEach(key -> keys.add(CENTER + key));
+            pairIndex.keySet().forEach(key -> keys.add(PAIR + key));
+            return keys;
+        }
+
+        private Map<String, Integer> index(String kind) {
+            return kind.equals(PRODUCT) ? productIndex : kind.equals(CENTER) ? centerIndex : pairIndex;
+        }
+
+        private AtomicLongArray array(String kind) {
+            return kind.equals(PRODUCT) ? byProduct : kind.equals(CENTER) ? byCenter : byPair;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.chatbot.backend.service;
+
+// Facet values an availability question is restricted to; null means any value. Category, brand and
+// department match case-insensitively, the distribution center by id.
+public record StockFilter(String category, String brand, String department, String distributionCenterId) {
+
+    public static final StockFilter ANY = new StockFilter(null, null, null, null);
+
+    public boolean isEmpty() {
+        return category == null && brand == null && department == null && distributionCenterId == null;
+    }
+}
@@ -0,0 +1,70 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.util.StringDictionary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// The dictionaries shared by the CSV loader and the in-memory views, so a repeated value is one
+// String instance in the database rows, the loader's chunks and every view built from them.
+// Labels are append-only and live as long as the application, so their codes are stable and views
+// can key on them. Identifier dictionaries only need to span one load: once the rows are stored
+// the database holds the shared instances, and keeping hundreds of thousands of map entries
+// around would cost more than it saves.
+@Service
+public class StringDictionaries {
+
+    // Low-cardinality text: categories, brands, departments, distribution center ids, statuses,
+    // genders, states, cities, countries and traffic sources
+    private final StringDictionary labels;
+    private final int maxIdentifiers;
+    // Product ids, names and SKUs, copied onto every inventory item and order item
+    private volatile StringDictionary products;
+    // User ids, referenced from orders and order items
+    private volatile StringDictionary users;
+
+    @Autowired
+    public StringDictionaries(@Value("${chatbot.dictionary.max-labels:65535}") int maxLabels,
+                              @Value("${chatbot.dictionary.max-identifiers:4000000}") int maxIdentifiers) {
+        // Views pack up to four label codes into a long, 16 bits each
+        if (maxLabels > 0xFFFF) {
+            throw new IllegalArgumentException("chatbot.dictionary.max-labels must be at most 65535");
+        }
+        this.labels = new StringDictionary(maxLabels);
+        this.maxIdentifiers = maxIdentifiers;
+        this.products = new StringDictionary(maxIdentifiers);
+        this.users = new StringDictionary(maxIdentifiers);
+    }
+
+    // Called when a load finishes
+    public void releaseIdentifiers() {
+        products = new StringDictionary(maxIdentifiers);
+        users = new StringDictionary(maxIdentifiers);
+    }
+
+    public String label(String value) {
+        return labels.intern(value);
+    }
+
+    public String product(String value) {
+        return products.intern(value);
+    }
+
+    public String user(String value) {
+        return users.intern(value);
+    }
+
+    public StringDictionary labels() {
+        return labels;
+    }
+
+    public long sizeInBytes() {
+        return labels.sizeInBytes() + products.sizeInBytes() + users.sizeInBytes();
+    }
+
+    @Override
+    public String toString() {
+        return labels.size() + " labels, " + products.size() + " product values, " + users.size() + " user ids ("
+                + sizeInBytes() / 1024 + " KB)";
+    }
+}
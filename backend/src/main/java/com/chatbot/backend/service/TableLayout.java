@@ -0,0 +1,93 @@
+package com.chatbot.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+
+// Column-level description of an entity table, used by loaders that write rows without JPA
+public final class TableLayout<T> {
+
+    private final String table;
+    private final String keyColumn;
+    private final List<String> columns;
+    private final int[] sqlTypes;
+    private final List<Function<T, Object>> extractors;
+
+    private TableLayout(Builder<T> builder) {
+        this.table = builder.table;
+        this.keyColumn = builder.keyColumn;
+        this.columns = List.copyOf(builder.columns);
+        this.sqlTypes = builder.sqlTypes.stream().mapToInt(Integer::intValue).toArray();
+        this.extractors = List.copyOf(builder.extractors);
+        if (!columns.contains(keyColumn)) {
+            throw new IllegalArgumentException("Key column " + keyColumn + " is not mapped for " + table);
+        }
+    }
+
+    public static <T> Builder<T> builder(String table, String keyColumn) {
+        return new Builder<>(table, keyColumn);
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    // java.sql.Types per column, in column order
+    public int[] getSqlTypes() {
+        return sqlTypes.clone();
+    }
+
+    public int getSqlType(int column) {
+        return sqlTypes[column];
+    }
+
+    // Changes whenever a column is added, removed, renamed or retyped
+    public long signature() {
+        CRC32C crc = new CRC32C();
+        crc.update((table + ":" + columns + Arrays.toString(sqlTypes)).getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    public Object[] values(T entity) {
+        Object[] values = new Object[extractors.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = extractors.get(i).apply(entity);
+        }
+        return values;
+    }
+
+    public static final class Builder<T> {
+        private final String table;
+        private final String keyColumn;
+        private final List<String> columns = new ArrayList<>();
+        private final List<Integer> sqlTypes = new ArrayList<>();
+        private final List<Function<T, Object>> extractors = new ArrayList<>();
+
+        private Builder(String table, String keyColumn) {
+            this.table = table;
+            this.keyColumn = keyColumn;
+        }
+
+        public Builder<T> column(String name, int sqlType, Function<T, Object> extractor) {
+            columns.add(name);
+            sqlTypes.add(sqlType);
+            extractors.add(extractor);
+            return this;
+        }
+
+        public TableLayout<T> build() {
+            return new TableLayout<>(this);
+        }
+    }
+}
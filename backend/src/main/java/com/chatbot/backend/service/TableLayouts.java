@@ -0,0 +1,103 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.model.*;
+
+import java.sql.Types;
+import java.util.List;
+
+// Table layouts matching the JPA mappings in com.chatbot.backend.model
+public final class TableLayouts {
+
+    public static final TableLayout<DistributionCenter> DISTRIBUTION_CENTERS = TableLayout.<DistributionCenter>builder("distribution_centers", "id")
+            .column("id", Types.VARCHAR, DistributionCenter::getId)
+            .column("name", Types.VARCHAR, DistributionCenter::getName)
+            .column("latitude", Types.DOUBLE, DistributionCenter::getLatitude)
+            .column("longitude", Types.DOUBLE, DistributionCenter::getLongitude)
+            .build();
+
+    public static final TableLayout<Product> PRODUCTS = TableLayout.<Product>builder("products", "id")
+            .column("id", Types.VARCHAR, Product::getId)
+            .column("cost", Types.DOUBLE, Product::getCost)
+            .column("category", Types.VARCHAR, Product::getCategory)
+            .column("name", Types.VARCHAR, Product::getName)
+            .column("brand", Types.VARCHAR, Product::getBrand)
+            .column("retail_price", Types.DOUBLE, Product::getRetailPrice)
+            .column("department", Types.VARCHAR, Product::getDepartment)
+            .column("sku", Types.VARCHAR, Product::getSku)
+            .column("distribution_center_id", Types.VARCHAR, Product::getDistributionCenterId)
+            .build();
+
+    public static final TableLayout<User> USERS = TableLayout.<User>builder("users", "id")
+            .column("id", Types.VARCHAR, User::getId)
+            .column("first_name", Types.VARCHAR, User::getFirstName)
+            .column("last_name", Types.VARCHAR, User::getLastName)
+            .column("email", Types.VARCHAR, User::getEmail)
+            .column("age", Types.INTEGER, User::getAge)
+            .column("gender", Types.VARCHAR, User::getGender)
+            .column("state", Types.VARCHAR, User::getState)
+            .column("street_address", Types.VARCHAR, User::getStreetAddress)
+            .column("postal_code", Types.VARCHAR, User::getPostalCode)
+            .column("city", Types.VARCHAR, User::getCity)
+            .column("country", Types.VARCHAR, User::getCountry)
+            .column("latitude", Types.DOUBLE, User::getLatitude)
+            .column("longitude", Types.DOUBLE, User::getLongitude)
+            .column("traffic_source", Types.VARCHAR, User::getTrafficSource)
+            .column("created_at", Types.TIMESTAMP, User::getCreatedAt)
+            .build();
+
+    public static final TableLayout<InventoryItem> INVENTORY_ITEMS = TableLayout.<InventoryItem>builder("inventory_items", "id")
+            .column("id", Types.VARCHAR, InventoryItem::getId)
+            .column("product_id", Types.VARCHAR, InventoryItem::getProductId)
+            .column("created_at", Types.TIMESTAMP, InventoryItem::getCreatedAt)
+            .column("sold_at", Types.TIMESTAMP, InventoryItem::getSoldAt)
+            .column("cost", Types.DOUBLE, InventoryItem::getCost)
+            .column("product_category", Types.VARCHAR, InventoryItem::getProductCategory)
+            .column("product_name", Types.VARCHAR, InventoryItem::getProductName)
+            .column("product_brand", Types.VARCHAR, InventoryItem::getProductBrand)
+            .column("product_retail_price", Types.DOUBLE, InventoryItem::getProductRetailPrice)
+            .column("product_department", Types.VARCHAR, InventoryItem::getProductDepartment)
+            .column("product_sku", Types.VARCHAR, InventoryItem::getProductSku)
+            .column("product_distribution_center_id", Types.VARCHAR, InventoryItem::getProductDistributionCenterId)
+            .build();
+
+    public static final TableLayout<Order> ORDERS = TableLayout.<Order>builder("orders", "order_id")
+            .column("order_id", Types.VARCHAR, Order::getOrderId)
+            .column("user_id", Types.VARCHAR, Order::getUserId)
+            .column("status", Types.VARCHAR, Order::getStatus)
+            .column("gender", Types.VARCHAR, Order::getGender)
+            .column("created_at", Types.TIMESTAMP, Order::getCreatedAt)
+            .column("returned_at", Types.TIMESTAMP, Order::getReturnedAt)
+            .column("shipped_at", Types.TIMESTAMP, Order::getShippedAt)
+            .column("delivered_at", Types.TIMESTAMP, Order::getDeliveredAt)
+            .column("num_of_item", Types.INTEGER, Order::getNumOfItem)
+            .column("total_amount", Types.DOUBLE, Order::getTotalAmount)
+            .build();
+
+    public static final TableLayout<OrderItem> ORDER_ITEMS = TableLayout.<OrderItem>builder("order_items", "id")
+            .column("id", Types.VARCHAR, OrderItem::getId)
+            .column("order_id", Types.VARCHAR, OrderItem::getOrderId)
+            .column("user_id", Types.VARCHAR, OrderItem::getUserId)
+            .column("product_id", Types.VARCHAR, OrderItem::getProductId)
+            .column("inventory_item_id", Types.VARCHAR, OrderItem::getInventoryItemId)
+            .column("status", Types.VARCHAR, OrderItem::getStatus)
+            .column("created_at", Types.TIMESTAMP, OrderItem::getCreatedAt)
+            .column("shipped_at", Types.TIMESTAMP, OrderItem::getShippedAt)
+            .column("delivered_at", Types.TIMESTAMP, OrderItem::getDeliveredAt)
+            .column("returned_at", Types.TIMESTAMP, OrderItem::getReturnedAt)
+            .column("sale_price", Types.DOUBLE, OrderItem::getSalePrice)
+            .build();
+
+    // Load bookkeeping for incremental imports; not part of the dataset itself
+    public static final TableLayout<SourceRowHash> SOURCE_ROW_HASHES = TableLayout.<SourceRowHash>builder("source_row_hashes", "id")
+            .column("id", Types.VARCHAR, SourceRowHash::getId)
+            .column("table_name", Types.VARCHAR, SourceRowHash::getTableName)
+            .column("row_hash", Types.BIGINT, SourceRowHash::getRowHash)
+            .build();
+
+    // Parents before children, the order the loader writes them in
+    public static final List<TableLayout<?>> ALL = List.of(
+            DISTRIBUTION_CENTERS, PRODUCTS, USERS, INVENTORY_ITEMS, ORDERS, ORDER_ITEMS);
+
+    private TableLayouts() {
+    }
+}
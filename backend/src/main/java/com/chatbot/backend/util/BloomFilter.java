@@ -0,0 +1,97 @@
+package com.chatbot.backend.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bloom filter over strings: mightContain() is false only for values that were never added, and true
+// for a value that was not added with roughly the configured false-positive rate as long as no more
+// than expectedEntries values go in. Each value sets numHashes bits chosen by double hashing
+// (h1 + i * h2) of one 64-bit hash. Thread-safe; values cannot be removed.
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+    private final long expectedEntries;
+
+    public BloomFilter(long expectedEntries, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        this.expectedEntries = Math.max(1, expectedEntries);
+        // m = -n ln p / (ln 2)^2 bits and k = m / n * ln 2 hashes minimise the false-positive rate
+        long bits = (long) Math.ceil(-this.expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.numBits = 64L * wordCount;
+        this.numHashes = (int) Math.max(1, Math.min(16, Math.round((double) numBits / this.expectedEntries * Math.log(2))));
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        long h1 = hash;
+        long h2 = mix(hash) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        long h1 = hash;
+        long h2 = mix(hash) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long expectedEntries() {
+        return expectedEntries;
+    }
+
+    public long numBits() {
+        return numBits;
+    }
+
+    public int numHashes() {
+        return numHashes;
+    }
+
+    public long sizeInBytes() {
+        return 16 + 8L * words.length();
+    }
+
+    // Chance that a value never added passes mightContain, from the fraction of bits set: fill^k
+    public double falsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) set / numBits, numHashes);
+    }
+
+    // FNV-1a over the chars, then a 64-bit finalizer to spread the low-entropy bits of short ids
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,21 @@
+package com.chatbot.backend.util;
+
+import java.time.LocalDateTime;
+
+// One CSV record with typed accessors, so numeric and timestamp columns can be parsed
+// without first materialising every cell as a String
+public interface CsvRow {
+
+    int size();
+
+    String string(int column);
+
+    boolean isEmpty(int column);
+
+    double doubleAt(int column);
+
+    int intAt(int column);
+
+    // null for an empty cell, as with TimestampParser.parse
+    LocalDateTime timestampAt(int column);
+}
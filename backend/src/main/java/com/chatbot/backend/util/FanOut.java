@@ -0,0 +1,80 @@
+package com.chatbot.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+
+// Runs independent tasks at the same time, each on its own virtual thread, and returns their results
+// in task order once all of them are done, so the call takes about as long as its slowest task rather
+// than the sum of them. Each task has its own deadline, counted from the start of the call: a task
+// that misses it is interrupted and its result replaced by fallback(index, TimeoutException), and a
+// task that fails is replaced by fallback(index, cause). Before returning, the call waits up to
+// CANCEL_GRACE_MILLIS for interrupted tasks to stop. A task that ignores interrupts for longer (e.g.
+// blocked in socket I/O) is left to finish in the background, still holding whatever it acquired.
+public final class FanOut {
+
+    static final long CANCEL_GRACE_MILLIS = 250;
+
+    private FanOut() {
+    }
+
+    public static <T> List<T> all(List<? extends Callable<T>> tasks, long deadlineMillis,
+                                  BiFunction<Integer, Throwable, T> fallback) {
+        if (deadlineMillis <= 0) {
+            throw new IllegalArgumentException("deadlineMillis must be positive");
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        // The executor counts a cancelled task as done at once, so task ends are tracked here
+        CountDownLatch finished = new CountDownLatch(tasks.size());
+        try {
+            List<Future<T>> futures = new ArrayList<>(tasks.size());
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        return task.call();
+                    } finally {
+                        finished.countDown();
+                    }
+                }));
+            }
+            List<T> results = new ArrayList<>(tasks.size());
+            for (int i = 0; i < futures.size(); i++) {
+                Future<T> future = futures.get(i);
+                try {
+                    results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    results.add(fallback.apply(i, e));
+                } catch (ExecutionException e) {
+                    results.add(fallback.apply(i, e.getCause()));
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + tasks.size() + " tasks", e);
+        } finally {
+            executor.shutdownNow();
+            awaitCancelled(finished, tasks.size());
+        }
+    }
+
+    private static void awaitCancelled(CountDownLatch finished, int taskCount) {
+        try {
+            if (!finished.await(CANCEL_GRACE_MILLIS, TimeUnit.MILLISECONDS)) {
+                System.out.println("Some of " + taskCount + " fanned-out tasks ignored cancellation and are still running");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.chatbot.backend.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Memory-mapped RFC 4180 CSV scanner for UTF-8 files on local disk. Cursors record field
+// offsets into the mapping instead of copying cells; only string(...) allocates. The file can be
+// cut into line-aligned ranges that are scanned on separate threads.
+public final class MappedCsvScanner {
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = new double[23];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    // Byte range [start, end) that begins at a record boundary
+    public record Range(int start, int end) {
+    }
+
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final int dataStart;
+
+    private MappedCsvScanner(MappedByteBuffer buffer, boolean skipHeader) {
+        this.buffer = buffer;
+        this.size = buffer.capacity();
+        this.dataStart = skipHeader ? nextRecord(0) : 0;
+    }
+
+    public static MappedCsvScanner open(Path file, boolean skipHeader) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map in one piece (" + length + " bytes)");
+            }
+            // The mapping stays valid after the channel is closed
+            return new MappedCsvScanner(channel.map(FileChannel.MapMode.READ_ONLY, 0, length), skipHeader);
+        }
+    }
+
+    // Splits the data rows into at most `parts` ranges that each start on a record boundary
+    public List<Range> split(int parts) {
+        List<Range> ranges = new ArrayList<>();
+        int target = Math.max(1, (size - dataStart) / Math.max(1, parts));
+        int start = dataStart;
+        int pos = dataStart;
+        boolean inQuotes = false;
+        int nextCut = start + target;
+        while (pos < size) {
+            byte b = buffer.get(pos++);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes && pos >= nextCut && ranges.size() < parts - 1) {
+                ranges.add(new Range(start, pos));
+                start = pos;
+                nextCut = start + target;
+            }
+        }
+        if (start < size) {
+            ranges.add(new Range(start, size));
+        }
+        return ranges;
+    }
+
+    public Cursor cursor() {
+        return new Cursor(dataStart, size);
+    }
+
+    public Cursor cursor(Range range) {
+        return new Cursor(range.start(), range.end());
+    }
+
+    private int nextRecord(int pos) {
+        boolean inQuotes = false;
+        while (pos < size) {
+            byte b = buffer.get(pos++);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes) {
+                return pos;
+            }
+        }
+        return size;
+    }
+
+    // Single-threaded iterator over the records of one range; the current record is the CsvRow
+    public final class Cursor implements CsvRow {
+        private final int end;
+        private final AsciiView view = new AsciiView();
+        private int pos;
+        private int fieldCount;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private boolean[] escaped = new boolean[16];
+
+        private Cursor(int start, int end) {
+            this.pos = start;
+            this.end = end;
+        }
+
+        // Advances to the next record; false at the end of the range
+        public boolean next() {
+            if (pos >= end) {
+                return false;
+            }
+            fieldCount = 0;
+            while (true) {
+                if (fieldCount == starts.length) {
+                    grow();
+                }
+                boolean quoted = pos < end && buffer.get(pos) == '"';
+                int fieldStart;
+                int fieldEnd;
+                boolean hasEscapes = false;
+                if (quoted) {
+                    fieldStart = ++pos;
+                    while (true) {
+                        if (pos >= end) {
+                            fieldEnd = pos;
+                            break;
+                        }
+                        if (buffer.get(pos) == '"') {
+                            if (pos + 1 < end && buffer.get(pos + 1) == '"') {
+                                hasEscapes = true;
+                                pos += 2;
+                                continue;
+                            }
+                            fieldEnd = pos++;
+                            break;
+                        }
+                        pos++;
+                    }
+                    // Tolerate stray characters between the closing quote and the delimiter
+                    while (pos < end && buffer.get(pos) != ',' && buffer.get(pos) != '\n') {
+                        pos++;
+                    }
+                } else {
+                    fieldStart = pos;
+                    while (pos < end && buffer.get(pos) != ',' && buffer.get(pos) != '\n') {
+                        pos++;
+                    }
+                    fieldEnd = pos;
+                }
+                byte delimiter = pos < end ? buffer.get(pos) : (byte) '\n';
+                if (delimiter == '\n' && !quoted && fieldEnd > fieldStart && buffer.get(fieldEnd - 1) == '\r') {
+                    fieldEnd--;
+                }
+                starts[fieldCount] = fieldStart;
+                ends[fieldCount] = fieldEnd;
+                escaped[fieldCount] = hasEscapes;
+                fieldCount++;
+                pos++;
+                if (delimiter == '\n') {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            return fieldCount;
+        }
+
+        @Override
+        public String string(int column) {
+            int start = starts[column];
+            int length = ends[column] - start;
+            byte[] bytes = new byte[length];
+            buffer.get(start, bytes, 0, length);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            return escaped[column] ? value.replace("\"\"", "\"") : value;
+        }
+
+        @Override
+        public boolean isEmpty(int column) {
+            return ends[column] == starts[column];
+        }
+
+        @Override
+        public double doubleAt(int column) {
+            int p = starts[column];
+            int limit = ends[column];
+            boolean negative = false;
+            if (p < limit && (buffer.get(p) == '-' || buffer.get(p) == '+')) {
+                negative = buffer.get(p++) == '-';
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int scale = -1;
+            for (; p < limit; p++) {
+                byte b = buffer.get(p);
+                if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (scale >= 0) {
+                        scale++;
+                    }
+                } else if (b == '.' && scale < 0) {
+                    scale = 0;
+                } else {
+                    digits = -1;
+                    break;
+                }
+            }
+            // Both operands are exact doubles here, so the quotient is correctly rounded and
+            // identical to Double.parseDouble; anything longer or exotic goes the slow way
+            if (digits <= 0 || digits > 16 || (digits == 16 && mantissa >= MAX_EXACT_MANTISSA)
+                    || scale >= POWERS_OF_TEN.length) {
+                return Double.parseDouble(string(column));
+            }
+            double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+            return negative ? -value : value;
+        }
+
+        @Override
+        public int intAt(int column) {
+            int p = starts[column];
+            int limit = ends[column];
+            boolean negative = p < limit && buffer.get(p) == '-';
+            if (negative || (p < limit && buffer.get(p) == '+')) {
+                p++;
+            }
+            if (p == limit || limit - p > 9) {
+                return Integer.parseInt(string(column));
+            }
+            int value = 0;
+            for (; p < limit; p++) {
+                byte b = buffer.get(p);
+                if (b < '0' || b > '9') {
+                    return Integer.parseInt(string(column));
+                }
+                value = value * 10 + (b - '0');
+            }
+            return negative ? -value : value;
+        }
+
+        @Override
+        public LocalDateTime timestampAt(int column) {
+            if (isEmpty(column)) {
+                return null;
+            }
+            view.set(starts[column], ends[column]);
+            return TimestampParser.parse(view, 0, view.length());
+        }
+
+        private void grow() {
+            starts = Arrays.copyOf(starts, starts.length * 2);
+            ends = Arrays.copyOf(ends, ends.length * 2);
+            escaped = Arrays.copyOf(escaped, escaped.length * 2);
+        }
+    }
+
+    // Latin-1 view over a byte range of the mapping; enough for digits and separators
+    private final class AsciiView implements CharSequence {
+        private int start;
+        private int length;
+
+        void set(int start, int end) {
+            this.start = start;
+            this.length = end - start;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(start + index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            byte[] bytes = new byte[to - from];
+            buffer.get(start + from, bytes, 0, bytes.length);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length).toString();
+        }
+    }
+}
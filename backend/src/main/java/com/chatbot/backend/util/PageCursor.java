@@ -0,0 +1,37 @@
+package com.chatbot.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque keyset-pagination cursors. A cursor carries the sort key of the last row of a page,
+// URL-safe Base64 encoded so clients treat it as a token rather than something to build by hand.
+public final class PageCursor {
+
+    private static final String VERSION = "1";
+    private static final String SEPARATOR = "\u001f";
+
+    private PageCursor() {
+    }
+
+    public static String encode(String... key) {
+        String joined = VERSION + SEPARATOR + String.join(SEPARATOR, key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // The key parts of a cursor made by encode; IllegalArgumentException for anything else
+    public static String[] decode(String cursor, int keyParts) {
+        String joined;
+        try {
+            joined = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+        String[] parts = joined.split(SEPARATOR, -1);
+        if (parts.length != keyParts + 1 || !parts[0].equals(VERSION)) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+        String[] key = new String[keyParts];
+        System.arraycopy(parts, 1, key, 0, keyParts);
+        return key;
+    }
+}
@@ -0,0 +1,150 @@
+package com.chatbot.backend.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+// Aho-Corasick automaton over a fixed set of phrases, compiled to a dense transition table so a
+// scan costs one array lookup per input character however many phrases there are. Matching is
+// case-insensitive and a phrase only matches where a word starts ("top" matches "tops" but not "stop").
+public final class PhraseMatcher<V> {
+
+    private final int[] alphabet;      // char -> symbol, 0 for characters no phrase uses
+    private final int symbols;
+    private final int[] transitions;   // state * symbols + symbol -> next state
+    private final int[][] outputs;     // state -> phrases ending there, including via suffix links
+    private final int[] lengths;
+    private final List<V> values;
+
+    private PhraseMatcher(int[] alphabet, int symbols, int[] transitions, int[][] outputs, int[] lengths, List<V> values) {
+        this.alphabet = alphabet;
+        this.symbols = symbols;
+        this.transitions = transitions;
+        this.outputs = outputs;
+        this.lengths = lengths;
+        this.values = values;
+    }
+
+    public static <V> Builder<V> builder() {
+        return new Builder<>();
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    // Calls onMatch with the value of every phrase occurrence, in order of where it ends
+    public void scan(CharSequence text, Consumer<V> onMatch) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state * symbols + symbol(text.charAt(i))];
+            int[] matched = outputs[state];
+            for (int phrase : matched) {
+                int start = i - lengths[phrase] + 1;
+                if (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1))) {
+                    onMatch.accept(values.get(phrase));
+                }
+            }
+        }
+    }
+
+    private int symbol(char c) {
+        char lower = c < 128 ? (char) (c >= 'A' && c <= 'Z' ? c + 32 : c) : Character.toLowerCase(c);
+        return lower < alphabet.length ? alphabet[lower] : 0;
+    }
+
+    public static final class Builder<V> {
+        private final List<String> phrases = new ArrayList<>();
+        private final List<V> values = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder<V> add(String phrase, V value) {
+            if (phrase == null || phrase.isEmpty()) {
+                throw new IllegalArgumentException("Phrase must not be empty");
+            }
+            phrases.add(phrase.toLowerCase(Locale.ROOT));
+            values.add(value);
+            return this;
+        }
+
+        public PhraseMatcher<V> build() {
+            // Dense symbol numbering for the characters that actually occur in phrases
+            int maxChar = 0;
+            for (String phrase : phrases) {
+                for (int i = 0; i < phrase.length(); i++) {
+                    maxChar = Math.max(maxChar, phrase.charAt(i));
+                }
+            }
+            int[] alphabet = new int[maxChar + 1];
+            int symbols = 1;
+            for (String phrase : phrases) {
+                for (int i = 0; i < phrase.length(); i++) {
+                    if (alphabet[phrase.charAt(i)] == 0) {
+                        alphabet[phrase.charAt(i)] = symbols++;
+                    }
+                }
+            }
+
+            // Trie
+            List<int[]> children = new ArrayList<>();
+            List<List<Integer>> terminal = new ArrayList<>();
+            children.add(new int[symbols]);
+            terminal.add(new ArrayList<>());
+            int[] lengths = new int[phrases.size()];
+            for (int p = 0; p < phrases.size(); p++) {
+                String phrase = phrases.get(p);
+                int state = 0;
+                for (int i = 0; i < phrase.length(); i++) {
+                    int symbol = alphabet[phrase.charAt(i)];
+                    if (children.get(state)[symbol] == 0) {
+                        children.get(state)[symbol] = children.size();
+                        children.add(new int[symbols]);
+                        terminal.add(new ArrayList<>());
+                    }
+                    state = children.get(state)[symbol];
+                }
+                terminal.get(state).add(p);
+                lengths[p] = phrase.length();
+            }
+
+            // Breadth-first pass filling in failure transitions and merging suffix outputs
+            int states = children.size();
+            int[] transitions = new int[states * symbols];
+            int[] fail = new int[states];
+            int[][] outputs = new int[states][];
+            outputs[0] = terminal.get(0).stream().mapToInt(Integer::intValue).toArray();
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int symbol = 0; symbol < symbols; symbol++) {
+                int child = children.get(0)[symbol];
+                transitions[symbol] = child;
+                if (child != 0) {
+                    queue.add(child);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                int[] own = terminal.get(state).stream().mapToInt(Integer::intValue).toArray();
+                int[] inherited = outputs[fail[state]];
+                outputs[state] = Arrays.copyOf(own, own.length + inherited.length);
+                System.arraycopy(inherited, 0, outputs[state], own.length, inherited.length);
+                for (int symbol = 0; symbol < symbols; symbol++) {
+                    int child = children.get(state)[symbol];
+                    if (child != 0) {
+                        fail[child] = transitions[fail[state] * symbols + symbol];
+                        transitions[state * symbols + symbol] = child;
+                        queue.add(child);
+                    } else {
+                        transitions[state * symbols + symbol] = transitions[fail[state] * symbols + symbol];
+                    }
+                }
+            }
+            return new PhraseMatcher<>(alphabet, symbols, transitions, outputs, lengths, List.copyOf(values));
+        }
+    }
+}
@@ -0,0 +1,552 @@
+package com.chatbot.backend.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Compressed set of non-negative ints in the Roaring layout: values are split by their high 16 bits
+// into chunks, and each chunk is stored either as a sorted char array (up to 4096 values) or as a
+// 65536-bit bitmap, whichever is smaller. runOptimize() additionally stores chunks made of long
+// consecutive stretches as runs. Intersections only visit chunks present in every operand.
+// Not thread-safe; callers that mutate a shared bitmap must guard it.
+public final class RoaringBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    public void add(int value) {
+        char key = (char) (value >>> 16);
+        int index = indexOf(key);
+        if (index >= 0) {
+            containers[index] = containers[index].add((char) value);
+            return;
+        }
+        index = -index - 1;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = new ArrayContainer().add((char) value);
+        size++;
+    }
+
+    public void remove(int value) {
+        int index = indexOf((char) (value >>> 16));
+        if (index < 0) {
+            return;
+        }
+        Container container = containers[index].remove((char) value);
+        if (container.cardinality() > 0) {
+            containers[index] = container;
+            return;
+        }
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    public boolean contains(int value) {
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    public long cardinality() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality();
+        }
+        return total;
+    }
+
+    // Re-encodes chunks as runs wherever that is smaller; best called once a bitmap is fully built
+    public void runOptimize() {
+        for (int i = 0; i < size; i++) {
+            if (!(containers[i] instanceof RunContainer)) {
+                RunContainer runs = RunContainer.of(containers[i]);
+                if (runs.sizeInBytes() < containers[i].sizeInBytes()) {
+                    containers[i] = runs;
+                }
+            }
+        }
+    }
+
+    // Approximate heap footprint of the bitmap's payload
+    public long sizeInBytes() {
+        long bytes = 16L + keys.length * 2L + containers.length * 8L;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    // Size of the intersection of all bitmaps, without materializing it
+    public static long andCardinality(List<RoaringBitmap> bitmaps) {
+        if (bitmaps.isEmpty()) {
+            return 0;
+        }
+        RoaringBitmap[] sorted = bitmaps.toArray(new RoaringBitmap[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(bitmap -> bitmap.size));
+        RoaringBitmap smallest = sorted[0];
+        long total = 0;
+        chunks:
+        for (int i = 0; i < smallest.size; i++) {
+            char key = smallest.keys[i];
+            Container result = smallest.containers[i];
+            for (int b = 1; b < sorted.length; b++) {
+                int index = sorted[b].indexOf(key);
+                if (index < 0) {
+                    continue chunks;
+                }
+                if (b == sorted.length - 1) {
+                    total += result.andCardinality(sorted[b].containers[index]);
+                    continue chunks;
+                }
+                result = result.and(sorted[b].containers[index]);
+                if (result.cardinality() == 0) {
+                    continue chunks;
+                }
+            }
+            total += result.cardinality();
+        }
+        return total;
+    }
+
+    private int indexOf(char key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else if (keys[mid] > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private abstract static sealed class Container permits ArrayContainer, BitmapContainer, RunContainer {
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract long sizeInBytes();
+
+        abstract Container and(Container other);
+
+        abstract int andCardinality(Container other);
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            // Appending in ascending order, as a bulk build does, skips the search
+            int index = cardinality > 0 && values[cardinality - 1] < value
+                    ? -(cardinality + 1)
+                    : Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.max(4, Math.min(ARRAY_LIMIT, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 24L + values.length * 2L;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] out = new char[Math.min(cardinality, other.cardinality())];
+            int n = 0;
+            if (!(other instanceof ArrayContainer array)) {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        out[n++] = values[i];
+                    }
+                }
+            } else {
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        out[n++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            int n = 0;
+            if (!(other instanceof ArrayContainer array)) {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        n++;
+                    }
+                }
+                return n;
+            }
+            int i = 0;
+            int j = 0;
+            while (i < cardinality && j < array.cardinality) {
+                if (values[i] < array.values[j]) {
+                    i++;
+                } else if (values[i] > array.values[j]) {
+                    j++;
+                } else {
+                    n++;
+                    i++;
+                    j++;
+                }
+            }
+            return n;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[BITMAP_WORDS], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before | (1L << value);
+            if (before != words[value >>> 6]) {
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before & ~(1L << value);
+            if (before != words[value >>> 6]) {
+                cardinality--;
+            }
+            return cardinality <= ARRAY_LIMIT ? toArray() : this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 24L + BITMAP_WORDS * 8L;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer array) {
+                return array.and(this);
+            }
+            if (other instanceof RunContainer runs) {
+                return runs.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] out = new long[BITMAP_WORDS];
+            int n = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                out[w] = words[w] & otherWords[w];
+                n += Long.bitCount(out[w]);
+            }
+            BitmapContainer result = new BitmapContainer(out, n);
+            return n <= ARRAY_LIMIT ? result.toArray() : result;
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof ArrayContainer array) {
+                return array.andCardinality(this);
+            }
+            if (other instanceof RunContainer runs) {
+                return runs.andCardinality(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int n = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                n += Long.bitCount(words[w] & otherWords[w]);
+            }
+            return n;
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[cardinality];
+            int n = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[n++] = (char) (w * 64 + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, n);
+        }
+    }
+
+    // Sorted, non-overlapping runs [starts[i], starts[i] + lengths[i]]. Read-mostly: a change
+    // re-encodes the chunk as an array or bitmap first.
+    private static final class RunContainer extends Container {
+        private final char[] starts;
+        private final char[] lengths;
+        private final int runs;
+        private final int cardinality;
+
+        private RunContainer(char[] starts, char[] lengths, int runs) {
+            this.starts = starts;
+            this.lengths = lengths;
+            this.runs = runs;
+            int total = 0;
+            for (int i = 0; i < runs; i++) {
+                total += lengths[i] + 1;
+            }
+            this.cardinality = total;
+        }
+
+        static RunContainer of(Container container) {
+            char[] starts = new char[16];
+            char[] lengths = new char[16];
+            int runs = 0;
+            int start = -1;
+            int previous = -2;
+            for (int value = next(container, 0); value >= 0; value = next(container, value + 1)) {
+                if (value != previous + 1) {
+                    if (start >= 0) {
+                        if (runs == starts.length) {
+                            starts = Arrays.copyOf(starts, runs * 2);
+                            lengths = Arrays.copyOf(lengths, runs * 2);
+                        }
+                        starts[runs] = (char) start;
+                        lengths[runs++] = (char) (previous - start);
+                    }
+                    start = value;
+                }
+                previous = value;
+            }
+            if (start >= 0) {
+                if (runs == starts.length) {
+                    starts = Arrays.copyOf(starts, runs + 1);
+                    lengths = Arrays.copyOf(lengths, runs + 1);
+                }
+                starts[runs] = (char) start;
+                lengths[runs++] = (char) (previous - start);
+            }
+            return new RunContainer(Arrays.copyOf(starts, runs), Arrays.copyOf(lengths, runs), runs);
+        }
+
+        // Smallest value >= from in an array or bitmap container, or -1
+        private static int next(Container container, int from) {
+            if (from > 0xFFFF) {
+                return -1;
+            }
+            if (container instanceof ArrayContainer array) {
+                int index = Arrays.binarySearch(array.values, 0, array.cardinality, (char) from);
+                index = index >= 0 ? index : -index - 1;
+                return index < array.cardinality ? array.values[index] : -1;
+            }
+            long[] words = ((BitmapContainer) container).words;
+            int w = from >>> 6;
+            long word = words[w] & (-1L << from);
+            while (word == 0) {
+                if (++w == BITMAP_WORDS) {
+                    return -1;
+                }
+                word = words[w];
+            }
+            return w * 64 + Long.numberOfTrailingZeros(word);
+        }
+
+        @Override
+        Container add(char value) {
+            return contains(value) ? this : expand().add(value);
+        }
+
+        @Override
+        Container remove(char value) {
+            return contains(value) ? expand().remove(value) : this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            int low = 0;
+            int high = runs - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] > value) {
+                    high = mid - 1;
+                } else if (starts[mid] + lengths[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 32L + runs * 4L;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer array) {
+                return array.and(this);
+            }
+            BitmapContainer bitmap = other instanceof RunContainer runs ? runs.toBitmap() : (BitmapContainer) other;
+            long[] out = new long[BITMAP_WORDS];
+            int n = 0;
+            for (int r = 0; r < runs; r++) {
+                int first = starts[r];
+                int last = first + lengths[r];
+                // Runs are disjoint, so neighbouring runs sharing a word add distinct bits
+                for (int w = first >>> 6; w <= last >>> 6; w++) {
+                    long bits = bitmap.words[w] & mask(w, first, last);
+                    out[w] |= bits;
+                    n += Long.bitCount(bits);
+                }
+            }
+            BitmapContainer result = new BitmapContainer(out, n);
+            return n <= ARRAY_LIMIT ? result.toArray() : result;
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof ArrayContainer array) {
+                return array.andCardinality(this);
+            }
+            BitmapContainer bitmap = other instanceof RunContainer runs ? runs.toBitmap() : (BitmapContainer) other;
+            int n = 0;
+            for (int r = 0; r < runs; r++) {
+                int first = starts[r];
+                int last = first + lengths[r];
+                for (int w = first >>> 6; w <= last >>> 6; w++) {
+                    n += Long.bitCount(bitmap.words[w] & mask(w, first, last));
+                }
+            }
+            return n;
+        }
+
+        // Bits of word w that fall inside [first, last]
+        private static long mask(int w, int first, int last) {
+            long mask = -1L;
+            if (w == first >>> 6) {
+                mask &= -1L << first;
+            }
+            if (w == last >>> 6) {
+                mask &= -1L >>> (63 - (last & 63));
+            }
+            return mask;
+        }
+
+        private BitmapContainer toBitmap() {
+            long[] words = new long[BITMAP_WORDS];
+            for (int r = 0; r < runs; r++) {
+                int first = starts[r];
+                int last = first + lengths[r];
+                for (int w = first >>> 6; w <= last >>> 6; w++) {
+                    words[w] |= mask(w, first, last);
+                }
+            }
+            return new BitmapContainer(words, cardinality);
+        }
+
+        private Container expand() {
+            BitmapContainer bitmap = toBitmap();
+            return cardinality <= ARRAY_LIMIT ? bitmap.toArray() : bitmap;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.chatbot.backend.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Collapses concurrent calls for the same key into one: the first caller (the leader) runs the
+// loader, and callers arriving while it runs wait for and share its result or exception instead of
+// running it again. Nothing is kept once the call finishes, so this only merges calls that overlap.
+// A follower waits at most maxWaitMillis and then runs the loader itself, so one slow call cannot
+// hold up everyone asking for the same key.
+public final class SingleFlight<K, V> {
+
+    private final String name;
+    private final long maxWaitMillis;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public SingleFlight(String name, long maxWaitMillis) {
+        if (maxWaitMillis <= 0) {
+            throw new IllegalArgumentException("maxWaitMillis must be positive");
+        }
+        this.name = name;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        calls.increment();
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running == null) {
+            return lead(key, call, loader);
+        }
+        try {
+            V value = running.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+            collapsed.increment();
+            return value;
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            executions.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            collapsed.increment();
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name + " " + key, e);
+        }
+    }
+
+    private V lead(K key, CompletableFuture<V> call, Supplier<V> loader) {
+        executions.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long calls() {
+        return calls.sum();
+    }
+
+    // Loader runs: one per leader, plus one per follower that gave up waiting
+    public long executions() {
+        return executions.sum();
+    }
+
+    // Calls answered with another call's result
+    public long collapsed() {
+        return collapsed.sum();
+    }
+
+    public long timedOut() {
+        return timedOut.sum();
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,43 @@
+package com.chatbot.backend.util;
+
+import java.time.LocalDateTime;
+
+// CsvRow over the String[] records produced by opencsv
+public final class StringArrayCsvRow implements CsvRow {
+
+    private final String[] cells;
+
+    public StringArrayCsvRow(String[] cells) {
+        this.cells = cells;
+    }
+
+    @Override
+    public int size() {
+        return cells.length;
+    }
+
+    @Override
+    public String string(int column) {
+        return cells[column];
+    }
+
+    @Override
+    public boolean isEmpty(int column) {
+        return cells[column].isEmpty();
+    }
+
+    @Override
+    public double doubleAt(int column) {
+        return Double.parseDouble(cells[column]);
+    }
+
+    @Override
+    public int intAt(int column) {
+        return Integer.parseInt(cells[column]);
+    }
+
+    @Override
+    public LocalDateTime timestampAt(int column) {
+        return TimestampParser.parse(cells[column]);
+    }
+}
@@ -0,0 +1,90 @@
+package com.chatbot.backend.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Append-only, thread-safe dictionary of strings. Each distinct value gets a small int code, and
+// intern() hands back one shared instance per value so repeated cells (categories, statuses, ids
+// referenced from several tables) are stored once however many rows carry them. Once maxSize
+// distinct values are held, new values are passed through unencoded instead of growing further.
+public final class StringDictionary {
+
+    public static final int NOT_ENCODED = -1;
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    // Written under the lock, read without it: a code is only published through codes after its slot is set
+    private volatile String[] values = new String[16];
+    private int size;
+
+    public StringDictionary(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    // The value's code, adding it if it is new; NOT_ENCODED for null or once the dictionary is full
+    public int encode(String value) {
+        if (value == null) {
+            return NOT_ENCODED;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            if (size == maxSize) {
+                return NOT_ENCODED;
+            }
+            String[] current = values;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, Math.min(maxSize, current.length * 2));
+            }
+            current[size] = value;
+            values = current;
+            codes.put(value, size);
+            return size++;
+        }
+    }
+
+    // The code of a value already in the dictionary, without adding it
+    public int codeOf(String value) {
+        Integer code = value == null ? null : codes.get(value);
+        return code == null ? NOT_ENCODED : code;
+    }
+
+    public String decode(int code) {
+        return code == NOT_ENCODED ? null : values[code];
+    }
+
+    // The shared instance equal to value (value itself when it cannot be encoded)
+    public String intern(String value) {
+        int code = encode(value);
+        return code == NOT_ENCODED ? value : values[code];
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    // Approximate heap held by the dictionary itself: the values, the code map and the value array
+    public long sizeInBytes() {
+        String[] current = values;
+        long bytes = 16 + 4L * current.length;
+        for (String value : current) {
+            if (value != null) {
+                bytes += 40 + value.length() + 48;
+            }
+        }
+        return bytes;
+    }
+}
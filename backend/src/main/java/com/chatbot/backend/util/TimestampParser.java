@@ -0,0 +1,136 @@
+package com.chatbot.backend.util;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Pattern;
+
+// Parses the dataset's "yyyy-MM-dd HH:mm:ss[.fffffffff][+HH:MM|+HHMM| UTC]" timestamps by reading
+// fixed character offsets, without building intermediate Strings. Offsets are dropped rather than
+// applied, as the loader has always done. Any other shape goes through the original formatter path.
+public final class TimestampParser {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter DATE_FORMATTER_UTC = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss 'UTC'");
+    private static final Pattern TRAILING_OFFSET = Pattern.compile("[+-]\\d{2}:?\\d{2}$");
+
+    private TimestampParser() {
+    }
+
+    // Returns null for null/empty input and for values that cannot be parsed
+    public static LocalDateTime parse(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        return parse(text, 0, text.length());
+    }
+
+    public static LocalDateTime parse(CharSequence text, int start, int end) {
+        if (text == null || end <= start) {
+            return null;
+        }
+        LocalDateTime parsed = parseFixedLayout(text, start, end);
+        return parsed != null ? parsed : parseSlow(text.subSequence(start, end).toString());
+    }
+
+    private static LocalDateTime parseFixedLayout(CharSequence s, int start, int end) {
+        if (end - start < 19
+                || s.charAt(start + 4) != '-' || s.charAt(start + 7) != '-' || s.charAt(start + 10) != ' '
+                || s.charAt(start + 13) != ':' || s.charAt(start + 16) != ':') {
+            return null;
+        }
+        int year = digits(s, start, 4);
+        int month = digits(s, start + 5, 2);
+        int day = digits(s, start + 8, 2);
+        int hour = digits(s, start + 11, 2);
+        int minute = digits(s, start + 14, 2);
+        int second = digits(s, start + 17, 2);
+        if ((year | month | day | hour | minute | second) < 0) {
+            return null;
+        }
+
+        int pos = start + 19;
+        int nanos = 0;
+        if (pos < end && s.charAt(pos) == '.') {
+            int fractionStart = ++pos;
+            int scale = 100_000_000;
+            while (pos < end && isDigit(s.charAt(pos))) {
+                if (pos - fractionStart == 9) {
+                    return null;
+                }
+                nanos += (s.charAt(pos) - '0') * scale;
+                scale /= 10;
+                pos++;
+            }
+            if (pos == fractionStart) {
+                return null;
+            }
+        }
+        if (!isKnownSuffix(s, pos, end)) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    // "", " UTC", "+HH:MM" or "+HHMM" (either sign)
+    private static boolean isKnownSuffix(CharSequence s, int pos, int end) {
+        int length = end - pos;
+        if (length == 0) {
+            return true;
+        }
+        char first = s.charAt(pos);
+        if (length == 4) {
+            return first == ' ' && s.charAt(pos + 1) == 'U' && s.charAt(pos + 2) == 'T' && s.charAt(pos + 3) == 'C';
+        }
+        if (first != '+' && first != '-') {
+            return false;
+        }
+        if (length == 6) {
+            return digits(s, pos + 1, 2) >= 0 && s.charAt(pos + 3) == ':' && digits(s, pos + 4, 2) >= 0;
+        }
+        return length == 5 && digits(s, pos + 1, 4) >= 0;
+    }
+
+    private static int digits(CharSequence s, int pos, int count) {
+        int value = 0;
+        for (int i = pos; i < pos + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // Original CsvDataLoaderService logic, kept for shapes the fixed layout does not cover
+    private static LocalDateTime parseSlow(String dateTimeStr) {
+        try {
+            // Handle timezone offset format (e.g., 2022-07-02 07:09:20+00:00)
+            if (dateTimeStr.contains("+") || (dateTimeStr.contains("-") && dateTimeStr.lastIndexOf("-") > 10)) {
+                // Remove timezone offset and parse as LocalDateTime
+                String dateTimeWithoutTz = TRAILING_OFFSET.matcher(dateTimeStr).replaceAll("");
+                return LocalDateTime.parse(dateTimeWithoutTz, DATE_FORMATTER);
+            }
+            // Try with UTC format
+            else if (dateTimeStr.endsWith("UTC")) {
+                return LocalDateTime.parse(dateTimeStr, DATE_FORMATTER_UTC);
+            }
+            // Try with standard format
+            else {
+                return LocalDateTime.parse(dateTimeStr, DATE_FORMATTER);
+            }
+        } catch (Exception e) {
+            System.err.println("Error parsing date: " + dateTimeStr + " - " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.chatbot.backend.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Character trie over a vocabulary that numbers each distinct word and finds every word within a
+// bounded edit distance of a query (Levenshtein plus adjacent transpositions, so "klien" is one edit
+// from "klein"). The search walks the trie once, carrying the last rows of the edit-distance table
+// per node and pruning any branch whose row minimum already exceeds the bound.
+// Not thread-safe while words are being added; build it fully, then share it read-only.
+public final class WordTrie {
+
+    @FunctionalInterface
+    public interface MatchConsumer {
+        void accept(int wordId, int distance);
+    }
+
+    private final Node root = new Node();
+    private final List<String> words = new ArrayList<>();
+
+    // Returns the word's id, adding it if it is new
+    public int add(String word) {
+        Node node = root;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.childOrCreate(word.charAt(i));
+        }
+        if (node.wordId < 0) {
+            node.wordId = words.size();
+            words.add(word);
+        }
+        return node.wordId;
+    }
+
+    // Exact lookup; -1 if the word is not in the vocabulary
+    public int id(String word) {
+        Node node = root;
+        for (int i = 0; i < word.length() && node != null; i++) {
+            node = node.child(word.charAt(i));
+        }
+        return node == null ? -1 : node.wordId;
+    }
+
+    public String word(int id) {
+        return words.get(id);
+    }
+
+    public int size() {
+        return words.size();
+    }
+
+    public void search(String query, int maxEdits, MatchConsumer onMatch) {
+        if (maxEdits <= 0) {
+            int id = id(query);
+            if (id >= 0) {
+                onMatch.accept(id, 0);
+            }
+            return;
+        }
+        int[] firstRow = new int[query.length() + 1];
+        for (int i = 0; i < firstRow.length; i++) {
+            firstRow[i] = i;
+        }
+        for (int c = 0; c < root.size; c++) {
+            search(root.children[c], root.keys[c], (char) 0, query, null, firstRow, maxEdits, onMatch);
+        }
+    }
+
+    private void search(Node node, char letter, char previousLetter, String query, int[] rowBeforeLast,
+                        int[] previousRow, int maxEdits, MatchConsumer onMatch) {
+        int columns = query.length() + 1;
+        int[] row = new int[columns];
+        row[0] = previousRow[0] + 1;
+        int rowMin = row[0];
+        for (int i = 1; i < columns; i++) {
+            int replace = previousRow[i - 1] + (query.charAt(i - 1) == letter ? 0 : 1);
+            row[i] = Math.min(replace, Math.min(row[i - 1] + 1, previousRow[i] + 1));
+            if (rowBeforeLast != null && i > 1 && query.charAt(i - 1) == previousLetter && query.charAt(i - 2) == letter) {
+                row[i] = Math.min(row[i], rowBeforeLast[i - 2] + 1);
+            }
+            rowMin = Math.min(rowMin, row[i]);
+        }
+        if (node.wordId >= 0 && row[columns - 1] <= maxEdits) {
+            onMatch.accept(node.wordId, row[columns - 1]);
+        }
+        if (rowMin <= maxEdits) {
+            for (int c = 0; c < node.size; c++) {
+                search(node.children[c], node.keys[c], letter, query, previousRow, row, maxEdits, onMatch);
+            }
+        }
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int size;
+        private int wordId = -1;
+
+        Node child(char key) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node childOrCreate(char key) {
+            Node existing = child(key);
+            if (existing != null) {
+                return existing;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(2, size * 2));
+                children = Arrays.copyOf(children, Math.max(2, size * 2));
+            }
+            Node created = new Node();
+            keys[size] = key;
+            children[size] = created;
+            size++;
+            return created;
+        }
+    }
+}
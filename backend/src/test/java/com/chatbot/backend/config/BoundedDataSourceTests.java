@@ -0,0 +1,70 @@
+package com.chatbot.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedDataSourceTests {
+
+    private static DriverManagerDataSource h2() {
+        return new DriverManagerDataSource("jdbc:h2:mem:bounded-tests;DB_CLOSE_DELAY=-1");
+    }
+
+    @Test
+    void connectionsBeyondTheLimitWaitAndTimeOut() throws Exception {
+        BoundedDataSource dataSource = new BoundedDataSource(h2(), 2, 50);
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        assertEquals(2, dataSource.getActive());
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.getTimeouts());
+
+        // Closing twice returns the permit once
+        first.close();
+        first.close();
+        assertEquals(1, dataSource.getActive());
+        try (Connection third = dataSource.getConnection()) {
+            assertTrue(third.isValid(1));
+            assertEquals(2, dataSource.getActive());
+        }
+        second.close();
+        assertEquals(0, dataSource.getActive());
+    }
+
+    @Test
+    void virtualThreadsNeverHoldMoreConnectionsThanTheLimit() throws Exception {
+        BoundedDataSource dataSource = new BoundedDataSource(h2(), 4, 30_000);
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 500; i++) {
+                executor.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                        connection.createStatement().execute("SELECT 1");
+                        Thread.sleep(1);
+                        open.decrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+
+        assertTrue(maxOpen.get() <= 4, "max open " + maxOpen.get());
+        assertTrue(dataSource.getWaits() > 0);
+        assertEquals(0, dataSource.getActive());
+    }
+}
@@ -0,0 +1,180 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.dto.PageResponse;
+import com.chatbot.backend.model.Product;
+import com.chatbot.backend.repository.ProductRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogServiceTests extends LoadedDatasetTests {
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void lookupsMatchTheRepository() {
+        assertEquals(ids(productRepository.findByCategoryIgnoreCase("Jeans")), ids(catalogService.getProductsByCategory("jEANS")));
+        assertEquals(ids(productRepository.findByBrandIgnoreCase("Levi's")), ids(catalogService.getProductsByBrand("levi's")));
+        assertEquals(ids(productRepository.findByDepartmentIgnoreCase("Women")), ids(catalogService.getProductsByDepartment("Women")));
+        assertEquals(new TreeSet<>(productRepository.findAllCategories()), new TreeSet<>(catalogService.getAllCategories()));
+        assertEquals(new TreeSet<>(productRepository.findAllBrands()), new TreeSet<>(catalogService.getAllBrands()));
+        assertTrue(catalogService.getProductsByCategory("Kilts").isEmpty());
+
+        Product stored = productRepository.findById("42").orElseThrow();
+        Product fromSnapshot = catalogService.getProductsByBrand(stored.getBrand()).stream()
+                .filter(product -> product.getId().equals("42")).findFirst().orElseThrow();
+        assertEquals(stored, fromSnapshot);
+    }
+
+    @Test
+    void priceRangesAreInclusiveAndCheapestFirst() {
+        List<Product> products = catalogService.getProductsByPriceRange(20, 40);
+
+        assertEquals(ids(productRepository.findByPriceRange(20, 40)), ids(products));
+        for (int i = 1; i < products.size(); i++) {
+            assertTrue(products.get(i - 1).getRetailPrice() <= products.get(i).getRetailPrice());
+        }
+        double exact = products.get(3).getRetailPrice();
+        assertTrue(catalogService.getProductsByPriceRange(exact, exact).stream().allMatch(p -> p.getRetailPrice() == exact));
+        assertFalse(catalogService.getProductsByPriceRange(exact, exact).isEmpty());
+        assertTrue(catalogService.getProductsByPriceRange(40, 20).isEmpty());
+    }
+
+    @Test
+    void keysetPagesCoverTheWholeList() {
+        List<String> jeans = catalogService.getProductsByCategory("Jeans").stream().map(Product::getId).toList();
+        List<String> cheap = catalogService.getProductsByPriceRange(20, 40).stream().map(Product::getId).toList();
+
+        assertEquals(jeans, walk(cursor -> catalogService.getProductsByCategory("Jeans", cursor, 37)));
+        assertEquals(cheap, walk(cursor -> catalogService.getProductsByPriceRange(20, 40, cursor, 37)));
+        assertEquals(List.copyOf(new TreeSet<>(jeans)), jeans);
+        assertThrows(IllegalArgumentException.class, () -> catalogService.getProductsByBrand("Nike", "bm90IGEgY3Vyc29y", 10));
+    }
+
+    @Test
+    void valuesDifferingOnlyInCaseShareALookup() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(
+                new Product("1", 5, "Jeans", "Slim", "Levi's", 20, "Men", "S1", "1"),
+                new Product("2", 5, "jeans", "Loose", null, 15, "Men", "S2", "1"),
+                new Product("3", 5, "Tops", "Tee", "Hanes", 10, null, "S3", "2")));
+
+        assertEquals(List.of("Jeans", "Tops", "jeans"), snapshot.categories());
+        assertEquals(List.of("1", "2"), snapshot.byCategory("JEANS").stream().map(Product::getId).toList());
+        assertEquals(List.of("Hanes", "Levi's"), snapshot.brands());
+        assertNull(snapshot.byCategory("jeans").get(1).getBrand());
+        assertEquals(List.of("3", "2", "1"), snapshot.byPriceRange(0, 100).stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void aFinishedLoadSwapsInANewSnapshot() {
+        CatalogSnapshot before = catalogService.getSnapshot();
+        List<Product> jeans = catalogService.getProductsByCategory("Jeans");
+
+        eventPublisher.publishEvent(new DataLoadedEvent(0));
+
+        assertNotSame(before, catalogService.getSnapshot());
+        assertEquals(before.size(), catalogService.getSnapshot().size());
+        // Lists handed out earlier keep reading the snapshot they came from
+        assertEquals(ids(jeans), ids(catalogService.getProductsByCategory("Jeans")));
+        assertThrows(UnsupportedOperationException.class, () -> jeans.add(new Product()));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void compareSnapshotAndDatabaseCatalogLookups() {
+        int rounds = 200;
+        for (int warmup = 0; warmup < 3; warmup++) {
+            browse(true);
+            browse(false);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            browse(false);
+        }
+        long databaseMicros = (System.nanoTime() - start) / 1000 / rounds;
+        start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            browse(true);
+        }
+        long snapshotMicros = (System.nanoTime() - start) / 1000 / rounds;
+        System.out.printf("Browsing round (facet lists, %d categories, %d brands, a price range): database %d us, snapshot %d us%n",
+                TestDatasets.CATEGORIES.length, TestDatasets.BRANDS.length, databaseMicros, snapshotMicros);
+        System.out.printf("Catalog snapshot: %d products in %d KB%n", catalogService.getSnapshot().size(),
+                catalogService.getSnapshot().sizeInBytes() / 1024);
+    }
+
+    // The lookups behind the common browsing questions. Every product is read, so the snapshot
+    // also pays for building the Product objects its lists hand out.
+    private double browse(boolean fromSnapshot) {
+        List<List<Product>> lists = new ArrayList<>();
+        if (fromSnapshot) {
+            catalogService.getAllCategories();
+            catalogService.getAllBrands();
+            catalogService.getAllDepartments();
+            for (String category : TestDatasets.CATEGORIES) {
+                lists.add(catalogService.getProductsByCategory(category));
+            }
+            for (String brand : TestDatasets.BRANDS) {
+                lists.add(catalogService.getProductsByBrand(brand));
+            }
+            lists.add(catalogService.getProductsByPriceRange(20, 40));
+        } else {
+            productRepository.findAllCategories();
+            productRepository.findAllBrands();
+            productRepository.findAllDepartments();
+            for (String category : TestDatasets.CATEGORIES) {
+                lists.add(productRepository.findByCategoryIgnoreCase(category));
+            }
+            for (String brand : TestDatasets.BRANDS) {
+                lists.add(productRepository.findByBrandIgnoreCase(brand));
+            }
+            lists.add(productRepository.findByPriceRange(20, 40));
+        }
+        double total = 0;
+        for (List<Product> products : lists) {
+            for (Product product : products) {
+                total += product.getRetailPrice();
+            }
+        }
+        return total;
+    }
+
+    private static Set<String> ids(List<Product> products) {
+        Set<String> ids = new HashSet<>();
+        products.forEach(product -> ids.add(product.getId()));
+        return ids;
+    }
+
+    private static List<String> walk(Function<String, PageResponse<Product>> pages) {
+        List<String> ids = new ArrayList<>();
+        PageResponse<Product> page = pages.apply(null);
+        page.getItems().forEach(product -> ids.add(product.getId()));
+        while (page.getNextCursor() != null) {
+            page = pages.apply(page.getNextCursor());
+            page.getItems().forEach(product -> ids.add(product.getId()));
+        }
+        return ids;
+    }
+}
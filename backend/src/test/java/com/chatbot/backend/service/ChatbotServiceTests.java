@@ -0,0 +1,451 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.dto.ChatResponse;
+import com.chatbot.backend.dto.ChatSection;
+import com.chatbot.backend.dto.OrderDetail;
+import com.chatbot.backend.dto.OrderLine;
+import com.chatbot.backend.dto.PageResponse;
+import com.chatbot.backend.dto.ProductCard;
+import com.chatbot.backend.dto.ProductCardJson;
+import com.chatbot.backend.model.Order;
+import com.chatbot.backend.model.OrderItem;
+import com.chatbot.backend.model.Product;
+import com.chatbot.backend.repository.InventoryItemRepository;
+import com.chatbot.backend.repository.OrderItemRepository;
+import com.chatbot.backend.repository.OrderRepository;
+import com.chatbot.backend.repository.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatbotServiceTests extends LoadedDatasetTests {
+
+    @Autowired
+    private ChatbotService chatbotService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private OrderIdFilter orderIdFilter;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductCardCache productCardCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Test
+    void userOrderPagesAndStreamFollowOrderIdOrder() {
+        String userId = orderRepository.findAll().stream()
+                .collect(Collectors.groupingBy(Order::getUserId, Collectors.counting()))
+                .entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow().getKey();
+        List<String> expected = orderRepository.findByUserId(userId).stream().map(Order::getOrderId).sorted().toList();
+        assertTrue(expected.size() > 2);
+
+        List<String> paged = new ArrayList<>();
+        PageResponse<Order> page = chatbotService.getUserOrders(userId, null, 2);
+        paged.addAll(page.getItems().stream().map(Order::getOrderId).toList());
+        while (page.getNextCursor() != null) {
+            page = chatbotService.getUserOrders(userId, page.getNextCursor(), 2);
+            paged.addAll(page.getItems().stream().map(Order::getOrderId).toList());
+        }
+        List<String> streamed = new ArrayList<>();
+        chatbotService.forEachUserOrder(userId, order -> streamed.add(order.getOrderId()));
+
+        assertEquals(expected, paged);
+        assertEquals(expected, streamed);
+        assertNull(chatbotService.getUserOrders("no-such-user", null, 10).getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> chatbotService.getUserOrders(userId, "not a cursor", 10));
+    }
+
+    @Test
+    void coalescedUserOrderCallersGetOrdersOfTheirOwn() throws Exception {
+        String userId = orderRepository.findAll().get(0).getUserId();
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<Order>>> calls = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            calls.add(executor.submit(() -> {
+                go.await();
+                return chatbotService.getUserOrders(userId);
+            }));
+        }
+        go.countDown();
+        Set<Order> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Future<List<Order>> call : calls) {
+            List<Order> orders = call.get(1, TimeUnit.MINUTES);
+            assertEquals(orderRepository.findByUserId(userId), orders);
+            assertThrows(UnsupportedOperationException.class, () -> orders.add(new Order()));
+            orders.forEach(order -> assertTrue(seen.add(order), "order instance handed to two callers"));
+        }
+        executor.shutdown();
+
+        Order changed = chatbotService.getUserOrders(userId).get(0);
+        String status = changed.getStatus();
+        changed.setStatus("Tampered");
+        assertEquals(status, chatbotService.getUserOrders(userId).get(0).getStatus());
+    }
+
+    @Test
+    void orderDetailJoinsItemsAndStoredTotal() {
+        Map<String, List<OrderItem>> itemsByOrder = orderItemRepository.findAll().stream()
+                .collect(Collectors.groupingBy(OrderItem::getOrderId));
+        String orderId = itemsByOrder.entrySet().stream().filter(entry -> entry.getValue().size() > 1)
+                .findFirst().orElseThrow().getKey();
+        List<OrderItem> items = itemsByOrder.get(orderId).stream()
+                .sorted((a, b) -> a.getId().compareTo(b.getId())).toList();
+        double expectedTotal = items.stream().mapToDouble(OrderItem::getSalePrice).sum();
+
+        OrderDetail detail = chatbotService.getOrderDetail(orderId).orElseThrow();
+
+        assertEquals(orderId, detail.getOrderId());
+        assertEquals(expectedTotal, detail.getTotalAmount(), 1e-6);
+        assertTrue(expectedTotal > 0);
+        assertEquals(items.stream().map(OrderItem::getId).toList(), detail.getItems().stream().map(OrderLine::getId).toList());
+        for (int i = 0; i < items.size(); i++) {
+            OrderLine line = detail.getItems().get(i);
+            Product product = productRepository.findById(items.get(i).getProductId()).orElseThrow();
+            assertEquals(product.getName(), line.getProductName());
+            assertEquals(items.get(i).getSalePrice(), line.getSalePrice());
+        }
+        assertEquals(expectedTotal, chatbotService.getOrderStatus(orderId).orElseThrow().getTotalAmount(), 1e-6);
+        assertTrue(chatbotService.getOrderDetail("no-such-order").isEmpty());
+    }
+
+    @Test
+    void bestSellerCountsSkipCancelledAndReturnedItems() {
+        Map<String, Long> expected = orderItemRepository.findAll().stream()
+                .filter(item -> !"Cancelled".equals(item.getStatus()) && !"Returned".equals(item.getStatus()))
+                .collect(Collectors.groupingBy(OrderItem::getProductId, Collectors.counting()));
+
+        Map<String, Long> counted = orderItemRepository.countSoldByProduct().stream()
+                .collect(Collectors.toMap(row -> (String) row[0], row -> ((Number) row[1]).longValue()));
+
+        assertEquals(expected, counted);
+        assertTrue(orderItemRepository.count() > counted.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void unknownOrderIdsAreRejectedByTheFilter() {
+        long rejectedBefore = orderIdFilter.getStatistics().getRejected();
+        int unknown = 0;
+        for (int i = 0; i < 200; i++) {
+            if (chatbotService.getOrderStatus("X" + i).isEmpty()) {
+                unknown++;
+            }
+        }
+        String existing = orderRepository.findAll().get(0).getOrderId();
+
+        assertEquals(200, unknown);
+        assertTrue(orderIdFilter.getStatistics().getRejected() - rejectedBefore > 180);
+        assertTrue(chatbotService.getOrderStatus(existing).isPresent());
+        assertEquals("Sorry, I couldn't find an order with ID: 987654321",
+                chatbotService.processNaturalLanguageQuery("order status for #987654321").getErrorMessage());
+    }
+
+    @Test
+    void searchPagesContinueTheRanking() {
+        List<String> top = productSearchIndex.search("levi jeans", 40).products().stream().map(Product::getId).toList();
+
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        for (int i = 0; i < 5; i++) {
+            PageResponse<Product> page = chatbotService.searchProducts("levi jeans", cursor, 8);
+            paged.addAll(page.getItems().stream().map(Product::getId).toList());
+            cursor = page.getNextCursor();
+        }
+
+        assertEquals(top, paged);
+    }
+
+    @Test
+    void productAnswersWriteCachedCards() throws Exception {
+        ChatResponse response = chatbotService.processNaturalLanguageQuery("I'm looking for levi jeans");
+        assertEquals("product_list", response.getType());
+
+        JsonNode data = objectMapper.readTree(objectMapper.writeValueAsString(response)).get("data");
+        assertEquals(response.getData().size(), data.size());
+        assertTrue(data.size() > 0);
+        for (JsonNode card : data) {
+            Product product = productRepository.findById(card.get("id").asText()).orElseThrow();
+            assertEquals(5, card.size());
+            assertEquals(product.getName(), card.get("name").asText());
+            assertEquals(product.getBrand(), card.get("brand").asText());
+            assertEquals(product.getCategory(), card.get("category").asText());
+            assertEquals(product.getRetailPrice(), card.get("retailPrice").asDouble());
+        }
+        // The answer holds the cache's own fragments
+        ProductCardJson first = (ProductCardJson) response.getData().get(0);
+        Product product = productRepository.findById(first.getId()).orElseThrow();
+        assertSame(first, productCardCache.cardsOf(List.of(product)).get(0));
+    }
+
+    @Test
+    void cardProjectionsMatchTheEntities() {
+        List<Product> products = productRepository.findByBrandIgnoreCase("Levi's");
+        List<String> ids = products.stream().map(Product::getId).toList();
+
+        Map<String, ProductCard> cards = productRepository.findCardsByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductCard::id, card -> card));
+
+        assertEquals(ids.size(), cards.size());
+        for (Product product : products) {
+            assertEquals(ProductCard.of(product), cards.get(product.getId()));
+        }
+    }
+
+    @Test
+    void batchedStockMatchesPerProductCounts() {
+        List<String> ids = productRepository.findByCategoryIgnoreCase("Jeans").stream().map(Product::getId).toList();
+        assertTrue(ids.size() > 100);
+
+        Map<String, Integer> stock = chatbotService.getAvailableStock(ids);
+
+        assertEquals(ids, List.copyOf(stock.keySet()));
+        for (String id : ids) {
+            assertEquals(inventoryItemRepository.countByProductIdAndSoldAtIsNull(id), stock.get(id), "stock of " + id);
+        }
+        assertEquals(0, chatbotService.getAvailableStock(List.of("no-such-product")).get("no-such-product"));
+    }
+
+    @Test
+    void stockIntentReportsTheBatchedTotal() {
+        List<String> ids = productRepository.findByCategoryIgnoreCase("Jeans").stream().map(Product::getId).toList();
+        int expected = chatbotService.getAvailableStock(ids).values().stream().mapToInt(Integer::intValue).sum();
+
+        assertEquals(expected, chatbotService.getProductStockCount("jeans"));
+        assertEquals("We have " + expected + " units of 'jeans' in stock.",
+                chatbotService.processNaturalLanguageQuery("How many jeans are in stock?").getErrorMessage());
+    }
+
+    @Test
+    void multiIntentQuestionsAnswerEveryPart() {
+        String orderId = orderRepository.findAll().get(0).getOrderId();
+        ChatResponse status = chatbotService.processNaturalLanguageQuery("status of order #" + orderId);
+        ChatResponse stock = chatbotService.processNaturalLanguageQuery("do you have jeans in stock");
+
+        ChatResponse response = chatbotService.processNaturalLanguageQuery(
+                "What's the status of order #" + orderId + " and do you have jeans in stock?");
+
+        assertEquals("multi_intent", response.getType());
+        assertTrue(response.isSuccess());
+        List<ChatSection> sections = response.getData().stream().map(ChatSection.class::cast).toList();
+        assertEquals(List.of("order_status", "stock"), sections.stream().map(ChatSection::getIntent).toList());
+        assertEquals(status.getMessage(), sections.get(0).getResponse().getMessage());
+        assertEquals(stock.getErrorMessage(), sections.get(1).getResponse().getErrorMessage());
+        assertEquals(status.getMessage() + "\n\n" + stock.getErrorMessage(), response.getMessage());
+
+        // A question about one thing is still answered as a whole
+        assertEquals(stock.getErrorMessage(),
+                chatbotService.processNaturalLanguageQuery("do you have jeans in stock? thanks!").getErrorMessage());
+
+        // The "and" of a price range does not split the question
+        ChatResponse ranged = chatbotService.processNaturalLanguageQuery("find jeans between 20 and 50");
+        sections = chatbotService.processNaturalLanguageQuery(
+                "find jeans between 20 and 50 and what's the status of order #" + orderId).getData().stream()
+                .map(ChatSection.class::cast).toList();
+        assertEquals(List.of("find jeans between 20 and 50", "what's the status of order #" + orderId),
+                sections.stream().map(ChatSection::getQuestion).toList());
+        assertEquals(ranged.getMessage(), sections.get(0).getResponse().getMessage());
+        assertEquals(ranged.getData().size(), sections.get(0).getResponse().getData().size());
+
+        // A piece without entities of its own stays with the products it refers to
+        for (String question : List.of("Do you have jeans and how many are in stock", "find jeans and how many are in stock")) {
+            ChatResponse whole = chatbotService.processNaturalLanguageQuery(question);
+            assertNull(whole.getType(), question);
+            assertEquals(stock.getErrorMessage(), whole.getErrorMessage(), question);
+        }
+    }
+
+    @Test
+    void batchAnswersMatchOneQuestionAtATime() {
+        List<String> questions = batchQuestions(20);
+        responseCache.invalidateAll();
+        List<ChatResponse> batch = chatbotService.processNaturalLanguageQueries(questions);
+        responseCache.invalidateAll();
+
+        assertEquals(questions.size(), batch.size());
+        for (int i = 0; i < questions.size(); i++) {
+            ChatResponse single = chatbotService.processNaturalLanguageQuery(questions.get(i));
+            assertEquals(single.getType(), batch.get(i).getType(), questions.get(i));
+            assertEquals(single.getMessage(), batch.get(i).getMessage(), questions.get(i));
+            assertEquals(single.getErrorMessage(), batch.get(i).getErrorMessage(), questions.get(i));
+            assertEquals(single.getData() == null ? 0 : single.getData().size(),
+                    batch.get(i).getData() == null ? 0 : batch.get(i).getData().size(), questions.get(i));
+        }
+        // Cached answers are reused, and flagged as such
+        assertTrue(chatbotService.processNaturalLanguageQueries(questions.subList(0, 3)).stream().allMatch(ChatResponse::isCached));
+        assertThrows(IllegalArgumentException.class,
+                () -> chatbotService.processNaturalLanguageQueries(Collections.nCopies(10_000, "categories")));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void compareBatchWithOneQuestionAtATime() {
+        List<String> questions = batchQuestions(2_000);
+        for (int warmup = 0; warmup < 3; warmup++) {
+            responseCache.invalidateAll();
+            questions.forEach(chatbotService::processNaturalLanguageQuery);
+            responseCache.invalidateAll();
+            chatbotService.processNaturalLanguageQueries(questions);
+        }
+
+        responseCache.invalidateAll();
+        long start = System.nanoTime();
+        questions.forEach(chatbotService::processNaturalLanguageQuery);
+        long singleMillis = (System.nanoTime() - start) / 1_000_000;
+        responseCache.invalidateAll();
+        start = System.nanoTime();
+        chatbotService.processNaturalLanguageQueries(questions);
+        long batchMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%d questions, empty response cache: one at a time %d ms, batch %d ms%n",
+                questions.size(), singleMillis, batchMillis);
+    }
+
+    // Order status for existing, repeated and unknown orders, mixed with stock, search, facet and
+    // multi-intent questions
+    private List<String> batchQuestions(int orders) {
+        List<String> orderIds = orderRepository.findAll().stream().map(Order::getOrderId).limit(orders).toList();
+        List<String> questions = new ArrayList<>();
+        for (int i = 0; i < orderIds.size(); i++) {
+            questions.add("What's the status of order #" + orderIds.get(i) + "?");
+            if (i % 4 == 0) {
+                questions.add("order status for #" + orderIds.get(i / 2));
+                questions.add("order status for #98765432" + (i % 10));
+            }
+            if (i % 10 == 0) {
+                questions.add("How many jeans are in stock?");
+                questions.add("I'm looking for levi jeans");
+                questions.add("I'm looking for levis jaens");
+                questions.add("What categories do you have?");
+                questions.add("What's the status of order #" + orderIds.get(i) + " and do you have jeans in stock?");
+            }
+        }
+        questions.add("hello there");
+        return questions;
+    }
+
+    @Test
+    @Tag("benchmark")
+    void compareStockLookupLatencyForBroadTerms() {
+        for (String category : TestDatasets.CATEGORIES) {
+            List<Product> products = productRepository.findByCategoryIgnoreCase(category);
+            List<String> ids = products.stream().map(Product::getId).toList();
+            for (int warmup = 0; warmup < 3; warmup++) {
+                perProduct(products);
+                chatbotService.getAvailableStock(ids);
+            }
+
+            long start = System.nanoTime();
+            int perProductTotal = perProduct(products);
+            long perProductMicros = (System.nanoTime() - start) / 1000;
+            start = System.nanoTime();
+            int batchedTotal = chatbotService.getAvailableStock(ids).values().stream().mapToInt(Integer::intValue).sum();
+            long batchedMicros = (System.nanoTime() - start) / 1000;
+
+            assertEquals(perProductTotal, batchedTotal);
+            System.out.printf("%-18s %4d products: one COUNT per product %6d us, grouped IN query %5d us%n",
+                    category, products.size(), perProductMicros, batchedMicros);
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void compareProductListAllocation() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int rounds = 2_000;
+        for (String query : List.of("jeans", "levi jeans", "sweaters")) {
+            List<Product> products = productSearchIndex.search(query, productSearchIndex.getDefaultLimit()).products();
+            for (int warmup = 0; warmup < rounds; warmup++) {
+                objectMapper.writeValueAsBytes(asMaps(products));
+                objectMapper.writeValueAsBytes(productCardCache.cardsOf(products));
+            }
+
+            long before = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            int mapBytes = 0;
+            for (int i = 0; i < rounds; i++) {
+                mapBytes = objectMapper.writeValueAsBytes(asMaps(products)).length;
+            }
+            long mapMicros = (System.nanoTime() - start) / 1000 / rounds;
+            long mapAllocated = (threads.getCurrentThreadAllocatedBytes() - before) / rounds;
+
+            before = threads.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            int cardBytes = 0;
+            for (int i = 0; i < rounds; i++) {
+                cardBytes = objectMapper.writeValueAsBytes(productCardCache.cardsOf(products)).length;
+            }
+            long cardMicros = (System.nanoTime() - start) / 1000 / rounds;
+            long cardAllocated = (threads.getCurrentThreadAllocatedBytes() - before) / rounds;
+
+            assertEquals(mapBytes, cardBytes);
+            System.out.printf("%-11s %3d products: maps %6d B allocated %4d us, cached cards %6d B allocated %4d us%n",
+                    query, products.size(), mapAllocated, mapMicros, cardAllocated, cardMicros);
+        }
+    }
+
+    // The product rows of a search answer before cards: one map per product
+    private static List<Map<String, Object>> asMaps(List<Product> products) {
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (Product product : products) {
+            Map<String, Object> productData = new HashMap<>();
+            productData.put("id", product.getId());
+            productData.put("name", product.getName());
+            productData.put("brand", product.getBrand());
+            productData.put("category", product.getCategory());
+            productData.put("retailPrice", product.getRetailPrice());
+            data.add(productData);
+        }
+        return data;
+    }
+
+    // The stock intent before batching: one COUNT query per matching product
+    private int perProduct(List<Product> products) {
+        int total = 0;
+        for (Product product : products) {
+            total += inventoryItemRepository.countByProductNameAndSoldAtIsNull(product.getName());
+        }
+        return total;
+    }
+}
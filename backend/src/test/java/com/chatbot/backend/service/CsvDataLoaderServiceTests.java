@@ -0,0 +1,259 @@
+package com.chatbot.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loader-tests;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+class CsvDataLoaderServiceTests {
+
+    @Autowired
+    private CsvDataLoaderService loader;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Autowired
+    private NativeBulkWriter nativeBulkWriter;
+
+    @Autowired
+    private StringDictionaries dictionaries;
+
+    @Autowired
+    private SourceChangeTracker sourceChangeTracker;
+
+    @TempDir
+    Path dataDir;
+
+    @BeforeEach
+    void clearTables() {
+        List<TableLayout<?>> layouts = new ArrayList<>(TableLayouts.ALL);
+        Collections.reverse(layouts);
+        for (TableLayout<?> layout : layouts) {
+            jdbcTemplate.update("DELETE FROM " + layout.getTable());
+        }
+        jdbcTemplate.update("DELETE FROM source_row_hashes");
+        jdbcTemplate.update("DELETE FROM source_file_state");
+    }
+
+    @Test
+    void nativeModeWritesTheSameRowsAsJpaMode() throws Exception {
+        String location = "file:" + TestDatasets.write(dataDir, 1) + "/";
+
+        loader.loadAllData(location, CsvDataLoaderService.LoadMode.JPA);
+        Map<String, List<List<Object>>> viaJpa = dumpTables();
+        clearTables();
+        loader.loadAllData(location, CsvDataLoaderService.LoadMode.NATIVE);
+        Map<String, List<List<Object>>> viaNative = dumpTables();
+
+        assertFalse(viaJpa.get("order_items").isEmpty());
+        for (String table : viaJpa.keySet()) {
+            assertEquals(viaJpa.get(table), viaNative.get(table), "rows differ in " + table);
+        }
+    }
+
+    @Test
+    void repeatedValuesAreStoredAsOneInstance() throws Exception {
+        loader.loadAllData("file:" + TestDatasets.write(dataDir, 1) + "/", CsvDataLoaderService.LoadMode.NATIVE);
+
+        // The in-memory database keeps the String it was given, so shared instances survive the round trip
+        List<String> categories = jdbcTemplate.queryForList(
+                "SELECT product_category FROM inventory_items WHERE product_category = 'Jeans' LIMIT 20", String.class);
+        assertEquals(20, categories.size());
+        assertTrue(categories.stream().allMatch(category -> category == categories.get(0)));
+        assertTrue(dictionaries.labels().codeOf("Jeans") >= 0);
+        assertTrue(dictionaries.labels().size() < 100, "labels: " + dictionaries.labels().size());
+    }
+
+    @Test
+    void nativeModeUpsertsRowsThatAlreadyExist() throws Exception {
+        String location = "file:" + TestDatasets.write(dataDir, 1) + "/";
+
+        loader.loadAllData(location, CsvDataLoaderService.LoadMode.NATIVE);
+        Map<String, List<List<Object>>> first = dumpTables();
+        loader.loadAllData(location, CsvDataLoaderService.LoadMode.NATIVE);
+
+        assertEquals(first, dumpTables());
+    }
+
+    @Test
+    void memoryMappedScanMatchesOpenCsvStream() throws Exception {
+        String location = "file:" + TestDatasets.write(dataDir, 1) + "/";
+
+        loader.loadAllData(location, CsvDataLoaderService.LoadMode.NATIVE, false);
+        Map<String, List<List<Object>>> viaStream = dumpTables();
+        clearTables();
+        loader.loadAllData(location, CsvDataLoaderService.LoadMode.NATIVE, true);
+
+        assertEquals(viaStream, dumpTables());
+    }
+
+    @Test
+    void snapshotRestoresTheLoadedRowsUntilASourceFileChanges() throws Exception {
+        Path csvDir = TestDatasets.write(dataDir, 1);
+        String location = "file:" + csvDir + "/";
+        DatasetSnapshotService snapshots = new DatasetSnapshotService(resourceLoader, jdbcTemplate, nativeBulkWriter,
+                true, dataDir.resolve("snapshot/dataset.snapshot").toString());
+
+        loader.loadAllData(location, CsvDataLoaderService.LoadMode.NATIVE);
+        Map<String, List<List<Object>>> loaded = dumpTables();
+        snapshots.write(location, 1234);
+        clearTables();
+
+        assertTrue(snapshots.restoreIfCurrent(location));
+        assertEquals(loaded, dumpTables());
+
+        Files.writeString(csvDir.resolve("products.csv"), "\n", StandardOpenOption.APPEND);
+        assertFalse(snapshots.restoreIfCurrent(location));
+    }
+
+    @Test
+    void incrementalLoadAppliesOnlyTheChangedRows() throws Exception {
+        Path csvDir = TestDatasets.write(dataDir, 1);
+        String location = "file:" + csvDir + "/";
+        assertTrue(loader.loadAllData(location, CsvDataLoaderService.LoadMode.NATIVE, true, true).changed());
+        assertEquals(new CsvDataLoaderService.LoadResult(true, false),
+                loader.loadAllData(location, CsvDataLoaderService.LoadMode.NATIVE, true, true));
+
+        // Edit one product, reprice the first order item, drop the last one and append a user
+        Path products = csvDir.resolve("products.csv");
+        List<String> productLines = new ArrayList<>(Files.readAllLines(products));
+        productLines.set(1, productLines.get(1).replace("Style 1,", "Style 1 Renamed,"));
+        Files.write(products, productLines);
+        Path orderItems = csvDir.resolve("order_items.csv");
+        List<String> itemLines = new ArrayList<>(Files.readAllLines(orderItems));
+        itemLines.remove(itemLines.size() - 1);
+        String firstItem = itemLines.get(1);
+        itemLines.set(1, firstItem.substring(0, firstItem.lastIndexOf(',') + 1) + "1234.56");
+        Files.write(orderItems, itemLines);
+        Path users = csvDir.resolve("users.csv");
+        String lastUser = Files.readAllLines(users).get(1);
+        Files.writeString(users, "999999" + lastUser.substring(lastUser.indexOf(',')) + "\n", StandardOpenOption.APPEND);
+        // Rows of unchanged files are left alone, so this deletion survives the next load
+        jdbcTemplate.update("DELETE FROM distribution_centers WHERE id = '1'");
+
+        assertTrue(loader.loadAllData(location, CsvDataLoaderService.LoadMode.NATIVE, true, true).changed());
+        Map<String, List<List<Object>>> incremental = dumpTables();
+        clearTables();
+        loader.loadAllData(location, CsvDataLoaderService.LoadMode.NATIVE, true, false);
+        Map<String, List<List<Object>>> full = dumpTables();
+
+        assertEquals(full.get("distribution_centers").size() - 1, incremental.get("distribution_centers").size());
+        for (String table : List.of("products", "users", "inventory_items", "orders", "order_items")) {
+            assertEquals(full.get(table), incremental.get(table), "rows differ in " + table);
+        }
+    }
+
+    @Test
+    void aLayoutChangeReloadsAFileWhoseChecksumDidNot() {
+        TableLayout<String[]> layout = TableLayout.<String[]>builder("layout_test", "id")
+                .column("id", Types.VARCHAR, row -> row[0])
+                .build();
+        TableLayout<String[]> widened = TableLayout.<String[]>builder("layout_test", "id")
+                .column("id", Types.VARCHAR, row -> row[0])
+                .column("name", Types.VARCHAR, row -> row[1])
+                .build();
+        SourceChangeTracker.RowDelta<String[]> delta = sourceChangeTracker.startDelta("layout_test.csv", 42, layout);
+        delta.changed(new String[] {"1", "one"});
+        sourceChangeTracker.commit(List.of(delta));
+
+        assertTrue(sourceChangeTracker.isUnchanged("layout_test.csv", 42, layout));
+        assertFalse(sourceChangeTracker.isUnchanged("layout_test.csv", 42, widened));
+        assertFalse(sourceChangeTracker.isUnchanged("layout_test.csv", 43, layout));
+    }
+
+    @Test
+    void incrementalLoadFillsColumnsMappedSinceTheLastImport() throws Exception {
+        String location = "file:" + TestDatasets.write(dataDir, 1) + "/";
+        loader.loadAllData(location, CsvDataLoaderService.LoadMode.NATIVE, true, true);
+        Map<String, List<List<Object>>> loaded = dumpTables();
+
+        // A database imported before sale_price and total_amount were mapped, from the same CSVs
+        jdbcTemplate.update("UPDATE order_items SET sale_price = 0");
+        jdbcTemplate.update("UPDATE orders SET total_amount = 0");
+        jdbcTemplate.update("UPDATE source_file_state SET layout_signature = NULL WHERE file_name IN ('orders.csv', 'order_items.csv')");
+
+        loader.loadAllData(location, CsvDataLoaderService.LoadMode.NATIVE, true, true);
+
+        assertEquals(loaded, dumpTables());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void compareJpaAndNativeLoadTimes() throws Exception {
+        String location = "file:" + TestDatasets.write(dataDir, 10) + "/";
+
+        long jpaStart = System.nanoTime();
+        loader.loadAllData(location, CsvDataLoaderService.LoadMode.JPA);
+        long jpaMillis = (System.nanoTime() - jpaStart) / 1_000_000;
+        long rows = countRows();
+        clearTables();
+
+        long nativeStart = System.nanoTime();
+        loader.loadAllData(location, CsvDataLoaderService.LoadMode.NATIVE);
+        long nativeMillis = (System.nanoTime() - nativeStart) / 1_000_000;
+
+        assertEquals(rows, countRows());
+
+        DatasetSnapshotService snapshots = new DatasetSnapshotService(resourceLoader, jdbcTemplate, nativeBulkWriter,
+                true, dataDir.resolve("snapshot/dataset.snapshot").toString());
+        snapshots.write(location, nativeMillis);
+        clearTables();
+        long restoreStart = System.nanoTime();
+        assertTrue(snapshots.restoreIfCurrent(location));
+        long restoreMillis = (System.nanoTime() - restoreStart) / 1_000_000;
+
+        assertEquals(rows, countRows());
+        System.out.printf("Loaded %d rows: jpa %d ms, native %d ms (%.1fx), snapshot restore %d ms%n",
+                rows, jpaMillis, nativeMillis, (double) jpaMillis / Math.max(1, nativeMillis), restoreMillis);
+    }
+
+    private Map<String, List<List<Object>>> dumpTables() {
+        Map<String, List<List<Object>>> tables = new LinkedHashMap<>();
+        for (TableLayout<?> layout : TableLayouts.ALL) {
+            String sql = "SELECT " + String.join(", ", layout.getColumns()) + " FROM " + layout.getTable()
+                    + " ORDER BY " + layout.getKeyColumn();
+            tables.put(layout.getTable(), jdbcTemplate.query(sql, (rs, rowNum) -> {
+                List<Object> row = new ArrayList<>();
+                for (int i = 1; i <= layout.getColumns().size(); i++) {
+                    row.add(rs.getObject(i));
+                }
+                return row;
+            }));
+        }
+        return tables;
+    }
+
+    private long countRows() {
+        long rows = 0;
+        for (TableLayout<?> layout : TableLayouts.ALL) {
+            rows += jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + layout.getTable(), Long.class);
+        }
+        return rows;
+    }
+}
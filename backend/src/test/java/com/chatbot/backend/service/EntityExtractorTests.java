@@ -0,0 +1,122 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.model.DistributionCenter;
+import com.chatbot.backend.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityExtractorTests {
+
+    private final EntityExtractor extractor = new EntityExtractor(null, null);
+
+    @BeforeEach
+    void buildGazetteer() {
+        extractor.rebuild(List.of(
+                product("1", "Levi's Men's 501 Original Jeans", "Levi's", "Jeans", "Men", 59.5),
+                product("2", "Levi's Women's Classic Skinny Jeans", "Levi's", "Jeans", "Women", 49.0),
+                product("3", "Calvin Klein Women's Classic Crew Sweater", "Calvin Klein", "Sweaters", "Women", 89.0),
+                product("4", "The North Face Men's Fleece Jacket", "The North Face", "Outerwear & Coats", "Men", 120.0),
+                product("5", "Hanes Men's Cotton Tank Top", "Hanes", "Tops & Tees", "Men", 12.0)),
+                List.of(new DistributionCenter("1", "Memphis TN", 35.1174, -89.9711),
+                        new DistributionCenter("2", "Port Authority of New York/New Jersey NY/NJ", 40.634, -73.7834)));
+    }
+
+    @Test
+    void resolvesProductWordsToIds() {
+        ExtractedEntities entities = extractor.extract("How many classic jeans are in stock?");
+        assertEquals("classic jeans", entities.productTerm());
+        assertEquals(List.of("2"), entities.productIds());
+        assertEquals("Jeans", entities.category());
+    }
+
+    @Test
+    void toleratesMisspellings() {
+        ExtractedEntities entities = extractor.extract("do you have any calvn klien sweatres?");
+        assertEquals(List.of("3"), entities.productIds());
+        assertEquals("Calvin Klein", entities.brand());
+        assertEquals("Sweaters", entities.category());
+    }
+
+    @Test
+    void matchesMultiWordEntities() {
+        ExtractedEntities entities = extractor.extract("find the north face jackets for men");
+        assertEquals("The North Face", entities.brand());
+        assertEquals("Men", entities.department());
+        assertEquals(List.of("4"), entities.productIds());
+
+        assertEquals("Tops & Tees", extractor.extract("show me tops & tees").category());
+    }
+
+    @Test
+    void resolvesDistributionCentersWithoutTouchingProductWords() {
+        ExtractedEntities entities = extractor.extract("how many Levi's jeans are in stock at the Memphis DC");
+        assertEquals("1", entities.distributionCenterId());
+        assertEquals("levi jeans", entities.productTerm());
+        assertEquals(List.of("1", "2"), entities.productIds());
+        assertTrue(entities.facetsOnly());
+        assertEquals(new StockFilter("Jeans", "Levi's", null, "1"), entities.stockFilter());
+
+        assertEquals("2", extractor.extract("sweaters at port authority of new york new jersey").distributionCenterId());
+        assertEquals("1", extractor.extract("jeans in memphis tn").distributionCenterId());
+        assertFalse(extractor.extract("classic jeans at memphis").facetsOnly());
+    }
+
+    @Test
+    void extractsOrderIdsAndPriceBounds() {
+        ExtractedEntities order = extractor.extract("What is the order status of #12345?");
+        assertEquals("12345", order.orderId());
+        assertNull(order.productTerm());
+
+        ExtractedEntities priced = extractor.extract("find jeans between $40 and 55.50 dollars");
+        assertEquals(40.0, priced.minPrice());
+        assertEquals(55.5, priced.maxPrice());
+        assertNull(priced.orderId());
+        assertEquals(List.of("1", "2"), priced.productIds());
+
+        ExtractedEntities under = extractor.extract("sweaters under $100");
+        assertEquals(100.0, under.maxPrice());
+        assertNull(under.minPrice());
+        assertTrue(under.withinPriceBounds(89.0));
+    }
+
+    @Test
+    void malformedNumbersAreNotReadAsPrices() {
+        // A second decimal point ends the number
+        ExtractedEntities dotted = extractor.extract("jeans under 1.2.3");
+        assertEquals(1.2, dotted.maxPrice());
+        assertEquals(List.of("1", "2"), dotted.productIds());
+
+        // Digits from other scripts are not parsed as a price
+        ExtractedEntities arabic = extractor.extract("jeans under ٥٠");
+        assertNull(arabic.maxPrice());
+        assertNull(arabic.minPrice());
+
+        assertEquals(1200.5, extractor.extract("jackets under $1,200.50").maxPrice());
+        assertEquals(5.0, extractor.extract("tops under 5,.5").maxPrice());
+    }
+
+    @Test
+    void keepsUnknownWordingForTheReply() {
+        ExtractedEntities entities = extractor.extract("is the flux capacitor in stock");
+        assertEquals("flux capacitor", entities.productTerm());
+        assertTrue(entities.productIds().isEmpty());
+    }
+
+    private static Product product(String id, String name, String brand, String category, String department, double price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setBrand(brand);
+        product.setCategory(category);
+        product.setDepartment(department);
+        product.setRetailPrice(price);
+        return product;
+    }
+}
@@ -0,0 +1,137 @@
+package com.chatbot.backend.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntentClassifierTests {
+
+    private final IntentClassifier classifier = new IntentClassifier(new DefaultIntentRuleTable());
+
+    @Test
+    void classifiesTheOriginalKeywordQuestions() {
+        assertEquals(Intent.CATEGORIES, classifier.classify("What categories do you have?").intent());
+        assertEquals(Intent.BRANDS, classifier.classify("List all BRANDS").intent());
+        assertEquals(Intent.ORDER_STATUS, classifier.classify("What is the order status of 12345?").intent());
+        assertEquals(Intent.STOCK, classifier.classify("How many Classic Jeans are in stock?").intent());
+        assertEquals(Intent.TOP_PRODUCTS, classifier.classify("Show me the top products").intent());
+        assertEquals(Intent.PRODUCT_SEARCH, classifier.classify("I'm looking for a winter jacket").intent());
+        assertEquals(Intent.UNKNOWN, classifier.classify("hello there").intent());
+    }
+
+    @Test
+    void specificPhrasesOutweighSingleKeywords() {
+        // The old if/else chain answered this with the brand list
+        assertEquals(Intent.ORDER_STATUS, classifier.classify("order status for my brand new jacket, order 42").intent());
+        assertEquals(Intent.TOP_PRODUCTS, classifier.classify("find the best selling jeans").intent());
+    }
+
+    @Test
+    void prioritiesBreakTiesInTheOriginalOrder() {
+        IntentClassifier.Classification result = classifier.classify("is the top brand in stock");
+        assertEquals(Intent.BRANDS, result.intent());
+        assertEquals(3, result.scores().size());
+    }
+
+    @Test
+    void phrasesOnlyMatchAtWordStarts() {
+        assertEquals(Intent.UNKNOWN, classifier.classify("please stop").intent());
+        assertEquals(Intent.TOP_PRODUCTS, classifier.classify("show me tops").intent());
+    }
+
+    @Test
+    void usesACustomRuleTable() {
+        IntentClassifier custom = new IntentClassifier(new IntentRuleTable() {
+            @Override
+            public List<IntentRule> rules() {
+                return List.of(IntentRule.of(Intent.STOCK, "brand"), new IntentRule(Intent.BRANDS, "labels", 5));
+            }
+
+            @Override
+            public int priority(Intent intent) {
+                return 0;
+            }
+        });
+        assertEquals(Intent.STOCK, custom.classify("brand").intent());
+        assertEquals(Intent.BRANDS, custom.classify("brand labels").intent());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void perQueryCostStaysFlatAsRulesGrow() {
+        Random random = new Random(3);
+        List<String> questions = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            questions.add(String.format(Locale.ROOT, "Hi, could you tell me the order status of %d and whether item %s is in stock?",
+                    random.nextInt(100_000), randomWord(random)));
+        }
+        for (int ruleCount : new int[] {20, 200, 2_000, 20_000}) {
+            List<IntentRule> rules = new ArrayList<>(new DefaultIntentRuleTable().rules());
+            while (rules.size() < ruleCount) {
+                rules.add(IntentRule.of(Intent.values()[random.nextInt(6)], randomWord(random) + " " + randomWord(random)));
+            }
+            IntentClassifier scaled = new IntentClassifier(new IntentRuleTable() {
+                @Override
+                public List<IntentRule> rules() {
+                    return rules;
+                }
+
+                @Override
+                public int priority(Intent intent) {
+                    return -intent.ordinal();
+                }
+            });
+            for (int warmup = 0; warmup < 5; warmup++) {
+                classifyAll(scaled, questions);
+                containsAll(rules, questions);
+            }
+            long automatonNanos = classifyAll(scaled, questions);
+            long containsNanos = containsAll(rules, questions);
+            System.out.printf("%6d rules: automaton %.0f ns/query, String.contains chain %.0f ns/query%n", rules.size(),
+                    (double) automatonNanos / questions.size(), (double) containsNanos / questions.size());
+        }
+    }
+
+    private static long classifyAll(IntentClassifier classifier, List<String> questions) {
+        long start = System.nanoTime();
+        int matched = 0;
+        for (String question : questions) {
+            if (classifier.classify(question).intent() != Intent.UNKNOWN) {
+                matched++;
+            }
+        }
+        assertTrue(matched > 0);
+        return System.nanoTime() - start;
+    }
+
+    // What the old implementation did: one lowercase copy and a full scan per rule
+    private static long containsAll(List<IntentRule> rules, List<String> questions) {
+        long start = System.nanoTime();
+        int matched = 0;
+        for (String question : questions) {
+            String lower = question.toLowerCase();
+            for (IntentRule rule : rules) {
+                if (lower.contains(rule.phrase())) {
+                    matched++;
+                }
+            }
+        }
+        assertTrue(matched > 0);
+        return System.nanoTime() - start;
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[4 + random.nextInt(6)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+}
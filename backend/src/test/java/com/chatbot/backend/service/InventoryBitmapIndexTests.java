@@ -0,0 +1,158 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.model.InventoryItem;
+import com.chatbot.backend.repository.InventoryItemRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:bitmap-index-tests;DB_CLOSE_DELAY=-1")
+class InventoryBitmapIndexTests extends LoadedDatasetTests {
+
+    private static final String[] DEPARTMENTS = {null, "Men", "Women"};
+    private static final String[] CENTERS = {null, "1", "2", "3"};
+
+    @Autowired
+    private InventoryBitmapIndex index;
+
+    @Autowired
+    private ChatbotService chatbotService;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Test
+    void intersectionsMatchTheCountQuery() {
+        for (StockFilter filter : filters()) {
+            assertEquals(inventoryItemRepository.countAvailableByFacets(filter.category(), filter.brand(), filter.department(),
+                    filter.distributionCenterId()), index.countAvailable(filter), filter.toString());
+        }
+        assertEquals(index.countAvailable(new StockFilter("Jeans", null, null, null)),
+                index.countAvailable(new StockFilter("jEANS", null, null, null)));
+        assertEquals(0, index.countAvailable(new StockFilter("Jeans", "No Such Brand", null, null)));
+    }
+
+    @Test
+    void facetCountsBreakDownTheFilteredTotal() {
+        StockFilter levis = new StockFilter(null, "Levi's", null, null);
+        Map<String, Long> byCenter = index.facetCounts(InventoryBitmapIndex.Facet.DISTRIBUTION_CENTER, levis);
+
+        assertEquals(index.countAvailable(levis), byCenter.values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(index.countAvailable(new StockFilter(null, "Levi's", null, "2")), byCenter.get("2"));
+        List<Long> counts = new ArrayList<>(byCenter.values());
+        counts.sort(null);
+        assertEquals(counts.reversed(), List.copyOf(byCenter.values()));
+        assertEquals(List.of(TestDatasets.CATEGORIES).stream().sorted().toList(),
+                index.facetCounts(InventoryBitmapIndex.Facet.CATEGORY, StockFilter.ANY).keySet().stream().sorted().toList());
+    }
+
+    @Test
+    void sellAndRestockFlipTheUnsoldBit(@Autowired StockCounterService stockCounters) {
+        InventoryItem item = inventoryItemRepository.findAll().stream().filter(i -> i.getSoldAt() == null).findFirst().orElseThrow();
+        StockFilter filter = new StockFilter(item.getProductCategory(), item.getProductBrand(), item.getProductDepartment(),
+                item.getProductDistributionCenterId());
+        long before = index.countAvailable(filter);
+
+        stockCounters.sell(item.getId());
+        assertEquals(before - 1, index.countAvailable(filter));
+        stockCounters.restock(item.getId());
+        assertEquals(before, index.countAvailable(filter));
+    }
+
+    @Test
+    void stockIntentAnswersFacetQuestionsPerDistributionCenter() {
+        long expected = inventoryItemRepository.countAvailableByFacets("Jeans", "Levi's", null, "1");
+
+        assertEquals("We have " + expected + " units of 'levi jeans' in stock at our Memphis TN distribution center.",
+                chatbotService.processNaturalLanguageQuery("How many Levi's jeans are in stock at the Memphis DC?").getErrorMessage());
+    }
+
+    @Test
+    void valuesBeyondAFullLabelDictionaryKeepTheirOwnCounts() {
+        InventoryItemRepository rows = mock(InventoryItemRepository.class);
+        List<Object[]> facetRows = new ArrayList<>();
+        String[] categories = {"Jeans", "Tops", "Shorts", "Socks", "Suits"};
+        for (int i = 0; i < 100; i++) {
+            // Mixed id forms keep the lookup on strings
+            String id = i % 2 == 0 ? "item-" + i : String.valueOf(i);
+            facetRows.add(new Object[] {id, categories[i % 5], i % 3 == 0 ? null : "Brand", null, "1", i < 10 ? "sold" : null});
+        }
+        when(rows.findFacetRows()).thenReturn(facetRows);
+        InventoryBitmapIndex small = new InventoryBitmapIndex(rows, new StringDictionaries(2, 100));
+        small.rebuild();
+
+        Map<String, Long> byCategory = small.facetCounts(InventoryBitmapIndex.Facet.CATEGORY, StockFilter.ANY);
+        assertEquals(Map.of("Jeans", 18L, "Tops", 18L, "Shorts", 18L, "Socks", 18L, "Suits", 18L), byCategory);
+        assertEquals(18, small.countAvailable(new StockFilter("Suits", null, null, null)));
+
+        small.markSold("item-20");
+        small.markSold("21");
+        small.markSold("no-such-item");
+        assertEquals(17, small.countAvailable(new StockFilter("Jeans", null, null, null)));
+        assertEquals(17, small.countAvailable(new StockFilter("Tops", null, null, null)));
+        small.markRestocked("21");
+        assertEquals(18, small.countAvailable(new StockFilter("Tops", null, null, null)));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void compareBitmapAndCountQueryLatency() {
+        List<StockFilter> filters = filters();
+        for (int warmup = 0; warmup < 3; warmup++) {
+            filters.forEach(this::countQuery);
+            filters.forEach(index::countAvailable);
+        }
+
+        long start = System.nanoTime();
+        long queried = 0;
+        for (StockFilter filter : filters) {
+            queried += countQuery(filter);
+        }
+        long queryNanos = (System.nanoTime() - start) / filters.size();
+        start = System.nanoTime();
+        long intersected = 0;
+        for (StockFilter filter : filters) {
+            intersected += index.countAvailable(filter);
+        }
+        long bitmapNanos = (System.nanoTime() - start) / filters.size();
+
+        assertEquals(queried, intersected);
+        long rows = inventoryItemRepository.count();
+        System.out.printf("%d filters over %d rows: JPA count %d ns/query, bitmap intersection %d ns/query; index %d KB%n",
+                filters.size(), rows, queryNanos, bitmapNanos, index.sizeInBytes() / 1024);
+    }
+
+    private long countQuery(StockFilter filter) {
+        return inventoryItemRepository.countAvailableByFacets(filter.category(), filter.brand(), filter.department(),
+                filter.distributionCenterId());
+    }
+
+    // Every combination of category, brand, department and center, each possibly left open
+    private static List<StockFilter> filters() {
+        List<String> categories = new ArrayList<>(Arrays.asList(TestDatasets.CATEGORIES));
+        categories.add(null);
+        List<String> brands = new ArrayList<>(Arrays.asList(TestDatasets.BRANDS));
+        brands.add(null);
+        List<StockFilter> filters = new ArrayList<>();
+        for (String category : categories) {
+            for (String brand : brands) {
+                for (String department : DEPARTMENTS) {
+                    for (String center : CENTERS) {
+                        filters.add(new StockFilter(category, brand, department, center));
+                    }
+                }
+            }
+        }
+        return filters;
+    }
+}
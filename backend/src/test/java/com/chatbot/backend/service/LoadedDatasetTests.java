@@ -0,0 +1,43 @@
+package com.chatbot.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+// Shared fixture for the service tests that run against the generated dataset. Subclasses that only
+// read share one context and the chatbot-tests database; a subclass that changes data or caches gets a
+// context and database of its own with
+//     @TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:<name>;DB_CLOSE_DELAY=-1")
+// The dataset is loaded through the loader before the first test of every context, so each context's
+// views are built from a DataLoadedEvent whatever the test order.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:chatbot-tests;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "chatbot.snapshot.enabled=false"
+})
+abstract class LoadedDatasetTests {
+
+    private static final Set<ApplicationContext> LOADED = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private CsvDataLoaderService loader;
+
+    @BeforeEach
+    void loadDatasetOncePerContext(@TempDir Path dataDir) throws Exception {
+        if (!LOADED.contains(context)) {
+            loader.loadAllData("file:" + TestDatasets.write(dataDir, 1) + "/", CsvDataLoaderService.LoadMode.NATIVE);
+            LOADED.add(context);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.model.Product;
+import com.chatbot.backend.repository.ProductRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:search-index-tests;DB_CLOSE_DELAY=-1")
+class ProductSearchIndexTests extends LoadedDatasetTests {
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void productsMatchingEveryWordAreReturned() {
+        ProductSearchIndex.Result result = searchIndex.search("carhartt jeans", 100);
+
+        long expected = productRepository.findAll().stream()
+                .filter(p -> p.getBrand().equals("Carhartt") && p.getCategory().equals("Jeans"))
+                .count();
+        assertTrue(result.complete());
+        assertEquals(expected, result.totalMatches());
+        assertTrue(result.hits().stream().allMatch(hit -> hit.product().getBrand().equals("Carhartt")
+                && hit.product().getCategory().equals("Jeans")));
+    }
+
+    @Test
+    void hitsAreRankedAndLimited() {
+        ProductSearchIndex.Result result = searchIndex.search("jeans", 5);
+
+        assertEquals(5, result.hits().size());
+        assertTrue(result.totalMatches() > 5);
+        for (int i = 1; i < result.hits().size(); i++) {
+            assertTrue(result.hits().get(i - 1).score() >= result.hits().get(i).score());
+        }
+    }
+
+    @Test
+    void rareWordsOutrankCommonOnes() {
+        List<Product> hits = searchIndex.search("Style 12", 10).products();
+
+        assertEquals("12", hits.get(0).getId());
+        assertEquals(1, searchIndex.search("style 12", 10).totalMatches());
+    }
+
+    @Test
+    void longerWordsMatchAsPrefixes() {
+        ProductSearchIndex.Result result = searchIndex.search("carhar swea", 50);
+
+        assertTrue(result.complete());
+        assertTrue(result.totalMatches() > 0);
+        assertTrue(result.hits().stream().allMatch(hit -> hit.product().getBrand().equals("Carhartt")
+                && hit.product().getCategory().equals("Sweaters")));
+        // Two letters are too short to expand
+        assertEquals(0, searchIndex.search("ca", 10).totalMatches());
+    }
+
+    @Test
+    void partialMatchesAreFlagged() {
+        ProductSearchIndex.Result result = searchIndex.search("carhartt unicorn", 10);
+
+        assertFalse(result.complete());
+        assertTrue(result.hits().stream().allMatch(hit -> hit.product().getBrand().equals("Carhartt")));
+        assertEquals(0, searchIndex.search("unicorn", 10).totalMatches());
+    }
+
+    @Test
+    void filterRestrictsMatches() {
+        ProductSearchIndex.Result result = searchIndex.search("jeans", 100, p -> p.getRetailPrice() < 50);
+
+        assertTrue(result.totalMatches() > 0);
+        assertTrue(result.hits().stream().allMatch(hit -> hit.product().getRetailPrice() < 50));
+    }
+
+    @Test
+    void incrementalLoadsReindexOnlyChangedProducts() {
+        Product product = productRepository.findById("7").orElseThrow();
+        String originalName = product.getName();
+        try {
+            product.setName(originalName + " Aurora");
+            productRepository.save(product);
+            eventPublisher.publishEvent(new DataLoadedEvent(0,
+                    Map.of("products", new DataLoadedEvent.TableChanges(Set.of("7"), Set.of()))));
+
+            ProductSearchIndex.Result result = searchIndex.search("aurora", 10);
+            assertEquals(1, result.totalMatches());
+            assertEquals("7", result.hits().get(0).product().getId());
+
+            searchIndex.apply(List.of(), List.of("7"));
+            assertEquals(0, searchIndex.search("aurora", 10).totalMatches());
+        } finally {
+            product.setName(originalName);
+            productRepository.save(product);
+            searchIndex.apply(List.of(product), List.of());
+        }
+        assertEquals("7", searchIndex.search("style 7", 1).hits().get(0).product().getId());
+        assertEquals(0, searchIndex.search("aurora", 10).totalMatches());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void compareIndexAndLikeQueryLatency() {
+        List<String> queries = List.of("jeans", "carhartt", "nike shorts", "sweaters", "style 150", "columbia outerwear");
+        for (int warmup = 0; warmup < 5; warmup++) {
+            queries.forEach(query -> productRepository.findByNameContainingIgnoreCase(query));
+            queries.forEach(query -> searchIndex.search(query, 20));
+        }
+
+        int rounds = 20;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            queries.forEach(query -> productRepository.findByNameContainingIgnoreCase(query));
+        }
+        long likeNanos = (System.nanoTime() - start) / (rounds * queries.size());
+        start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            queries.forEach(query -> searchIndex.search(query, 20));
+        }
+        long indexNanos = (System.nanoTime() - start) / (rounds * queries.size());
+
+        System.out.printf("%d products: LIKE query %d us/search, search index top 20 %d us/search%n",
+                productRepository.count(), likeNanos / 1000, indexNanos / 1000);
+    }
+}
@@ -0,0 +1,120 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.dto.ChatResponse;
+import com.chatbot.backend.model.InventoryItem;
+import com.chatbot.backend.repository.InventoryItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:response-cache-tests;DB_CLOSE_DELAY=-1")
+class ResponseCacheTests extends LoadedDatasetTests {
+
+    @Autowired
+    private ChatbotService chatbotService;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @BeforeEach
+    void clearCache() {
+        responseCache.invalidateAll();
+    }
+
+    @Test
+    void rephrasedQuestionsShareOneAnswer() {
+        ChatResponse first = chatbotService.processNaturalLanguageQuery("What categories do you have?");
+        ChatResponse second = chatbotService.processNaturalLanguageQuery("show CATEGORIES!!");
+
+        assertFalse(first.isCached());
+        assertTrue(second.isCached());
+        assertEquals(first.getErrorMessage(), second.getErrorMessage());
+        assertFalse(first.isCached(), "the stored answer is not modified by hits");
+
+        assertFalse(chatbotService.processNaturalLanguageQuery("What is the status of order 17?").isCached());
+        assertTrue(chatbotService.processNaturalLanguageQuery("order status for #17").isCached());
+        assertFalse(chatbotService.processNaturalLanguageQuery("order status for #18").isCached());
+    }
+
+    @Test
+    void aSaleRetiresCachedStockAnswers(@Autowired StockCounterService stockCounters) {
+        InventoryItem item = inventoryItemRepository.findAll().stream().filter(i -> i.getSoldAt() == null)
+                .filter(i -> "Jeans".equals(i.getProductCategory())).findFirst().orElseThrow();
+        ChatResponse before = chatbotService.processNaturalLanguageQuery("How many jeans are in stock?");
+        assertTrue(chatbotService.processNaturalLanguageQuery("how many jeans in stock").isCached());
+
+        stockCounters.sell(item.getId());
+        ChatResponse after = chatbotService.processNaturalLanguageQuery("How many jeans are in stock?");
+        stockCounters.restock(item.getId());
+
+        assertFalse(after.isCached());
+        assertNotEquals(before.getErrorMessage(), after.getErrorMessage());
+    }
+
+    @Test
+    void zeroTimeToLiveDisablesCachingForAnIntent() {
+        ResponseCache noStock = new ResponseCache("stock:0", 1 << 20);
+        ExtractedEntities entities = new ExtractedEntities("jeans", List.of("1"), null, "Jeans", null, null, null, null, null, true);
+        AtomicInteger computed = new AtomicInteger();
+
+        noStock.get(Intent.STOCK, entities, () -> new ChatResponse("stock " + computed.incrementAndGet()));
+        noStock.get(Intent.STOCK, entities, () -> new ChatResponse("stock " + computed.incrementAndGet()));
+        noStock.get(Intent.CATEGORIES, entities, () -> new ChatResponse("categories " + computed.incrementAndGet()));
+        ChatResponse hit = noStock.get(Intent.CATEGORIES, entities, () -> new ChatResponse("categories " + computed.incrementAndGet()));
+
+        assertEquals(3, computed.get());
+        assertTrue(hit.isCached());
+        assertEquals("categories 3", hit.getErrorMessage());
+    }
+
+    @Test
+    void answersComputedAcrossAReloadAreNotServedAfterIt() {
+        ResponseCache cache = new ResponseCache("", 1 << 20);
+        ExtractedEntities entities = new ExtractedEntities(null, List.of(), null, null, null, null, null, null, null, false);
+
+        // The reload finishes while the answer is still being computed from the old data
+        cache.get(Intent.CATEGORIES, entities, () -> {
+            cache.onDataLoaded(new DataLoadedEvent(0));
+            return new ChatResponse("old categories");
+        });
+        ChatResponse after = cache.get(Intent.CATEGORIES, entities, () -> new ChatResponse("new categories"));
+
+        assertFalse(after.isCached());
+        assertEquals("new categories", after.getErrorMessage());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void compareCachedAndUncachedQuestionLatency() {
+        List<String> questions = List.of("What categories do you have?", "Which brands do you carry?",
+                "What are your top selling products?", "What is the status of order 42?",
+                "How many Levi's jeans are in stock?", "find sweaters under $60");
+        int rounds = 50;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            responseCache.invalidateAll();
+            questions.forEach(chatbotService::processNaturalLanguageQuery);
+        }
+        long uncachedMicros = (System.nanoTime() - start) / 1000 / (rounds * questions.size());
+        start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            questions.forEach(chatbotService::processNaturalLanguageQuery);
+        }
+        long cachedMicros = (System.nanoTime() - start) / 1000 / (rounds * questions.size());
+        System.out.printf("%d questions: uncached %d us/question, cached %d us/question%n", questions.size(), uncachedMicros, cachedMicros);
+        System.out.println(responseCache.getStatistics());
+    }
+}
@@ -0,0 +1,135 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.dto.ProductSales;
+import com.chatbot.backend.model.Product;
+import com.chatbot.backend.repository.InventoryItemRepository;
+import com.chatbot.backend.repository.OrderItemRepository;
+import com.chatbot.backend.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SalesRankingServiceTests {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+    private final InventoryItemRepository inventoryItemRepository = mock(InventoryItemRepository.class);
+    private final List<Product> products = new ArrayList<>();
+    private final Map<String, Long> sold = new HashMap<>();
+
+    @BeforeEach
+    void stubRepositories() {
+        when(productRepository.findAll()).thenReturn(products);
+        when(orderItemRepository.count()).thenAnswer(invocation -> (long) sold.size());
+        when(orderItemRepository.countSoldByProduct()).thenAnswer(invocation -> rows(sold));
+    }
+
+    @Test
+    void boardsFollowSalesAndReturns() {
+        product("a", "Jeans", "Men", 10);
+        product("b", "Jeans", "Men", 8);
+        product("c", "Jeans", "Women", 5);
+        product("d", "Tops", "Men", 7);
+        product("e", "Tops", "Women", 1);
+        SalesRankingService ranking = rebuilt(2);
+        assertEquals(List.of("a", "b"), ids(ranking.getTopProducts(5)));
+        assertEquals(List.of("a", "b"), ids(ranking.getTopProductsByCategory("jeans", 5)));
+        assertEquals(List.of("d", "e"), ids(ranking.getTopProductsByCategory("Tops", 5)));
+        assertEquals(List.of("c", "e"), ids(ranking.getTopProductsByDepartment("Women", 5)));
+
+        // A product entering full boards pushes the last member off
+        ranking.recordSale("c", 4);
+        assertEquals(List.of("a", "c"), ids(ranking.getTopProducts(5)));
+        assertEquals(List.of("a", "c"), ids(ranking.getTopProductsByCategory("Jeans", 5)));
+        assertEquals(9, ranking.getTopProducts(5).get(1).getSalesCount());
+
+        // A return that drops a member below an untracked product brings that product back
+        ranking.recordSale("a", -5);
+        assertEquals(List.of("c", "b"), ids(ranking.getTopProducts(5)));
+        assertEquals(List.of("c", "b"), ids(ranking.getTopProductsByCategory("Jeans", 5)));
+        assertEquals(List.of("b", "d"), ids(ranking.getTopProductsByDepartment("Men", 5)));
+
+        ranking.recordSale("e", 10);
+        assertEquals(List.of("e", "c"), ids(ranking.getTopProducts(5)));
+        assertEquals(List.of("e", "d"), ids(ranking.getTopProductsByCategory("Tops", 5)));
+        assertEquals(List.of("e", "c"), ids(ranking.getTopProductsByDepartment("Women", 5)));
+
+        // Counts never go below zero, unknown products are ignored, ties go to the lower id
+        ranking.recordSale("d", -100);
+        ranking.recordSale("zz", 50);
+        assertEquals(0, ranking.getTopProductsByCategory("Tops", 5).get(1).getSalesCount());
+        ranking.recordSale("b", 1);
+        assertEquals(List.of("b", "c"), ids(ranking.getTopProductsByCategory("Jeans", 2)));
+        assertEquals(List.of("e"), ids(ranking.getTopProducts(1)));
+        assertEquals(List.of(), ranking.getTopProductsByCategory("Shoes", 5));
+    }
+
+    @Test
+    void incrementalBoardsMatchAFullRecount() {
+        Random random = new Random(7);
+        String[] categories = {"Jeans", "Tops", "Shorts"};
+        String[] departments = {"Men", "Women"};
+        for (int i = 0; i < 60; i++) {
+            product(String.format("p%02d", i), categories[i % 3], departments[i % 2], random.nextInt(20));
+        }
+        SalesRankingService ranking = rebuilt(5);
+
+        for (int step = 0; step < 2_000; step++) {
+            String id = String.format("p%02d", random.nextInt(60));
+            long quantity = random.nextInt(7) - 3;
+            ranking.recordSale(id, quantity);
+            sold.put(id, Math.max(0, sold.get(id) + quantity));
+        }
+
+        SalesRankingService recounted = rebuilt(5);
+        assertEquals(recounted.getTopProducts(5), ranking.getTopProducts(5));
+        for (String category : categories) {
+            assertEquals(recounted.getTopProductsByCategory(category, 5), ranking.getTopProductsByCategory(category, 5));
+        }
+        for (String department : departments) {
+            assertEquals(recounted.getTopProductsByDepartment(department, 5), ranking.getTopProductsByDepartment(department, 5));
+        }
+    }
+
+    @Test
+    void inventorySellThroughRanksDatasetsWithoutOrderItems() {
+        product("a", "Jeans", "Men", 0);
+        product("b", "Jeans", "Men", 0);
+        sold.clear();
+        when(inventoryItemRepository.countSoldByProduct()).thenReturn(rows(Map.of("a", 1L, "b", 3L)));
+
+        assertEquals(List.of("b", "a"), ids(rebuilt(2).getTopProducts(2)));
+    }
+
+    private SalesRankingService rebuilt(int topK) {
+        SalesRankingService ranking = new SalesRankingService(productRepository, orderItemRepository, inventoryItemRepository, topK);
+        ranking.rebuild();
+        return ranking;
+    }
+
+    private void product(String id, String category, String department, long sales) {
+        products.add(new Product(id, 10.0, category, "Product " + id, "Brand", 20.0, department, "SKU-" + id, "1"));
+        sold.put(id, sales);
+    }
+
+    private static List<Object[]> rows(Map<String, Long> counts) {
+        List<Object[]> rows = new ArrayList<>();
+        counts.entrySet().stream().sorted(Map.Entry.comparingByKey(Comparator.reverseOrder()))
+                .forEach(entry -> rows.add(new Object[] {entry.getKey(), entry.getValue()}));
+        return rows;
+    }
+
+    private static List<String> ids(List<ProductSales> board) {
+        return board.stream().map(ProductSales::getId).toList();
+    }
+}
@@ -0,0 +1,207 @@
+package com.chatbot.backend.service;
+
+import com.chatbot.backend.dto.StockReconciliation;
+import com.chatbot.backend.model.InventoryItem;
+import com.chatbot.backend.repository.InventoryItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:stock-counter-tests;DB_CLOSE_DELAY=-1")
+class StockCounterServiceTests extends LoadedDatasetTests {
+
+    @Autowired
+    private StockCounterService stockCounters;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @BeforeEach
+    void seedCounters() {
+        stockCounters.seed();
+    }
+
+    @Test
+    void seededCountersMatchTheTable() {
+        for (String productId : List.of("1", "2", "17", "500", "1999")) {
+            assertEquals(inventoryItemRepository.countByProductIdAndSoldAtIsNull(productId), stockCounters.available(productId));
+        }
+        for (String centerId : List.of("1", "2", "3")) {
+            assertEquals(inventoryItemRepository.countByProductDistributionCenterIdAndSoldAtIsNull(centerId),
+                    stockCounters.availableAtDistributionCenter(centerId));
+        }
+        assertEquals(0, stockCounters.available("no-such-product"));
+    }
+
+    @Test
+    void sellAndRestockMoveTheCounters() {
+        InventoryItem item = unsoldItems(1).get(0);
+        String productId = item.getProductId();
+        String centerId = item.getProductDistributionCenterId();
+        long before = stockCounters.available(productId);
+        long atCenter = stockCounters.available(productId, centerId);
+
+        assertTrue(stockCounters.sell(item.getId()));
+        assertFalse(stockCounters.sell(item.getId()));
+        assertEquals(before - 1, stockCounters.available(productId));
+        assertEquals(atCenter - 1, stockCounters.available(productId, centerId));
+
+        assertTrue(stockCounters.restock(item.getId()));
+        assertFalse(stockCounters.restock(item.getId()));
+        assertEquals(before, stockCounters.available(productId));
+        assertEquals(0, stockCounters.reconcile().getMismatches());
+    }
+
+    @Test
+    void concurrentSalesOfTheSameItemsCountOnce() throws Exception {
+        List<InventoryItem> items = unsoldItems(50);
+        long before = stockCounters.availableAtDistributionCenter("1") + stockCounters.availableAtDistributionCenter("2")
+                + stockCounters.availableAtDistributionCenter("3");
+        AtomicInteger sold = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                for (InventoryItem item : items) {
+                    if (stockCounters.sell(item.getId())) {
+                        sold.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(items.size(), sold.get());
+        long after = stockCounters.availableAtDistributionCenter("1") + stockCounters.availableAtDistributionCenter("2")
+                + stockCounters.availableAtDistributionCenter("3");
+        assertEquals(before - items.size(), after);
+        assertEquals(0, stockCounters.reconcile().getMismatches());
+        items.forEach(item -> stockCounters.restock(item.getId()));
+    }
+
+    @Test
+    void reconciliationCorrectsDrift() {
+        InventoryItem item = unsoldItems(1).get(0);
+        long before = stockCounters.available(item.getProductId());
+        // Sold behind the counters' back
+        inventoryItemRepository.markSold(item.getId(), LocalDateTime.now());
+
+        StockReconciliation report = stockCounters.reconcile();
+
+        assertEquals(3, report.getMismatches()); // product, center and product x center
+        assertEquals(before - 1, stockCounters.available(item.getProductId()));
+        assertEquals(0, stockCounters.reconcile().getMismatches());
+        stockCounters.restock(item.getId());
+    }
+
+    @Test
+    void salesDuringReconciliationAreNotUndone() throws Exception {
+        List<InventoryItem> items = unsoldItems(200);
+        List<StockReconciliation> reports = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        executor.execute(() -> {
+            for (int run = 0; run < 20; run++) {
+                reports.add(stockCounters.reconcile());
+            }
+        });
+        for (int thread = 0; thread < 4; thread++) {
+            int offset = thread;
+            executor.execute(() -> {
+                for (int i = offset; i < items.size(); i += 4) {
+                    stockCounters.sell(items.get(i).getId());
+                    if (i % 2 == 0) {
+                        stockCounters.restock(items.get(i).getId());
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        // Every change went through the service, so no run found anything to correct
+        assertEquals(20, reports.size());
+        assertTrue(reports.stream().allMatch(report -> report.getMismatches() == 0), reports.toString());
+        for (InventoryItem item : items) {
+            assertEquals(inventoryItemRepository.countByProductIdAndSoldAtIsNull(item.getProductId()),
+                    stockCounters.available(item.getProductId()));
+        }
+        items.forEach(item -> stockCounters.restock(item.getId()));
+    }
+
+    @Test
+    void concurrentReconciliationsCorrectDriftOnce() throws Exception {
+        InventoryItem item = unsoldItems(1).get(0);
+        long before = stockCounters.available(item.getProductId());
+        inventoryItemRepository.markSold(item.getId(), LocalDateTime.now());
+
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<StockReconciliation>> runs = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            runs.add(executor.submit(() -> {
+                go.await();
+                return stockCounters.reconcile();
+            }));
+        }
+        go.countDown();
+        int mismatches = 0;
+        for (Future<StockReconciliation> run : runs) {
+            mismatches += run.get(1, TimeUnit.MINUTES).getMismatches();
+        }
+        executor.shutdown();
+
+        assertEquals(3, mismatches);
+        assertEquals(before - 1, stockCounters.available(item.getProductId()));
+        stockCounters.restock(item.getId());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void compareCounterAndCountQueryLatency() {
+        List<String> ids = inventoryItemRepository.findAll().stream().map(InventoryItem::getProductId).distinct().limit(500).toList();
+        for (int warmup = 0; warmup < 3; warmup++) {
+            ids.forEach(inventoryItemRepository::countByProductIdAndSoldAtIsNull);
+            ids.forEach(stockCounters::available);
+        }
+
+        long start = System.nanoTime();
+        long queried = 0;
+        for (String id : ids) {
+            queried += inventoryItemRepository.countByProductIdAndSoldAtIsNull(id);
+        }
+        long queryNanos = (System.nanoTime() - start) / ids.size();
+        start = System.nanoTime();
+        long counted = 0;
+        for (String id : ids) {
+            counted += stockCounters.available(id);
+        }
+        long counterNanos = (System.nanoTime() - start) / ids.size();
+
+        assertEquals(queried, counted);
+        System.out.printf("%d products: COUNT query %d ns/lookup, live counter %d ns/lookup%n", ids.size(), queryNanos, counterNanos);
+    }
+
+    private List<InventoryItem> unsoldItems(int count) {
+        return inventoryItemRepository.findAll().stream()
+                .filter(item -> item.getSoldAt() == null)
+                .limit(count)
+                .toList();
+    }
+}
@@ -0,0 +1,132 @@
+package com.chatbot.backend.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Writes a deterministic thelook-shaped dataset; scale 1 is roughly 20k rows across the six files
+final class TestDatasets {
+
+    static final String[] CATEGORIES = {"Jeans", "Tops & Tees", "Sweaters", "Accessories", "Shorts", "Swim", "Outerwear & Coats"};
+    static final String[] BRANDS = {"Levi's", "Calvin Klein", "Carhartt", "Nike", "Columbia", "Hanes", "Diesel"};
+    static final String[] STATUSES = {"Complete", "Shipped", "Processing", "Cancelled", "Returned"};
+
+    private TestDatasets() {
+    }
+
+    static Path write(Path directory, int scale) throws IOException {
+        Files.createDirectories(directory);
+        Random random = new Random(42);
+        int productCount = 2000 * scale;
+        int userCount = 3000 * scale;
+        int inventoryCount = 10000 * scale;
+        int orderCount = 4000 * scale;
+
+        try (BufferedWriter out = Files.newBufferedWriter(directory.resolve("distribution_centers.csv"))) {
+            out.write("id,name,latitude,longitude\n");
+            out.write("1,Memphis TN,35.1174,-89.9711\n");
+            out.write("2,Chicago IL,41.8369,-87.6847\n");
+            out.write("3,Houston TX,29.7604,-95.3698\n");
+        }
+
+        double[] prices = new double[productCount + 1];
+        String[][] products = new String[productCount + 1][];
+        try (BufferedWriter out = Files.newBufferedWriter(directory.resolve("products.csv"))) {
+            out.write("id,cost,category,name,brand,retail_price,department,sku,distribution_center_id\n");
+            for (int i = 1; i <= productCount; i++) {
+                String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+                String brand = BRANDS[random.nextInt(BRANDS.length)];
+                String department = random.nextBoolean() ? "Men" : "Women";
+                prices[i] = Math.round(random.nextDouble() * 19500 + 500) / 100.0;
+                String name = brand + " " + department + "'s " + category + " Style " + i;
+                products[i] = new String[] {category, name, brand, department, "SKU" + i, String.valueOf(1 + i % 3)};
+                writeRow(out, i, prices[i] * 0.45, category, name, brand, prices[i], department, "SKU" + i, 1 + i % 3);
+            }
+        }
+
+        try (BufferedWriter out = Files.newBufferedWriter(directory.resolve("users.csv"))) {
+            out.write("id,first_name,last_name,email,age,gender,state,street_address,postal_code,city,country,latitude,longitude,traffic_source,created_at,user_geom\n");
+            for (int i = 1; i <= userCount; i++) {
+                writeRow(out, i, "First" + i, "Last" + i, "user" + i + "@example.com", 18 + random.nextInt(50),
+                        random.nextBoolean() ? "M" : "F", "Texas", i + " Main St, Apt \"B\"", "7" + (1000 + i % 9000),
+                        "Austin", "United States", 30.2672, -97.7431, "Search", timestamp(i), "POINT(-97.7 30.2)");
+            }
+        }
+
+        List<int[]> soldItems = new ArrayList<>();
+        try (BufferedWriter out = Files.newBufferedWriter(directory.resolve("inventory_items.csv"))) {
+            out.write("id,product_id,created_at,sold_at,cost,product_category,product_name,product_brand,product_retail_price,product_department,product_sku,product_distribution_center_id\n");
+            for (int i = 1; i <= inventoryCount; i++) {
+                int productId = 1 + random.nextInt(productCount);
+                boolean sold = random.nextInt(10) < 4;
+                if (sold) {
+                    soldItems.add(new int[] {i, productId});
+                }
+                String[] product = products[productId];
+                writeRow(out, i, productId, timestamp(i), sold ? timestamp(i + 5) : "", prices[productId] * 0.45,
+                        product[0], product[1], product[2], prices[productId], product[3], product[4], product[5]);
+            }
+        }
+
+        try (BufferedWriter orders = Files.newBufferedWriter(directory.resolve("orders.csv"));
+             BufferedWriter items = Files.newBufferedWriter(directory.resolve("order_items.csv"))) {
+            orders.write("order_id,user_id,status,gender,created_at,returned_at,shipped_at,delivered_at,num_of_item\n");
+            items.write("id,order_id,user_id,product_id,inventory_item_id,status,created_at,shipped_at,delivered_at,returned_at,sale_price\n");
+            int nextSold = 0;
+            int itemId = 1;
+            for (int o = 1; o <= orderCount; o++) {
+                int userId = 1 + random.nextInt(userCount);
+                String status = STATUSES[random.nextInt(STATUSES.length)];
+                int itemCount = 1 + random.nextInt(3);
+                boolean shipped = !status.equals("Processing") && !status.equals("Cancelled");
+                boolean delivered = status.equals("Complete") || status.equals("Returned");
+                writeRow(orders, o, userId, status, random.nextBoolean() ? "M" : "F", timestamp(o),
+                        status.equals("Returned") ? timestamp(o + 3) : "", shipped ? timestamp(o + 1) : "",
+                        delivered ? timestamp(o + 2) : "", itemCount);
+                for (int n = 0; n < itemCount && nextSold < soldItems.size(); n++) {
+                    int[] sold = soldItems.get(nextSold++);
+                    writeRow(items, itemId++, o, userId, sold[1], sold[0], status, timestamp(o),
+                            shipped ? timestamp(o + 1) : "", delivered ? timestamp(o + 2) : "",
+                            status.equals("Returned") ? timestamp(o + 3) : "", prices[sold[1]]);
+                }
+            }
+        }
+        return directory;
+    }
+
+    // Cycles through the timestamp shapes found in the thelook exports
+    static String timestamp(int seed) {
+        String base = String.format(Locale.ROOT, "2022-%02d-%02d %02d:%02d:%02d",
+                1 + seed % 12, 1 + seed % 28, seed % 24, seed % 60, (seed * 7) % 60);
+        switch (seed % 4) {
+            case 0:
+                return base + "+00:00";
+            case 1:
+                return base + String.format(Locale.ROOT, ".%06d+00:00", seed % 1_000_000);
+            case 2:
+                return base + " UTC";
+            default:
+                return base;
+        }
+    }
+
+    private static void writeRow(BufferedWriter out, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            String value = String.valueOf(values[i]);
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0) {
+                out.write('"' + value.replace("\"", "\"\"") + '"');
+            } else {
+                out.write(value);
+            }
+        }
+        out.write('\n');
+    }
+}
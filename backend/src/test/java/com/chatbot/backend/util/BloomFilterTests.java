@@ -0,0 +1,40 @@
+package com.chatbot.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTests {
+
+    @Test
+    void addedValuesAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(50_000, 0.01);
+        for (int i = 0; i < 50_000; i++) {
+            filter.add(Integer.toString(i));
+        }
+        for (int i = 0; i < 50_000; i++) {
+            assertTrue(filter.mightContain(Integer.toString(i)));
+        }
+    }
+
+    @Test
+    void falsePositivesStayNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(50_000, 0.01);
+        for (int i = 0; i < 50_000; i++) {
+            filter.add(Integer.toString(i));
+        }
+        int falsePositives = 0;
+        for (int i = 50_000; i < 150_000; i++) {
+            if (filter.mightContain(Integer.toString(i))) {
+                falsePositives++;
+            }
+        }
+        double observed = falsePositives / 100_000.0;
+
+        assertTrue(observed < 0.015, "observed rate " + observed);
+        assertTrue(Math.abs(filter.falsePositiveRate() - observed) < 0.005,
+                "estimated " + filter.falsePositiveRate() + ", observed " + observed);
+        assertFalse(new BloomFilter(10, 0.01).mightContain("anything"));
+    }
+}
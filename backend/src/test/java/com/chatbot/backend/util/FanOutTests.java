@@ -0,0 +1,101 @@
+package com.chatbot.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FanOutTests {
+
+    @Test
+    void tasksRunTogetherAndResultsKeepTaskOrder() {
+        List<Callable<String>> tasks = List.of(
+                () -> sleepThen(300, "slow"),
+                () -> sleepThen(100, "fast"),
+                () -> sleepThen(200, "medium"));
+
+        long start = System.nanoTime();
+        List<String> results = FanOut.all(tasks, 5_000, (index, failure) -> "failed " + index);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(List.of("slow", "fast", "medium"), results);
+        // About as long as the slowest task, well under the 600 ms of running them one by one
+        assertTrue(elapsedMillis < 550, "took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void lateAndFailedTasksAreReplacedByTheFallback() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        List<Callable<String>> tasks = List.of(
+                () -> "done",
+                () -> {
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return "too late";
+                },
+                () -> {
+                    throw new IllegalStateException("lookup failed");
+                });
+
+        long start = System.nanoTime();
+        List<String> results = FanOut.all(tasks, 200, (index, failure) -> index + ": " + failure.getClass().getSimpleName());
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(List.of("done", "1: " + TimeoutException.class.getSimpleName(), "2: IllegalStateException"), results);
+        assertTrue(elapsedMillis < 2_000, "took " + elapsedMillis + " ms");
+        // The late task does not keep running after the call returns
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void tasksThatIgnoreInterruptsGetAGracePeriodToStop() {
+        AtomicBoolean stopped = new AtomicBoolean();
+        List<Callable<String>> briefly = List.of(() -> {
+            sleepIgnoringInterrupts(100);
+            stopped.set(true);
+            return "too late";
+        });
+
+        List<String> results = FanOut.all(briefly, 20, (index, failure) -> "timed out");
+
+        assertEquals(List.of("timed out"), results);
+        // Its connection or permit is released before the caller moves on
+        assertTrue(stopped.get());
+
+        // One that does not stop within the grace period is left behind rather than waited for
+        List<Callable<String>> stubborn = List.of(() -> {
+            sleepIgnoringInterrupts(3_000);
+            return "too late";
+        });
+        long start = System.nanoTime();
+        assertEquals(List.of("timed out"), FanOut.all(stubborn, 20, (index, failure) -> "timed out"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis < 20 + FanOut.CANCEL_GRACE_MILLIS + 500, "took " + elapsedMillis + " ms");
+    }
+
+    private static void sleepIgnoringInterrupts(long millis) {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < end) {
+            try {
+                Thread.sleep(Math.max(1, TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime())));
+            } catch (InterruptedException e) {
+                // Like a driver call that does not respond to interrupts
+            }
+        }
+    }
+
+    private static String sleepThen(long millis, String value) throws InterruptedException {
+        Thread.sleep(millis);
+        return value;
+    }
+}
@@ -0,0 +1,98 @@
+package com.chatbot.backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCsvScannerTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsQuotedFieldsEscapesAndCrLf() throws Exception {
+        Path file = write("id,name,price,when\r\n"
+                + "1,\"Levi's \"\"501\"\", Original\",59.5,2022-07-02 07:09:20+00:00\r\n"
+                + "2,Café,-0.25,\r\n"
+                + "\"3\",\"multi\nline\",1e3,2022-07-02 07:09:20 UTC");
+        MappedCsvScanner.Cursor cursor = MappedCsvScanner.open(file, true).cursor();
+
+        assertTrue(cursor.next());
+        assertEquals(4, cursor.size());
+        assertEquals("Levi's \"501\", Original", cursor.string(1));
+        assertEquals(59.5, cursor.doubleAt(2));
+        assertEquals(LocalDateTime.of(2022, 7, 2, 7, 9, 20), cursor.timestampAt(3));
+
+        assertTrue(cursor.next());
+        assertEquals("Café", cursor.string(1));
+        assertEquals(-0.25, cursor.doubleAt(2));
+        assertTrue(cursor.isEmpty(3));
+        assertNull(cursor.timestampAt(3));
+
+        assertTrue(cursor.next());
+        assertEquals(3, cursor.intAt(0));
+        assertEquals("multi\nline", cursor.string(1));
+        assertEquals(1000.0, cursor.doubleAt(2));
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    void numericFastPathMatchesJdkParsing() throws Exception {
+        Random random = new Random(3);
+        List<String> values = new ArrayList<>();
+        StringBuilder csv = new StringBuilder("value\n");
+        for (int i = 0; i < 5_000; i++) {
+            String value = switch (i % 4) {
+                case 0 -> String.valueOf(random.nextDouble() * 1000);
+                case 1 -> String.format(Locale.ROOT, "%.2f", random.nextDouble() * 200);
+                case 2 -> String.valueOf(random.nextInt(100_000) - 50_000);
+                default -> "0.0000" + random.nextInt(1000);
+            };
+            values.add(value);
+            csv.append(value).append('\n');
+        }
+        MappedCsvScanner.Cursor cursor = MappedCsvScanner.open(write(csv.toString()), true).cursor();
+        for (String value : values) {
+            assertTrue(cursor.next());
+            assertEquals(Double.parseDouble(value), cursor.doubleAt(0), value);
+        }
+    }
+
+    @Test
+    void splitRangesCoverEveryRecordExactlyOnce() throws Exception {
+        StringBuilder csv = new StringBuilder("id,note\n");
+        for (int i = 0; i < 1_000; i++) {
+            csv.append(i).append(i % 7 == 0 ? ",\"wrapped\nnote, with comma\"\n" : ",plain\n");
+        }
+        MappedCsvScanner scanner = MappedCsvScanner.open(write(csv.toString()), true);
+
+        List<Integer> ids = new ArrayList<>();
+        for (MappedCsvScanner.Range range : scanner.split(8)) {
+            MappedCsvScanner.Cursor cursor = scanner.cursor(range);
+            while (cursor.next()) {
+                ids.add(cursor.intAt(0));
+                assertEquals(2, cursor.size());
+            }
+        }
+        assertEquals(1_000, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i, ids.get(i));
+        }
+    }
+
+    private Path write(String content) throws Exception {
+        Path file = Files.createTempFile(dir, "scan", ".csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,127 @@
+package com.chatbot.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoaringBitmapTests {
+
+    @Test
+    void matchesBitSetAcrossArrayAndBitmapChunks() {
+        Random random = new Random(42);
+        // Sparse, dense and mixed chunks, so both container kinds and their conversions are exercised
+        int[] densities = {50, 9000, 30000, 2};
+        BitSet[] expected = new BitSet[3];
+        RoaringBitmap[] bitmaps = new RoaringBitmap[3];
+        for (int b = 0; b < bitmaps.length; b++) {
+            expected[b] = new BitSet();
+            bitmaps[b] = new RoaringBitmap();
+            for (int chunk = 0; chunk < densities.length; chunk++) {
+                int density = densities[(chunk + b) % densities.length];
+                for (int i = 0; i < density; i++) {
+                    int value = (chunk << 16) | random.nextInt(1 << 16);
+                    expected[b].set(value);
+                    bitmaps[b].add(value);
+                }
+            }
+        }
+        for (int b = 0; b < bitmaps.length; b++) {
+            assertEquals(expected[b].cardinality(), bitmaps[b].cardinality());
+        }
+
+        BitSet pair = (BitSet) expected[0].clone();
+        pair.and(expected[1]);
+        assertEquals(pair.cardinality(), RoaringBitmap.andCardinality(List.of(bitmaps[0], bitmaps[1])));
+        BitSet all = (BitSet) pair.clone();
+        all.and(expected[2]);
+        assertEquals(all.cardinality(), RoaringBitmap.andCardinality(List.of(bitmaps[2], bitmaps[0], bitmaps[1])));
+
+        // Removing most of a dense chunk converts it back to an array
+        for (int value = expected[1].nextSetBit(0); value >= 0; value = expected[1].nextSetBit(value + 1)) {
+            if (random.nextInt(10) > 0) {
+                expected[1].clear(value);
+                bitmaps[1].remove(value);
+            }
+        }
+        assertEquals(expected[1].cardinality(), bitmaps[1].cardinality());
+        for (int value = 0; value < 4 << 16; value += 7) {
+            assertEquals(expected[1].get(value), bitmaps[1].contains(value));
+        }
+        pair = (BitSet) expected[0].clone();
+        pair.and(expected[1]);
+        assertEquals(pair.cardinality(), RoaringBitmap.andCardinality(List.of(bitmaps[0], bitmaps[1])));
+    }
+
+    @Test
+    void runEncodedChunksIntersectLikeTheOthers() {
+        Random random = new Random(7);
+        BitSet[] expected = new BitSet[4];
+        RoaringBitmap[] bitmaps = new RoaringBitmap[4];
+        for (int b = 0; b < bitmaps.length; b++) {
+            expected[b] = new BitSet();
+            bitmaps[b] = new RoaringBitmap();
+            // Stretches of consecutive values, several of them sharing a 64-bit word
+            for (int start = random.nextInt(100); start < 200_000; start += 1 + random.nextInt(b == 3 ? 40 : 3000)) {
+                int length = b == 3 ? 1 : 1 + random.nextInt(b * 700 + 5);
+                expected[b].set(start, start + length);
+                for (int value = start; value < start + length; value++) {
+                    bitmaps[b].add(value);
+                }
+            }
+        }
+        long before = bitmaps[1].sizeInBytes();
+        for (int b = 0; b < 3; b++) {
+            bitmaps[b].runOptimize();
+        }
+        assertTrue(bitmaps[1].sizeInBytes() < before);
+
+        for (int a = 0; a < bitmaps.length; a++) {
+            assertEquals(expected[a].cardinality(), bitmaps[a].cardinality());
+            for (int b = 0; b < bitmaps.length; b++) {
+                BitSet both = (BitSet) expected[a].clone();
+                both.and(expected[b]);
+                BitSet three = (BitSet) both.clone();
+                three.and(expected[(a + b) % bitmaps.length]);
+                assertEquals(both.cardinality(), RoaringBitmap.andCardinality(List.of(bitmaps[a], bitmaps[b])));
+                assertEquals(three.cardinality(), RoaringBitmap.andCardinality(List.of(bitmaps[a], bitmaps[b], bitmaps[(a + b) % bitmaps.length])));
+            }
+        }
+
+        // Changing a run-encoded chunk
+        int value = expected[2].nextSetBit(1000);
+        bitmaps[2].remove(value);
+        bitmaps[2].add(value - 1);
+        expected[2].clear(value);
+        expected[2].set(value - 1);
+        assertEquals(expected[2].cardinality(), bitmaps[2].cardinality());
+        assertFalse(bitmaps[2].contains(value));
+        assertTrue(bitmaps[2].contains(value - 1));
+    }
+
+    @Test
+    void compressesSparseAndDenseSets() {
+        RoaringBitmap sparse = new RoaringBitmap();
+        RoaringBitmap dense = new RoaringBitmap();
+        for (int i = 0; i < 1_000_000; i++) {
+            if (i % 1000 == 0) {
+                sparse.add(i);
+            }
+            dense.add(i);
+        }
+        assertEquals(1000, sparse.cardinality());
+        assertEquals(1_000_000, dense.cardinality());
+        // Plain bitsets over the same range take 125,000 bytes each
+        assertTrue(sparse.sizeInBytes() < 5_000, "sparse " + sparse.sizeInBytes());
+        assertTrue(dense.sizeInBytes() < 140_000, "dense " + dense.sizeInBytes());
+        assertEquals(1000, RoaringBitmap.andCardinality(List.of(sparse, dense)));
+        dense.runOptimize();
+        assertTrue(dense.sizeInBytes() < 1_000, "dense as runs " + dense.sizeInBytes());
+        assertEquals(1000, RoaringBitmap.andCardinality(List.of(sparse, dense)));
+    }
+}
@@ -0,0 +1,107 @@
+package com.chatbot.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTests {
+
+    @Test
+    void concurrentCallsForOneKeyShareOneExecution() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 5_000);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> flight.execute("order-1", () -> {
+                executions.incrementAndGet();
+                await(release);
+                return new String("shipped");
+            })));
+        }
+        // Every caller is either running the loader or waiting on it before it is let go
+        while (flight.calls() < 8) {
+            Thread.sleep(1);
+        }
+        // calls() counts a caller just before it joins; give the last ones time to get there
+        Thread.sleep(100);
+        release.countDown();
+
+        String first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<String> result : results) {
+            assertSame(first, result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, executions.get());
+        assertEquals(1, flight.executions());
+        assertEquals(7, flight.collapsed());
+        assertEquals(0, flight.inFlight());
+
+        // Finished calls are not remembered
+        assertEquals("again", flight.execute("order-1", () -> "again"));
+        assertEquals(2, flight.executions());
+    }
+
+    @Test
+    void followersStopWaitingAfterTheBoundAndFailuresAreShared() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 50);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> slow = executor.submit(() -> flight.execute("order-1", () -> {
+            await(release);
+            return "slow";
+        }));
+        while (flight.inFlight() == 0) {
+            Thread.sleep(1);
+        }
+
+        assertEquals("own", flight.execute("order-1", () -> "own"));
+        assertEquals(1, flight.timedOut());
+        release.countDown();
+        assertEquals("slow", slow.get(5, TimeUnit.SECONDS));
+
+        SingleFlight<String, String> patient = new SingleFlight<>("test", 5_000);
+        CountDownLatch failing = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> patient.execute("order-2", () -> {
+            await(failing);
+            throw new IllegalStateException("database down");
+        }));
+        while (patient.inFlight() == 0) {
+            Thread.sleep(1);
+        }
+        ExecutorService follower = Executors.newSingleThreadExecutor();
+        Future<String> shared = follower.submit(() -> patient.execute("order-2", () -> "not run"));
+        while (patient.calls() < 2) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(100);
+        failing.countDown();
+
+        Exception error = assertThrows(Exception.class, () -> shared.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        follower.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.chatbot.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StringDictionaryTests {
+
+    @Test
+    void equalValuesShareOneInstanceAndCode() {
+        StringDictionary dictionary = new StringDictionary(100);
+        String first = new String("Jeans");
+        String second = new String("Jeans");
+
+        assertSame(first, dictionary.intern(first));
+        assertSame(first, dictionary.intern(second));
+        assertEquals(0, dictionary.encode(second));
+        assertEquals(1, dictionary.encode("Sweaters"));
+        assertEquals("Sweaters", dictionary.decode(1));
+        assertEquals(2, dictionary.size());
+        assertEquals(StringDictionary.NOT_ENCODED, dictionary.codeOf("Shorts"));
+        assertNull(dictionary.intern(null));
+        assertEquals(StringDictionary.NOT_ENCODED, dictionary.encode(null));
+    }
+
+    @Test
+    void aFullDictionaryPassesNewValuesThrough() {
+        StringDictionary dictionary = new StringDictionary(2);
+        dictionary.encode("a");
+        dictionary.encode("b");
+        String overflow = new String("c");
+
+        assertSame(overflow, dictionary.intern(overflow));
+        assertNotSame(overflow, dictionary.intern(new String("c")));
+        assertEquals(StringDictionary.NOT_ENCODED, dictionary.encode("c"));
+        assertEquals(1, dictionary.encode("b"));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    void concurrentEncodersAgreeOnCodes() throws Exception {
+        StringDictionary dictionary = new StringDictionary(10_000);
+        Set<String> pairs = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    String value = "value-" + (i % 2_000);
+                    pairs.add(value + "=" + dictionary.encode(value));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        // Every value got exactly one code, and the codes are 0..n-1
+        assertEquals(2_000, pairs.size());
+        assertEquals(2_000, dictionary.size());
+        Set<Integer> codes = new HashSet<>();
+        for (int i = 0; i < 2_000; i++) {
+            int code = dictionary.codeOf("value-" + i);
+            assertEquals("value-" + i, dictionary.decode(code));
+            codes.add(code);
+        }
+        assertEquals(2_000, codes.size());
+        assertTrue(codes.stream().allMatch(code -> code >= 0 && code < 2_000));
+    }
+}
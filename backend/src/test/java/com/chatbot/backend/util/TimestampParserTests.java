@@ -0,0 +1,117 @@
+package com.chatbot.backend.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TimestampParserTests {
+
+    // Verbatim copy of the parser CsvDataLoaderService used before TimestampParser
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter DATE_FORMATTER_UTC = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss 'UTC'");
+
+    private static LocalDateTime legacyParse(String dateTimeStr) {
+        if (dateTimeStr == null || dateTimeStr.isEmpty()) {
+            return null;
+        }
+        try {
+            if (dateTimeStr.contains("+") || (dateTimeStr.contains("-") && dateTimeStr.lastIndexOf("-") > 10)) {
+                String dateTimeWithoutTz = dateTimeStr.replaceAll("[+-]\\d{2}:?\\d{2}$", "");
+                return LocalDateTime.parse(dateTimeWithoutTz, DATE_FORMATTER);
+            } else if (dateTimeStr.endsWith("UTC")) {
+                return LocalDateTime.parse(dateTimeStr, DATE_FORMATTER_UTC);
+            } else {
+                return LocalDateTime.parse(dateTimeStr, DATE_FORMATTER);
+            }
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Test
+    void matchesLegacyParserOnEveryShapeItSupported() {
+        Random random = new Random(7);
+        String[] suffixes = {"", "+00:00", "-05:00", "+0530", " UTC"};
+        for (int i = 0; i < 20_000; i++) {
+            String text = randomBase(random) + suffixes[random.nextInt(suffixes.length)];
+            assertEquals(legacyParse(text), TimestampParser.parse(text), text);
+        }
+    }
+
+    @Test
+    void parsesFractionalSecondsThatTheLegacyParserRejected() {
+        assertEquals(LocalDateTime.of(2022, 7, 2, 7, 9, 20, 123_456_000),
+                TimestampParser.parse("2022-07-02 07:09:20.123456+00:00"));
+        assertEquals(LocalDateTime.of(2022, 7, 2, 7, 9, 20, 500_000_000),
+                TimestampParser.parse("2022-07-02 07:09:20.5 UTC"));
+        assertEquals(LocalDateTime.of(2022, 7, 2, 7, 9, 20, 1),
+                TimestampParser.parse("2022-07-02 07:09:20.000000001"));
+    }
+
+    @Test
+    void agreesWithLegacyParserOnMalformedInput() {
+        String[] inputs = {null, "", "garbage", "2022-13-01 00:00:00", "2022-02-30 10:00:00", "2022-01-01T00:00:00",
+                "2022-01-01 00:00", "2022-01-01 00:00:00+00", "2022-01-01 00:00:00 PST", "2022-1-01 00:00:00"};
+        for (String input : inputs) {
+            assertEquals(legacyParse(input), TimestampParser.parse(input), String.valueOf(input));
+        }
+        assertNull(TimestampParser.parse("2022-01-01 00:00:00."));
+    }
+
+    @Test
+    void parsesWithinLargerBuffers() {
+        String line = "42,2022-07-02 07:09:20+00:00,x";
+        assertEquals(LocalDateTime.of(2022, 7, 2, 7, 9, 20), TimestampParser.parse(line, 3, 28));
+        assertNull(TimestampParser.parse(line, 3, 3));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void compareParseCost() {
+        Random random = new Random(11);
+        String[] suffixes = {"+00:00", " UTC", ""};
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            inputs.add(randomBase(random) + suffixes[i % suffixes.length]);
+        }
+        for (int warmup = 0; warmup < 5; warmup++) {
+            run(inputs, true);
+            run(inputs, false);
+        }
+        long legacyNanos = run(inputs, true);
+        long fastNanos = run(inputs, false);
+        int operations = inputs.size() * 50;
+        System.out.printf("Timestamp parse: legacy %.1f ns/op, fixed-layout %.1f ns/op%n",
+                (double) legacyNanos / operations, (double) fastNanos / operations);
+    }
+
+    private static long run(List<String> inputs, boolean legacy) {
+        long start = System.nanoTime();
+        int nonNull = 0;
+        for (int round = 0; round < 50; round++) {
+            for (String input : inputs) {
+                LocalDateTime parsed = legacy ? legacyParse(input) : TimestampParser.parse(input);
+                if (parsed != null) {
+                    nonNull++;
+                }
+            }
+        }
+        assertEquals(inputs.size() * 50, nonNull);
+        return System.nanoTime() - start;
+    }
+
+    private static String randomBase(Random random) {
+        return String.format(Locale.ROOT, "%04d-%02d-%02d %02d:%02d:%02d",
+                2019 + random.nextInt(6), 1 + random.nextInt(12), 1 + random.nextInt(28),
+                random.nextInt(24), random.nextInt(60), random.nextInt(60));
+    }
+}